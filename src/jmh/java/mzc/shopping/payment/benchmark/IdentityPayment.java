@@ -0,0 +1,75 @@
+package mzc.shopping.payment.benchmark;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import mzc.shopping.payment.entity.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Snowflake ID 도입 전의 payments 매핑(IDENTITY). {@link PaymentRepositoryBenchmark} 의 비교 기준으로만 쓰며,
+ * 같은 컬럼과 인덱스를 가진 별도 테이블에 insert 한다.
+ */
+@Entity
+@Table(name = "payments_identity", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payments_identity_order_id", columnNames = "order_id"),
+        @UniqueConstraint(name = "uk_payments_identity_payment_key", columnNames = "payment_key")
+}, indexes = {
+        @Index(name = "idx_payments_identity_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_payments_identity_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_payments_identity_created", columnList = "created_at, id")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class IdentityPayment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private String paymentMethod;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentStatus status;
+
+    private String paymentKey;
+    private String transactionId;
+    private String cancelReason;
+    private BigDecimal refundAmount;
+
+    @Version
+    private Long version;
+
+    private LocalDateTime paidAt;
+    private LocalDateTime cancelledAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    IdentityPayment(Long orderId, Long userId, BigDecimal amount, String paymentMethod) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.amount = amount;
+        this.paymentMethod = paymentMethod;
+        this.status = PaymentStatus.PENDING;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+}
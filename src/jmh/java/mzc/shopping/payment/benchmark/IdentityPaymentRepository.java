@@ -0,0 +1,6 @@
+package mzc.shopping.payment.benchmark;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface IdentityPaymentRepository extends JpaRepository<IdentityPayment, Long> {
+}
@@ -0,0 +1,68 @@
+package mzc.shopping.payment.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import mzc.shopping.payment.dto.PaymentRequest;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.entity.PaymentStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API 요청/응답 DTO 의 Jackson 직렬화·역직렬화 비용.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JacksonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private PaymentRequest request;
+    private PaymentResponse response;
+    private byte[] requestJson;
+    private byte[] responseJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        request = new PaymentRequest(42L, 7L, new BigDecimal("15000"), "카드");
+        LocalDateTime now = LocalDateTime.now();
+        response = PaymentResponse.builder()
+                .id(1234567890L)
+                .orderId(42L)
+                .userId(7L)
+                .amount(new BigDecimal("15000"))
+                .paymentMethod("카드")
+                .status(PaymentStatus.COMPLETED)
+                .paymentKey("tgen_20240101000000abcdE")
+                .transactionId("TXN_1704067200000")
+                .paidAt(now)
+                .createdAt(now)
+                .build();
+        requestJson = objectMapper.writeValueAsBytes(request);
+        responseJson = objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public PaymentRequest readPaymentRequest() throws Exception {
+        return objectMapper.readValue(requestJson, PaymentRequest.class);
+    }
+
+    @Benchmark
+    public byte[] writePaymentRequest() throws Exception {
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public PaymentResponse readPaymentResponse() throws Exception {
+        return objectMapper.readValue(responseJson, PaymentResponse.class);
+    }
+
+    @Benchmark
+    public byte[] writePaymentResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
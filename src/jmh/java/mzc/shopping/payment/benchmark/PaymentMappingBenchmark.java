@@ -0,0 +1,44 @@
+package mzc.shopping.payment.benchmark;
+
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 모든 조회/변경 응답이 거치는 PaymentResponse.from 매핑 비용.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PaymentMappingBenchmark {
+
+    private Payment payment;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        payment = Payment.builder()
+                .id(1234567890L)
+                .orderId(42L)
+                .userId(7L)
+                .amount(new BigDecimal("15000"))
+                .paymentMethod("카드")
+                .status(PaymentStatus.COMPLETED)
+                .paymentKey("tgen_20240101000000abcdE")
+                .transactionId("TXN_1704067200000")
+                .paidAt(now)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    @Benchmark
+    public PaymentResponse from() {
+        return PaymentResponse.from(payment);
+    }
+}
@@ -0,0 +1,137 @@
+package mzc.shopping.payment.benchmark;
+
+import mzc.shopping.payment.PaymentServiceApplication;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 인메모리 H2 에서의 PaymentRepository 왕복 비용.
+ * bulkInsert 는 Snowflake ID + JDBC 배치 insert 의 처리량(행/초 = 100 * ops/s)을 보고,
+ * bulkInsertIdentity 는 같은 스키마를 IDENTITY 로 매핑한 기준선이다 (Hibernate 가 행마다 insert 후 키를 읽어 배치가 꺼진다).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PaymentRepositoryBenchmark {
+
+    private static final int BULK_SIZE = 100;
+    private static final int SEED_ROWS = 10_000;
+
+    private final AtomicLong orderIds = new AtomicLong(1);
+
+    private ConfigurableApplicationContext context;
+    private PaymentRepository paymentRepository;
+    private IdentityPaymentRepository identityPaymentRepository;
+    private TransactionTemplate transactionTemplate;
+    private Long existingId;
+    private Long existingOrderId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // application.yml 보다 우선하도록 기본 속성이 아닌 명령행 인자로 덮어쓴다.
+        // IDENTITY 기준선 테이블은 마이그레이션에 없으므로 ddl-auto 로 스키마를 만든다
+        context = new SpringApplicationBuilder(PaymentServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--payment.id.node-id=0",
+                        "--payment.outbox.relay-interval=3600000",
+                        "--payment.idempotency.purge-interval=3600000",
+                        "--payment.webhook.purge-interval=3600000",
+                        "--payment.webhook.apply-interval=3600000",
+                        "--payment.reconcile.interval=3600000",
+                        "--payment.rollup.fold-interval=3600000");
+        paymentRepository = context.getBean(PaymentRepository.class);
+        identityPaymentRepository = context.getBean(IdentityPaymentRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        for (int i = 0; i < SEED_ROWS / BULK_SIZE; i++) {
+            bulkInsert();
+            bulkInsertIdentity();
+        }
+        Payment seeded = paymentRepository.save(newPayment());
+        existingId = seeded.getId();
+        existingOrderId = seeded.getOrderId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Payment insert() {
+        return paymentRepository.save(newPayment());
+    }
+
+    @Benchmark
+    public List<Payment> bulkInsert() {
+        List<Payment> payments = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            payments.add(newPayment());
+        }
+        return transactionTemplate.execute(status -> paymentRepository.saveAll(payments));
+    }
+
+    @Benchmark
+    public IdentityPayment insertIdentity() {
+        return identityPaymentRepository.save(newIdentityPayment());
+    }
+
+    @Benchmark
+    public List<IdentityPayment> bulkInsertIdentity() {
+        List<IdentityPayment> payments = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            payments.add(newIdentityPayment());
+        }
+        return transactionTemplate.execute(status -> identityPaymentRepository.saveAll(payments));
+    }
+
+    @Benchmark
+    public Object findById() {
+        return paymentRepository.findById(existingId);
+    }
+
+    @Benchmark
+    public Object findByOrderId() {
+        return paymentRepository.findByOrderId(existingOrderId);
+    }
+
+    @Benchmark
+    public List<Payment> findFirstPage() {
+        return paymentRepository.findPage(PageRequest.of(0, 21));
+    }
+
+    private Payment newPayment() {
+        long orderId = orderIds.getAndIncrement();
+        return Payment.builder()
+                .orderId(orderId)
+                .userId(orderId % 100)
+                .amount(new BigDecimal("15000"))
+                .paymentMethod("카드")
+                .status(PaymentStatus.PENDING)
+                .build();
+    }
+
+    private IdentityPayment newIdentityPayment() {
+        long orderId = orderIds.getAndIncrement();
+        return new IdentityPayment(orderId, orderId % 100, new BigDecimal("15000"), "카드");
+    }
+}
@@ -0,0 +1,104 @@
+package mzc.shopping.payment.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import mzc.shopping.payment.PaymentServiceApplication;
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 샤딩 모드의 쓰기 확장성. 샤드마다 별도 인메모리 H2 와 커넥션 풀을 두고 같은 스레드 수로 insert 처리량을 비교한다.
+ * 샤드당 풀 크기를 스레드 수보다 작게 잡아 DB 한 대의 한도를 흉내 내며,
+ * shards=1 대비 2, 4 의 처리량이 샤드 수에 가깝게 늘어나는지 본다 (-PjmhIncludes=ShardedWriteBenchmark).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class ShardedWriteBenchmark {
+
+    private static final int POOL_SIZE_PER_SHARD = 4;
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    private final AtomicLong orderIds = new AtomicLong(1);
+
+    private ConfigurableApplicationContext context;
+    private PaymentRepository paymentRepository;
+    private TransactionTemplate transactionTemplate;
+    private ShardRouter shardRouter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> properties = new ArrayList<>(List.of(
+                "payment.id.node-id=0",
+                "spring.flyway.enabled=false",
+                "spring.jpa.hibernate.ddl-auto=none",
+                "payment.sharding.enabled=true",
+                "payment.sharding.maximum-pool-size=" + POOL_SIZE_PER_SHARD,
+                "payment.outbox.relay-interval=3600000",
+                "payment.idempotency.purge-interval=3600000",
+                "payment.webhook.purge-interval=3600000",
+                "payment.webhook.apply-interval=3600000",
+                "payment.reconcile.interval=3600000",
+                "payment.rollup.fold-interval=3600000"));
+        for (int shard = 0; shard < shards; shard++) {
+            properties.add("payment.sharding.shards[" + shard + "].url=jdbc:h2:mem:shard" + shards + "_" + shard
+                    + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+            properties.add("payment.sharding.shards[" + shard + "].username=sa");
+            properties.add("payment.sharding.shards[" + shard + "].password=");
+        }
+        // application.yml 보다 우선하도록 기본 속성이 아닌 명령행 인자로 덮어쓴다
+        context = new SpringApplicationBuilder(PaymentServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(properties.stream().map(property -> "--" + property).toArray(String[]::new));
+        paymentRepository = context.getBean(PaymentRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        shardRouter = context.getBean(ShardRouter.class);
+
+        // ddl-auto 는 0번 샤드에만 적용되므로 샤드마다 스키마를 만든다
+        SessionFactory sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+        for (int shard = 0; shard < shards; shard++) {
+            shardRouter.onShard(shard, () -> {
+                sessionFactory.getSchemaManager().exportMappedObjects(true);
+                return null;
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Payment insert() {
+        long orderId = orderIds.getAndIncrement();
+        return shardRouter.onShardOf(orderId, () ->
+                transactionTemplate.execute(status -> paymentRepository.save(newPayment(orderId))));
+    }
+
+    private Payment newPayment(long orderId) {
+        return Payment.builder()
+                .orderId(orderId)
+                .userId(orderId % 100)
+                .amount(new BigDecimal("15000"))
+                .paymentMethod("카드")
+                .status(PaymentStatus.PENDING)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package mzc.shopping.payment.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mzc.shopping.payment.client.TossAuthorization;
+import mzc.shopping.payment.client.TossConfirmRequest;
+import mzc.shopping.payment.client.TossConfirmResponse;
+import mzc.shopping.payment.dto.TossPaymentRequest;
+import mzc.shopping.payment.service.TossRequestSupport;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * confirmTossPayemnt 가 요청마다 수행하는 Authorization 헤더/요청 바디 생성, orderId 파싱, 응답 역직렬화.
+ * legacy* 는 이전 구현(요청마다 Base64 인코딩, HashMap 바디, split 파싱, Map 응답)을 그대로 옮긴 것으로
+ * gc 프로파일러의 gc.alloc.rate.norm 으로 호출당 할당량을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TossRequestBenchmark {
+
+    private static final String SECRET_KEY = "test_sk_ALnQvDd2VJPxEMRbQnZw8Mj7X41m";
+
+    private static final String RESPONSE_JSON = """
+            {"mId":"tosspayments","version":"2022-11-16","paymentKey":"tgen_20240101000000abcdE",\
+            "orderId":"ORDER_123456_1704067200000","orderName":"주문 123456","status":"DONE",\
+            "requestedAt":"2024-01-01T00:00:00+09:00","approvedAt":"2024-01-01T00:00:05+09:00",\
+            "method":"카드","totalAmount":15000,"balanceAmount":15000,"currency":"KRW",\
+            "lastTransactionKey":"txrd_a01hk7zc0d5zq3vbdx1n","card":{"company":"신한","number":"4330****",\
+            "installmentPlanMonths":0,"approveNo":"00000000","cardType":"신용","ownerType":"개인"},\
+            "receipt":{"url":"https://dashboard.tosspayments.com/receipt"}}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private TossPaymentRequest request;
+    private TossAuthorization authorization;
+
+    @Setup
+    public void setUp() {
+        request = new TossPaymentRequest("tgen_20240101000000abcdE", "ORDER_123456_1704067200000", 15000L);
+        authorization = new TossAuthorization(SECRET_KEY);
+    }
+
+    @Benchmark
+    public String legacyAuthorizationHeader() {
+        String encoded = Base64.getEncoder().encodeToString((SECRET_KEY + ":").getBytes(StandardCharsets.UTF_8));
+        return "Basic " + encoded;
+    }
+
+    @Benchmark
+    public String authorizationHeader() {
+        return authorization.header();
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyConfirmBody() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("paymentKey", request.getPaymentKey());
+        body.put("orderId", request.getOrderId());
+        body.put("amount", request.getAmount());
+        return body;
+    }
+
+    @Benchmark
+    public TossConfirmRequest confirmRequest() {
+        return TossRequestSupport.confirmRequest(request);
+    }
+
+    @Benchmark
+    public Long legacyParseOrderId() {
+        String[] parts = request.getOrderId().split("_");
+        return Long.parseLong(parts[1]);
+    }
+
+    @Benchmark
+    public long parseOrderId() {
+        return TossRequestSupport.parseOrderId(request.getOrderId());
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> legacyDecodeResponse() throws Exception {
+        return objectMapper.readValue(RESPONSE_JSON, Map.class);
+    }
+
+    @Benchmark
+    public TossConfirmResponse decodeResponse() throws Exception {
+        return objectMapper.readValue(RESPONSE_JSON, TossConfirmResponse.class);
+    }
+}
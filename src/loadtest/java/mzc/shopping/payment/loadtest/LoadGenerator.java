@@ -0,0 +1,268 @@
+package mzc.shopping.payment.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mzc.shopping.payment.loadtest.LoadTestOptions.Scenario;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 실제 PaymentController 엔드포인트에 시나리오 혼합 부하를 건다.
+ * 워커마다 seed 에서 파생한 Random 으로 시나리오를 고르므로 같은 설정이면 같은 요청 순서가 재현된다.
+ * 목표 처리량에 맞춘 고정 간격(open-loop)으로 요청을 시작하고, 첫 요청의 지연은 예정 시각부터 재서
+ * 서버가 밀려 시작이 늦어진 시간도 지연에 포함한다 (coordinated omission 보정).
+ */
+final class LoadGenerator {
+
+    private static final String BASE_PATH = "/api/payments";
+    private static final int RECENT_PAYMENTS = 4096;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final AtomicLong orderIds = new AtomicLong();
+    // 조회 대상으로 쓰는 최근 결제와, 취소/환불 대상으로 한 번씩만 꺼내 쓰는 완료 결제
+    private final AtomicReferenceArray<PlacedPayment> recent = new AtomicReferenceArray<>(RECENT_PAYMENTS);
+    private final AtomicLong recentCursor = new AtomicLong();
+    private final ConcurrentLinkedQueue<PlacedPayment> completed = new ConcurrentLinkedQueue<>();
+    private final Map<Long, String> historyETags = new ConcurrentHashMap<>();
+    private final Scenario[] weightedScenarios;
+
+    // 이 시각 이전에 예정된 요청은 워밍업으로 보고 기록하지 않는다
+    private volatile long measureStart = Long.MAX_VALUE;
+
+    private record PlacedPayment(long id, long orderId, long userId) {
+    }
+
+    LoadGenerator(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        List<Scenario> weighted = new ArrayList<>();
+        options.mix().forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(scenario);
+            }
+        });
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("시나리오 가중치 합이 0 입니다.");
+        }
+        this.weightedScenarios = weighted.toArray(Scenario[]::new);
+    }
+
+    LoadTestReport run() throws InterruptedException {
+        int workers = options.concurrency();
+        // 워커마다 같은 간격으로 시작 시각을 어긋나게 잡아 전체 도착 간격을 1/rate 로 맞춘다
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) * workers / options.rate();
+        long start = System.nanoTime();
+        measureStart = start + options.warmup().toNanos();
+        long end = measureStart + options.duration().toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int worker = 0; worker < workers; worker++) {
+            Random random = new Random(options.seed() + worker);
+            long firstStart = start + intervalNanos * worker / workers;
+            futures.add(executor.submit(() -> drive(random, firstStart, intervalNanos, end)));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("부하 워커가 비정상 종료되었습니다.", e);
+            }
+        }
+        executor.shutdown();
+        double elapsedSeconds = (System.nanoTime() - measureStart) / 1e9;
+
+        Map<String, LoadTestReport.EndpointResult> results = new TreeMap<>();
+        stats.forEach((endpoint, endpointStats) -> results.put(endpoint, endpointStats.result(elapsedSeconds)));
+        return new LoadTestReport(LoadTestRunner.environment(), options.settings(), results);
+    }
+
+    private void drive(Random random, long firstStart, long intervalNanos, long end) {
+        for (long intended = firstStart; intended < end; intended += intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario scenario = weightedScenarios[random.nextInt(weightedScenarios.length)];
+            try {
+                runScenario(scenario, random, intended);
+            } catch (IOException e) {
+                // 연결 실패 등은 해당 요청에서 오류로 기록했으므로 다음 예정 시각으로 넘어간다
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void runScenario(Scenario scenario, Random random, long intended) throws IOException, InterruptedException {
+        switch (scenario) {
+            case CREATE_CONFIRM -> createAndConfirm(random, intended);
+            case TOSS_CONFIRM -> confirmToss(random, intended);
+            case CANCEL -> {
+                PlacedPayment payment = completed.poll();
+                if (payment == null) {
+                    createAndConfirm(random, intended);
+                } else {
+                    send("POST /api/payments/{id}/cancel", "POST",
+                            BASE_PATH + "/" + payment.id() + "/cancel?reason=load-test", null, null, intended);
+                }
+            }
+            case REFUND -> {
+                PlacedPayment payment = completed.poll();
+                if (payment == null) {
+                    createAndConfirm(random, intended);
+                } else {
+                    long refundAmount = 500L * (1 + random.nextInt(4));
+                    send("POST /api/payments/{id}/refund", "POST", BASE_PATH + "/" + payment.id() + "/refund",
+                            "{\"refundAmount\":" + refundAmount + ",\"reason\":\"load-test\"}", null, intended);
+                }
+            }
+            case LOOKUP -> lookup(random, intended);
+        }
+    }
+
+    private void createAndConfirm(Random random, long intended) throws IOException, InterruptedException {
+        long orderId = orderIds.incrementAndGet();
+        long userId = SyntheticOrders.userIdOf(orderId);
+        String method = random.nextBoolean() ? "CARD" : "BANK_TRANSFER";
+        String body = "{\"orderId\":" + orderId + ",\"userId\":" + userId
+                + ",\"amount\":" + SyntheticOrders.amountOf(orderId) + ",\"paymentMethod\":\"" + method + "\"}";
+        Optional<JsonNode> created = send("POST /api/payments", "POST", BASE_PATH, body,
+                "lt-create-" + orderId, intended);
+        if (created.isEmpty()) {
+            return;
+        }
+        long paymentId = created.get().path("id").asLong();
+        remember(new PlacedPayment(paymentId, orderId, userId));
+        Optional<JsonNode> confirmed = send("POST /api/payments/{id}/confirm", "POST",
+                BASE_PATH + "/" + paymentId + "/confirm", null, null, System.nanoTime());
+        confirmed.ifPresent(payment -> completed.add(new PlacedPayment(paymentId, orderId, userId)));
+    }
+
+    private void confirmToss(Random random, long intended) throws IOException, InterruptedException {
+        long orderId = orderIds.incrementAndGet();
+        String paymentKey = "lt_pk_" + orderId + "_" + Long.toHexString(random.nextLong());
+        String body = "{\"paymentKey\":\"" + paymentKey + "\",\"orderId\":\"ORDER_" + orderId + "_" + orderId
+                + "\",\"amount\":" + SyntheticOrders.amountOf(orderId) + "}";
+        Optional<JsonNode> confirmed = send("POST /api/payments/confirm/toss", "POST", BASE_PATH + "/confirm/toss",
+                body, "lt-toss-" + orderId, intended);
+        confirmed.ifPresent(payment -> {
+            PlacedPayment placed = new PlacedPayment(payment.path("id").asLong(), orderId,
+                    SyntheticOrders.userIdOf(orderId));
+            remember(placed);
+            completed.add(placed);
+        });
+    }
+
+    // 스토어프론트 폴링: 단건·주문별 조회와 ETag 를 붙인 사용자 결제 내역 조회
+    private void lookup(Random random, long intended) throws IOException, InterruptedException {
+        long written = recentCursor.get();
+        if (written == 0) {
+            createAndConfirm(random, intended);
+            return;
+        }
+        PlacedPayment payment = recent.get((int) (random.nextLong(Math.min(written, RECENT_PAYMENTS))));
+        if (payment == null) {
+            return;
+        }
+        int pick = random.nextInt(10);
+        if (pick < 4) {
+            send("GET /api/payments/{id}", "GET", BASE_PATH + "/" + payment.id(), null, null, intended);
+        } else if (pick < 7) {
+            send("GET /api/payments/order/{orderId}", "GET", BASE_PATH + "/order/" + payment.orderId(),
+                    null, null, intended);
+        } else {
+            getHistory(payment.userId(), intended);
+        }
+    }
+
+    private void getHistory(long userId, long intended) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + BASE_PATH + "/user/" + userId))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .GET();
+        String etag = historyETags.get(userId);
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        HttpResponse<String> response = exchange("GET /api/payments/user/{userId}", request.build(), intended);
+        if (response != null && response.statusCode() == 200) {
+            response.headers().firstValue("ETag").ifPresent(value -> historyETags.put(userId, value));
+        }
+    }
+
+    private Optional<JsonNode> send(String endpoint, String method, String path, String body, String idempotencyKey,
+                                    long intended) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (idempotencyKey != null) {
+            request.header("Idempotency-Key", idempotencyKey);
+        }
+        HttpResponse<String> response = exchange(endpoint, request.build(), intended);
+        if (response == null || response.statusCode() / 100 != 2) {
+            return Optional.empty();
+        }
+        return Optional.of(objectMapper.readTree(response.body()));
+    }
+
+    private HttpResponse<String> exchange(String endpoint, HttpRequest request, long intended)
+            throws IOException, InterruptedException {
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, key -> new EndpointStats());
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            record(endpointStats, intended, status / 100 == 2 || status == 304);
+            return response;
+        } catch (IOException e) {
+            record(endpointStats, intended, false);
+            throw e;
+        }
+    }
+
+    private void record(EndpointStats endpointStats, long intended, boolean success) {
+        if (intended >= measureStart) {
+            endpointStats.record(System.nanoTime() - intended, success);
+        }
+    }
+
+    private void remember(PlacedPayment payment) {
+        long slot = recentCursor.getAndIncrement();
+        recent.set((int) (slot % RECENT_PAYMENTS), payment);
+    }
+}
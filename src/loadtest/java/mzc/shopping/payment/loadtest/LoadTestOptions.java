@@ -0,0 +1,107 @@
+package mzc.shopping.payment.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 부하 테스트 설정. key=value 인자로 덮어쓴다 (예: duration=2m rate=300 mix=create-confirm:50,lookup:50).
+ * 같은 seed 와 mix 로 실행하면 같은 순서의 요청이 재현된다.
+ * 기본값은 커밋된 기준선을 잰 설정이며, 1 vCPU 러너에서도 포화되지 않도록 낮게 잡았다.
+ * 더 큰 부하는 별도 기준선 파일(baseline=...)과 함께 실행한다.
+ * profiles 로 결제 서비스의 Spring 프로파일을 고른다 (예: profiles=virtual-threads 로 가상 스레드 모드 측정).
+ */
+record LoadTestOptions(Duration warmup,
+                       Duration duration,
+                       int rate,
+                       int concurrency,
+                       long seed,
+                       Duration orderLatency,
+                       Duration tossLatency,
+                       int poolSize,
+                       String profiles,
+                       Map<Scenario, Integer> mix,
+                       double p99Tolerance,
+                       Duration p99Slack,
+                       double throughputTolerance,
+                       double maxErrorRate,
+                       Path baseline,
+                       Path output,
+                       boolean updateBaseline) {
+
+    enum Scenario {
+        CREATE_CONFIRM("create-confirm"),
+        TOSS_CONFIRM("toss-confirm"),
+        CANCEL("cancel"),
+        REFUND("refund"),
+        LOOKUP("lookup");
+
+        private final String key;
+
+        Scenario(String key) {
+            this.key = key;
+        }
+
+        static Scenario of(String key) {
+            for (Scenario scenario : values()) {
+                if (scenario.key.equals(key)) {
+                    return scenario;
+                }
+            }
+            throw new IllegalArgumentException("알 수 없는 시나리오: " + key);
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("인자는 key=value 형식이어야 합니다: " + arg);
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(
+                duration(values, "warmup", "60s"),
+                duration(values, "duration", "60s"),
+                Integer.parseInt(values.getOrDefault("rate", "8")),
+                Integer.parseInt(values.getOrDefault("concurrency", "16")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                duration(values, "order-latency", "20ms"),
+                duration(values, "toss-latency", "100ms"),
+                Integer.parseInt(values.getOrDefault("pool-size", "10")),
+                values.getOrDefault("profiles", "default"),
+                mix(values.getOrDefault("mix", "create-confirm:30,toss-confirm:20,cancel:5,refund:5,lookup:40")),
+                Double.parseDouble(values.getOrDefault("p99-tolerance", "0.25")),
+                duration(values, "p99-slack", "25ms"),
+                Double.parseDouble(values.getOrDefault("throughput-tolerance", "0.10")),
+                Double.parseDouble(values.getOrDefault("max-error-rate", "0.01")),
+                Path.of(values.getOrDefault("baseline", "src/loadtest/baseline.json")),
+                Path.of(values.getOrDefault("output", "build/results/loadtest/loadTest.json")),
+                Boolean.parseBoolean(values.getOrDefault("updateBaseline", "false")));
+    }
+
+    // 기준선과 비교할 수 있는지 가르는 부하 설정. 허용치·경로처럼 측정값에 영향이 없는 설정은 넣지 않는다
+    String settings() {
+        return String.format("rate=%d/s, concurrency=%d, warmup=%s, duration=%s, seed=%d, order-latency=%s, "
+                        + "toss-latency=%s, pool-size=%d, profiles=%s, mix=%s", rate, concurrency, warmup, duration,
+                seed, orderLatency, tossLatency, poolSize, profiles, mix);
+    }
+
+    private static Duration duration(Map<String, String> values, String key, String defaultValue) {
+        return DurationStyle.detectAndParse(values.getOrDefault(key, defaultValue));
+    }
+
+    private static Map<Scenario, Integer> mix(String value) {
+        Map<Scenario, Integer> weights = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Scenario.of(parts[0]), Integer.parseInt(parts[1]));
+        }
+        return weights;
+    }
+}
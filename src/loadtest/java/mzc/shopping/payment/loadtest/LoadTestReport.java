@@ -0,0 +1,77 @@
+package mzc.shopping.payment.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 엔드포인트별 측정 결과. 기준선(baseline.json)과 같은 형식으로 저장하고 비교한다.
+ * 측정 환경(environment)과 부하 설정(settings)을 함께 남겨, 기준선을 어디서 어떤 부하로 쟀는지 알 수 있게 한다.
+ */
+record LoadTestReport(String environment, String settings, Map<String, EndpointResult> endpoints) {
+
+    static final int MIN_P99_SAMPLES = 100;
+
+    record EndpointResult(long count,
+                          long errors,
+                          double throughput,
+                          double p50Millis,
+                          double p99Millis,
+                          double p999Millis,
+                          double maxMillis) {
+
+        double errorRate() {
+            return count == 0 ? 0 : (double) errors / count;
+        }
+    }
+
+    /**
+     * 기준선 대비 회귀 목록. p99 가 허용치 이상 늘거나, 처리량이 허용치 이상 줄거나, 오류율이 상한을 넘으면 회귀로 본다.
+     * 지연은 비율 허용치와 절대 여유(p99-slack)를 모두 넘을 때만 회귀로 본다. 기준선 요청 수가
+     * {@value #MIN_P99_SAMPLES} 건 미만인 엔드포인트는 p99 가 가장 느린 요청 하나와 같아 p50 으로 비교한다.
+     * 기준선에 있는 엔드포인트가 이번 실행에서 한 번도 호출되지 않았어도 회귀로 본다.
+     */
+    List<String> regressionsAgainst(LoadTestReport baseline, LoadTestOptions options) {
+        List<String> regressions = new ArrayList<>();
+        baseline.endpoints().forEach((endpoint, expected) -> {
+            EndpointResult actual = endpoints.get(endpoint);
+            if (actual == null || actual.count() == 0) {
+                regressions.add(endpoint + ": 요청이 기록되지 않았습니다");
+                return;
+            }
+            boolean p99Reliable = expected.count() >= MIN_P99_SAMPLES;
+            String percentile = p99Reliable ? "p99" : "p50";
+            double expectedMillis = p99Reliable ? expected.p99Millis() : expected.p50Millis();
+            double actualMillis = p99Reliable ? actual.p99Millis() : actual.p50Millis();
+            double maxMillis = Math.max(expectedMillis * (1 + options.p99Tolerance()),
+                    expectedMillis + options.p99Slack().toMillis());
+            if (actualMillis > maxMillis) {
+                regressions.add(String.format("%s: %s %.1fms > 기준 %.1fms (+%.0f%%, 최소 +%dms)",
+                        endpoint, percentile, actualMillis, expectedMillis, options.p99Tolerance() * 100,
+                        options.p99Slack().toMillis()));
+            }
+            double minThroughput = expected.throughput() * (1 - options.throughputTolerance());
+            if (actual.throughput() < minThroughput) {
+                regressions.add(String.format("%s: 처리량 %.1f/s < 기준 %.1f/s (-%.0f%%)",
+                        endpoint, actual.throughput(), expected.throughput(), options.throughputTolerance() * 100));
+            }
+        });
+        endpoints.forEach((endpoint, actual) -> {
+            if (actual.errorRate() > options.maxErrorRate()) {
+                regressions.add(String.format("%s: 오류율 %.2f%% > %.2f%%",
+                        endpoint, actual.errorRate() * 100, options.maxErrorRate() * 100));
+            }
+        });
+        return regressions;
+    }
+
+    String toTable() {
+        StringBuilder table = new StringBuilder(String.format("%-40s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "ops/s", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)"));
+        endpoints.forEach((endpoint, result) -> table.append(String.format(
+                "%-40s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", endpoint, result.count(), result.errors(),
+                result.throughput(), result.p50Millis(), result.p99Millis(), result.p999Millis(),
+                result.maxMillis())));
+        return table.toString();
+    }
+}
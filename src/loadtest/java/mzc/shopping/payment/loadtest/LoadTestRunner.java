@@ -0,0 +1,118 @@
+package mzc.shopping.payment.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import mzc.shopping.payment.PaymentServiceApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Profiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 종단 간 성능 회귀 검사. ./gradlew loadTest 로 실행한다.
+ * order-service·토스 스텁과 인메모리 H2 위에 결제 서비스를 띄우고 {@link LoadGenerator} 로 부하를 건 뒤,
+ * 결과를 build/results/loadtest/ 아래에 쓰고 기준선(src/loadtest/baseline*.json)과 비교해 회귀가 있으면 실패한다.
+ * 스키마는 운영과 같은 Flyway 마이그레이션으로 만든다. 기준선이 없으면 비교 없이 통과하지 않도록 실패하며,
+ * 기준선은 같은 장비·설정에서 잰 값끼리만 의미가 있으므로 처음이거나 측정 환경이 바뀌면 -PupdateBaseline 으로 기록한다.
+ * 부하 설정이 기준선과 다르면 비교하지 않고 실패하고, 측정 환경만 다르면 경고한 뒤 비교한다.
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        LoadTestReport report;
+        try (StubServers stubs = StubServers.start(options.orderLatency(), options.tossLatency());
+             ConfigurableApplicationContext context = startApplication(options, stubs)) {
+            ConfigurableEnvironment environment = context.getEnvironment();
+            requireVirtualThreadsWhenRequested(environment);
+            int port = environment.getRequiredProperty("local.server.port", Integer.class);
+            System.out.println("부하 시작: " + options.settings() + ", "
+                    + (Threading.VIRTUAL.isActive(environment) ? "가상 스레드" : "플랫폼 스레드"));
+            report = new LoadGenerator(options, "http://localhost:" + port).run();
+        }
+
+        System.out.print(report.toTable());
+        write(objectMapper, options.output(), report);
+
+        if (options.updateBaseline()) {
+            write(objectMapper, options.baseline(), report);
+            System.out.println("기준선을 저장했습니다: " + options.baseline());
+            return;
+        }
+        if (Files.notExists(options.baseline())) {
+            System.err.println("기준선이 없습니다: " + options.baseline() + " (-PupdateBaseline 으로 기록)");
+            System.exit(1);
+        }
+        LoadTestReport baseline = objectMapper.readValue(options.baseline().toFile(), LoadTestReport.class);
+        if (!report.settings().equals(baseline.settings())) {
+            System.err.println("기준선과 부하 설정이 달라 비교할 수 없습니다 (같은 설정으로 실행하거나 별도 기준선 사용)");
+            System.err.println("  기준선:    " + baseline.settings());
+            System.err.println("  이번 실행: " + report.settings());
+            System.exit(1);
+        }
+        if (!report.environment().equals(baseline.environment())) {
+            System.err.println("경고: 기준선은 다른 환경에서 측정했습니다. 기준선 [" + baseline.environment()
+                    + "], 이번 실행 [" + report.environment() + "]");
+        }
+        List<String> regressions = report.regressionsAgainst(baseline, options);
+        if (!regressions.isEmpty()) {
+            System.err.println("성능 회귀가 감지되었습니다:");
+            regressions.forEach(regression -> System.err.println("  " + regression));
+            System.exit(1);
+        }
+        System.out.println("기준선 대비 회귀 없음: " + options.baseline());
+    }
+
+    // 기준선을 잰 곳을 알아볼 수 있을 만큼의 실행 환경 요약
+    static String environment() {
+        Runtime runtime = Runtime.getRuntime();
+        return String.format("%s %s, %d CPU, Java %s, max heap %dMB", System.getProperty("os.name"),
+                System.getProperty("os.arch"), runtime.availableProcessors(), System.getProperty("java.version"),
+                runtime.maxMemory() / (1024 * 1024));
+    }
+
+    // 가상 스레드는 Java 21 이상에서만 켜진다. 낮은 JDK 에서 플랫폼 스레드로 잰 결과가 가상 스레드 결과로 남지 않게 멈춘다
+    private static void requireVirtualThreadsWhenRequested(ConfigurableEnvironment environment) {
+        if (environment.acceptsProfiles(Profiles.of("virtual-threads")) && !Threading.VIRTUAL.isActive(environment)) {
+            throw new IllegalStateException("virtual-threads 프로파일은 Java 21 이상에서 실행해야 합니다 (-PjavaVersion=21), "
+                    + "현재 Java " + System.getProperty("java.version"));
+        }
+    }
+
+    // application.yml 보다 우선하도록 기본 속성이 아닌 명령행 인자로 덮어쓴다.
+    // 커넥션 풀은 최소 = 최대로 고정해 처리량을 같은 커넥션 수에서 비교한다
+    private static ConfigurableApplicationContext startApplication(LoadTestOptions options, StubServers stubs) {
+        return new SpringApplicationBuilder(PaymentServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.hikari.maximum-pool-size=" + options.poolSize(),
+                        "--spring.datasource.hikari.minimum-idle=" + options.poolSize(),
+                        "--spring.profiles.active=" + options.profiles(),
+                        "--payment.id.node-id=0",
+                        "--service.order.url=" + stubs.orderUrl(),
+                        "--toss.url=" + stubs.tossUrl(),
+                        "--logging.level.root=WARN");
+    }
+
+    private static void write(ObjectMapper objectMapper, Path path, LoadTestReport report) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        objectMapper.writeValue(path.toFile(), report);
+    }
+}
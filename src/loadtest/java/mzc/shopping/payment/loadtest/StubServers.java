@@ -0,0 +1,113 @@
+package mzc.shopping.payment.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * order-service 와 토스페이먼츠 API 의 로컬 스텁. 응답마다 설정한 지연을 주어 원격 호출 비용을 흉내 낸다.
+ * 주문은 {@link SyntheticOrders} 로 만들고, 토스 승인은 요청 금액 그대로 DONE 을 돌려준다.
+ */
+final class StubServers implements AutoCloseable {
+
+    private static final int STUB_THREADS = 256;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer orderServer;
+    private final HttpServer tossServer;
+    private final ExecutorService executor = Executors.newFixedThreadPool(STUB_THREADS);
+    private final Duration orderLatency;
+    private final Duration tossLatency;
+
+    private StubServers(Duration orderLatency, Duration tossLatency) throws IOException {
+        this.orderLatency = orderLatency;
+        this.tossLatency = tossLatency;
+        this.orderServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.tossServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        orderServer.createContext("/api/orders/", this::handleOrder);
+        tossServer.createContext("/v1/payments/", this::handleToss);
+        orderServer.setExecutor(executor);
+        tossServer.setExecutor(executor);
+    }
+
+    static StubServers start(Duration orderLatency, Duration tossLatency) throws IOException {
+        StubServers stubs = new StubServers(orderLatency, tossLatency);
+        stubs.orderServer.start();
+        stubs.tossServer.start();
+        return stubs;
+    }
+
+    String orderUrl() {
+        return "http://localhost:" + orderServer.getAddress().getPort();
+    }
+
+    String tossUrl() {
+        return "http://localhost:" + tossServer.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        orderServer.stop(0);
+        tossServer.stop(0);
+        executor.shutdownNow();
+    }
+
+    // GET /api/orders/{id}, PATCH /api/orders/{id}/status?status=...
+    private void handleOrder(HttpExchange exchange) throws IOException {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        long orderId = Long.parseLong(path[3]);
+        String query = exchange.getRequestURI().getQuery();
+        String status = query != null && query.startsWith("status=") ? query.substring("status=".length()) : "PENDING";
+
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("id", orderId);
+        order.put("userId", SyntheticOrders.userIdOf(orderId));
+        order.put("totalPrice", SyntheticOrders.totalPriceOf(orderId));
+        order.put("status", status);
+        respond(exchange, orderLatency, order);
+    }
+
+    // POST /v1/payments/confirm, GET /v1/payments/{paymentKey}
+    private void handleToss(HttpExchange exchange) throws IOException {
+        Map<String, Object> payment = new LinkedHashMap<>();
+        if ("POST".equals(exchange.getRequestMethod())) {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            payment.put("paymentKey", request.path("paymentKey").asText());
+            payment.put("orderId", request.path("orderId").asText());
+            payment.put("totalAmount", request.path("amount").asLong());
+        } else {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            payment.put("paymentKey", path[3]);
+        }
+        payment.put("status", "DONE");
+        payment.put("method", "카드");
+        payment.put("lastTransactionKey", "TXN_" + UUID.randomUUID());
+        respond(exchange, tossLatency, payment);
+    }
+
+    private void respond(HttpExchange exchange, Duration latency, Object body) throws IOException {
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = objectMapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
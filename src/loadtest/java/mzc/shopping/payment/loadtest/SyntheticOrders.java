@@ -0,0 +1,27 @@
+package mzc.shopping.payment.loadtest;
+
+import java.math.BigDecimal;
+
+/**
+ * 주문 스텁과 부하 생성기가 같은 주문을 보도록 주문 ID 에서 주문자와 금액을 정한다.
+ * 사용자 수를 적게 잡아 한 사용자에 결제가 많이 쌓이는 내역 조회 패턴을 만든다.
+ */
+final class SyntheticOrders {
+
+    private static final int USERS = 2000;
+
+    private SyntheticOrders() {
+    }
+
+    static long userIdOf(long orderId) {
+        return 1 + orderId % USERS;
+    }
+
+    static long amountOf(long orderId) {
+        return 10_000 + (orderId % 20) * 500;
+    }
+
+    static BigDecimal totalPriceOf(long orderId) {
+        return BigDecimal.valueOf(amountOf(orderId));
+    }
+}
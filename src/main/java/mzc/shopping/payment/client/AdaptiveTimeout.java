@@ -0,0 +1,57 @@
+package mzc.shopping.payment.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 최근 응답시간의 분위수(기본 p99)에 배수를 곱해 read timeout 을 정한다.
+ * 타임아웃 난 호출은 당시 타임아웃 값으로 기록되므로 응답이 느려지면 타임아웃도 최대값까지 다시 늘어난다.
+ * 표본은 고정 크기 링 버퍼에 쌓고, 타임아웃은 일정 표본마다 다시 계산해 호출 경로의 비용을 낮춘다.
+ */
+public class AdaptiveTimeout {
+
+    private static final int SAMPLE_SIZE = 256;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final double percentile;
+    private final double multiplier;
+    private final long minMillis;
+    private final long maxMillis;
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLE_SIZE);
+    private final AtomicInteger recorded = new AtomicInteger();
+    private volatile long timeoutMillis;
+
+    public AdaptiveTimeout(double percentile, double multiplier, Duration min, Duration max) {
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.minMillis = min.toMillis();
+        this.maxMillis = max.toMillis();
+        // 표본이 쌓이기 전에는 최대값으로 시작
+        this.timeoutMillis = maxMillis;
+    }
+
+    public long currentMillis() {
+        return timeoutMillis;
+    }
+
+    public void record(long elapsedMillis) {
+        int count = recorded.getAndIncrement();
+        samples.set(Math.floorMod(count, SAMPLE_SIZE), elapsedMillis);
+        if ((count + 1) % RECOMPUTE_EVERY == 0) {
+            recompute(Math.min(count + 1, SAMPLE_SIZE));
+        }
+    }
+
+    private void recompute(int size) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.min(size - 1, Math.ceil(percentile * size) - 1);
+        long candidate = (long) (sorted[Math.max(index, 0)] * multiplier);
+        timeoutMillis = Math.max(minMillis, Math.min(maxMillis, candidate));
+    }
+}
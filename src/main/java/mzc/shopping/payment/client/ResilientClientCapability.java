@@ -0,0 +1,168 @@
+package mzc.shopping.payment.client;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import mzc.shopping.payment.config.OutboundPolicyProperties;
+import mzc.shopping.payment.config.OutboundPolicyProperties.ClientPolicy;
+import mzc.shopping.payment.exception.RemoteServiceUnavailableException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 모든 Feign 호출을 클라이언트(name)별 bulkhead → circuit breaker → 적응형 타임아웃 순으로 감싼다.
+ * 허가를 얻지 못하면 원격 호출 없이 {@link RemoteServiceUnavailableException} 으로 즉시 실패한다.
+ * non-idempotent-read-timeout 을 설정한 클라이언트의 POST/PATCH 는 적응형 타임아웃 대신 그 고정값을 쓴다.
+ */
+public class ResilientClientCapability implements Capability {
+
+    private final OutboundPolicyProperties properties;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+
+    public ResilientClientCapability(OutboundPolicyProperties properties,
+                                     CircuitBreakerRegistry circuitBreakerRegistry,
+                                     MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> guardFor(request).execute(client, request, options);
+    }
+
+    public CircuitBreaker.State state(String clientName) {
+        return circuitBreakerRegistry.circuitBreaker(clientName).getState();
+    }
+
+    private Guard guardFor(Request request) {
+        String clientName = request.requestTemplate().feignTarget().name();
+        return guards.computeIfAbsent(clientName, this::createGuard);
+    }
+
+    private Guard createGuard(String clientName) {
+        ClientPolicy policy = properties.policy(clientName);
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(clientName, CircuitBreakerConfig.custom()
+                .failureRateThreshold(policy.getFailureRateThreshold())
+                .slowCallRateThreshold(policy.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(policy.getSlowCallDuration())
+                .slidingWindowSize(policy.getSlidingWindowSize())
+                .minimumNumberOfCalls(policy.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(policy.getWaitInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(policy.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build());
+        AdaptiveTimeout timeout = new AdaptiveTimeout(policy.getTimeoutPercentile(), policy.getTimeoutMultiplier(),
+                policy.getMinTimeout(), policy.getMaxTimeout());
+        Semaphore bulkhead = new Semaphore(policy.getMaxConcurrentCalls(), true);
+
+        Gauge.builder("payment.outbound.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .tag("client", clientName)
+                .register(meterRegistry);
+        Gauge.builder("payment.outbound.timeout", timeout, AdaptiveTimeout::currentMillis)
+                .tag("client", clientName)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        return new Guard(clientName, policy, circuitBreaker, timeout, bulkhead);
+    }
+
+    private static final class Guard {
+
+        private static final Set<Request.HttpMethod> NON_IDEMPOTENT_METHODS =
+                EnumSet.of(Request.HttpMethod.POST, Request.HttpMethod.PATCH);
+
+        private final String clientName;
+        private final ClientPolicy policy;
+        private final CircuitBreaker circuitBreaker;
+        private final AdaptiveTimeout timeout;
+        private final Semaphore bulkhead;
+
+        private Guard(String clientName, ClientPolicy policy, CircuitBreaker circuitBreaker,
+                      AdaptiveTimeout timeout, Semaphore bulkhead) {
+            this.clientName = clientName;
+            this.policy = policy;
+            this.circuitBreaker = circuitBreaker;
+            this.timeout = timeout;
+            this.bulkhead = bulkhead;
+        }
+
+        Response execute(Client client, Request request, Request.Options options) throws IOException {
+            acquireBulkhead();
+            try {
+                if (!circuitBreaker.tryAcquirePermission()) {
+                    throw new RemoteServiceUnavailableException(clientName,
+                            clientName + " 호출이 차단되었습니다. (circuit " + circuitBreaker.getState() + ")");
+                }
+                boolean adaptive = !isFixedTimeout(request);
+                long readTimeoutMillis = adaptive
+                        ? timeout.currentMillis()
+                        : policy.getNonIdempotentReadTimeout().toMillis();
+                Request.Options guarded = new Request.Options(
+                        policy.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS,
+                        readTimeoutMillis, TimeUnit.MILLISECONDS,
+                        options.isFollowRedirects());
+
+                long start = System.nanoTime();
+                Response response;
+                try {
+                    response = client.execute(request, guarded);
+                } catch (IOException | RuntimeException e) {
+                    circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+                    // 타임아웃 난 호출도 표본에 넣어야 응답이 느려졌을 때 타임아웃이 다시 늘어난다
+                    if (adaptive && e instanceof SocketTimeoutException) {
+                        timeout.record(readTimeoutMillis);
+                    }
+                    throw e;
+                }
+                long elapsed = System.nanoTime() - start;
+                if (response.status() >= 500) {
+                    circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS,
+                            new IOException(clientName + " 응답 오류: HTTP " + response.status()));
+                } else {
+                    circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                    if (adaptive) {
+                        timeout.record(TimeUnit.NANOSECONDS.toMillis(elapsed));
+                    }
+                }
+                return response;
+            } finally {
+                bulkhead.release();
+            }
+        }
+
+        // 결제 승인처럼 재시도할 수 없는 요청은 짧아진 타임아웃으로 결과를 놓치지 않도록 고정 타임아웃을 쓴다
+        private boolean isFixedTimeout(Request request) {
+            return policy.getNonIdempotentReadTimeout() != null
+                    && NON_IDEMPOTENT_METHODS.contains(request.httpMethod());
+        }
+
+        private void acquireBulkhead() {
+            try {
+                if (!bulkhead.tryAcquire(policy.getMaxWait().toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new RemoteServiceUnavailableException(clientName,
+                            clientName + " 동시 호출 한도를 초과했습니다.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RemoteServiceUnavailableException(clientName, clientName + " 호출 대기 중 인터럽트되었습니다.");
+            }
+        }
+    }
+}
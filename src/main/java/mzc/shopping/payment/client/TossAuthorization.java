@@ -0,0 +1,28 @@
+package mzc.shopping.payment.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 토스 API Basic 인증 헤더. 시크릿 키는 바뀌지 않으므로 기동 시 한 번만 인코딩한다.
+ */
+@Component
+public class TossAuthorization {
+
+    private final String header;
+
+    public TossAuthorization(@Value("${toss.secret-key}") String secretKey) {
+        this.header = encode(secretKey);
+    }
+
+    public static String encode(String secretKey) {
+        return "Basic " + Base64.getEncoder().encodeToString((secretKey + ":").getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String header() {
+        return header;
+    }
+}
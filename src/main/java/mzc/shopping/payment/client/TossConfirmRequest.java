@@ -0,0 +1,15 @@
+package mzc.shopping.payment.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * POST /v1/payments/confirm 요청 바디.
+ */
+@Getter
+@AllArgsConstructor
+public class TossConfirmRequest {
+    private final String paymentKey;
+    private final String orderId;
+    private final Long amount;
+}
@@ -0,0 +1,25 @@
+package mzc.shopping.payment.client;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * POST /v1/payments/confirm 응답 중 결제 기록에 쓰는 필드만 매핑한다.
+ * 나머지 필드(카드, 영수증 등)는 역직렬화하지 않고 건너뛴다. 웹훅 data 도 같은 Payment 객체라 함께 쓴다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TossConfirmResponse {
+    private String paymentKey;
+    private String orderId;
+    private String status;
+    private String method;
+    private Long totalAmount;
+    @JsonAlias("lastTransactionKey")
+    private String transactionKey;
+}
@@ -1,18 +1,25 @@
 package mzc.shopping.payment.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 
-import java.util.Map;
-
-@FeignClient(name = "toss-payments", url = "https://api.tosspayments.com")
+@FeignClient(name = "toss-payments", url = "${toss.url}")
 public interface TossPaymentsClient {
 
     @PostMapping("/v1/payments/confirm")
-    Map<String, Object> confirmPayment(
+    TossConfirmResponse confirmPayment(
+            @RequestHeader("Authorization") String authorization,
+            @RequestBody TossConfirmRequest request
+    );
+
+    // 결제 조회 (정산 시 승인 여부 확인용)
+    @GetMapping("/v1/payments/{paymentKey}")
+    TossConfirmResponse getPayment(
             @RequestHeader("Authorization") String authorization,
-            @RequestBody Map<String, Object> request
+            @PathVariable("paymentKey") String paymentKey
     );
 }
@@ -0,0 +1,25 @@
+package mzc.shopping.payment.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 컨트롤러 메서드의 입장 우선순위. 지정하지 않은 메서드는 STANDARD 로 처리한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admission {
+
+    Priority value();
+
+    enum Priority {
+        // 돈이 움직이는 요청: 예약된 동시 실행 자리를 쓰고 지연으로 버리지 않는다
+        CRITICAL,
+        // 단건 조회
+        STANDARD,
+        // 목록·스트림·집계 조회: 별도 한도 안에서 실행하고 가장 먼저 버린다
+        BULK
+    }
+}
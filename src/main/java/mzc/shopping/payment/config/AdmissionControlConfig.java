@@ -0,0 +1,34 @@
+package mzc.shopping.payment.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 급증 시 결제 승인/환불이 목록 조회와 같은 요청 스레드·DB 커넥션을 두고 경쟁하지 않도록
+ * /api/payments 요청에 우선순위별 입장 제어를 건다. 헬스 체크는 제외한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "payment.admission.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AdmissionControlProperties.class)
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final AdmissionController admissionController;
+
+    public AdmissionControlConfig(AdmissionControlProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getReservedCritical() >= properties.getMaxConcurrent()) {
+            throw new IllegalStateException("payment.admission.reserved-critical 은 max-concurrent 보다 작아야 합니다.");
+        }
+        this.admissionController = new AdmissionController(properties, meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdmissionControlInterceptor(admissionController))
+                .addPathPatterns("/api/payments/**", "/api/payments")
+                .excludePathPatterns("/api/payments/health");
+    }
+}
@@ -0,0 +1,45 @@
+package mzc.shopping.payment.config;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import mzc.shopping.payment.config.Admission.Priority;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * 컨트롤러 실행 전에 {@link Admission} 우선순위로 입장을 허가하고, 요청이 끝나면 반납한다.
+ * 스트리밍처럼 비동기로 이어지는 요청은 비동기 디스패치가 끝날 때까지 자리를 유지한다.
+ * 거절은 예외로 던져 GlobalExceptionHandler 가 429/503 으로 응답한다.
+ */
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ADMITTED = AdmissionControlInterceptor.class.getName() + ".ADMITTED";
+
+    private final AdmissionController admissionController;
+
+    public AdmissionControlInterceptor(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        Admission admission = method.getMethodAnnotation(Admission.class);
+        Priority priority = admission == null ? Priority.STANDARD : admission.value();
+        admissionController.admit(priority);
+        request.setAttribute(ADMITTED, priority);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(ADMITTED) instanceof Priority priority) {
+            request.removeAttribute(ADMITTED);
+            admissionController.release(priority);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package mzc.shopping.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * /api/payments 요청의 입장 제어 한도.
+ * CRITICAL 은 max-concurrent 전체를, 나머지는 reserved-critical 을 뺀 만큼만 쓰고, BULK 는 max-bulk 를 넘지 않는다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.admission")
+public class AdmissionControlProperties {
+
+    private boolean enabled = true;
+    private int maxConcurrent = 150;
+    private int reservedCritical = 50;
+    private int maxBulk = 40;
+    private Duration maxWait = Duration.ofMillis(200);
+    private Duration criticalMaxWait = Duration.ofSeconds(2);
+    // 대기 시간이 interval 동안 계속 target-queue-delay 를 넘으면 대기 없이 거절하기 시작한다
+    private Duration targetQueueDelay = Duration.ofMillis(20);
+    private Duration interval = Duration.ofMillis(500);
+}
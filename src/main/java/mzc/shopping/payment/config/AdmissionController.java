@@ -0,0 +1,172 @@
+package mzc.shopping.payment.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mzc.shopping.payment.config.Admission.Priority;
+import mzc.shopping.payment.exception.CapacityExhaustedException;
+import mzc.shopping.payment.exception.RequestShedException;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 우선순위별 동시 실행 한도와 대기 시간 기반 부하 차단.
+ * 모든 요청은 전체 한도를, CRITICAL 이 아닌 요청은 예약분을 뺀 한도를, BULK 는 추가로 BULK 한도를 얻어야 실행된다.
+ * CRITICAL 이 아닌 요청은 우선순위별로 대기 시간을 관찰해, 대기 시간이 목표치를 한 주기 내내 넘으면
+ * 자리가 바로 나지 않는 요청을 기다리게 하지 않고 거절한다 (CoDel 방식). 대기 없이 들어온 요청이 생기면 해제된다.
+ */
+public class AdmissionController {
+
+    private final Map<Priority, PriorityClass> classes = new EnumMap<>(Priority.class);
+    private final long maxWaitNanos;
+    private final long criticalMaxWaitNanos;
+
+    public AdmissionController(AdmissionControlProperties properties, MeterRegistry meterRegistry) {
+        Semaphore total = new Semaphore(properties.getMaxConcurrent(), true);
+        Semaphore nonCritical = new Semaphore(properties.getMaxConcurrent() - properties.getReservedCritical(), true);
+        Semaphore bulk = new Semaphore(properties.getMaxBulk(), true);
+        long targetNanos = properties.getTargetQueueDelay().toNanos();
+        long intervalNanos = properties.getInterval().toNanos();
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.criticalMaxWaitNanos = properties.getCriticalMaxWait().toNanos();
+
+        // 큰 범위의 한도부터 얻으면 작은 한도를 기다리는 동안 공용 자리를 붙잡고 있게 되므로 좁은 한도부터 얻는다
+        classes.put(Priority.CRITICAL, new PriorityClass(Priority.CRITICAL, List.of(total),
+                null, meterRegistry));
+        classes.put(Priority.STANDARD, new PriorityClass(Priority.STANDARD, List.of(nonCritical, total),
+                new QueueDelay(targetNanos, intervalNanos), meterRegistry));
+        classes.put(Priority.BULK, new PriorityClass(Priority.BULK, List.of(bulk, nonCritical, total),
+                new QueueDelay(targetNanos, intervalNanos), meterRegistry));
+    }
+
+    public void admit(Priority priority) {
+        PriorityClass admission = classes.get(priority);
+        boolean shedding = admission.queueDelay != null && admission.queueDelay.shedding();
+        long timeoutNanos = shedding ? 0 : priority == Priority.CRITICAL ? criticalMaxWaitNanos : maxWaitNanos;
+
+        long start = System.nanoTime();
+        int acquired = admission.acquire(start + timeoutNanos);
+        long waited = System.nanoTime() - start;
+        boolean admitted = acquired == admission.permits.size();
+        admission.queueTimer.record(waited, TimeUnit.NANOSECONDS);
+        // 차단 중 거절된 요청은 줄을 서지 않았으므로 대기 시간이 0에 가깝다. 이를 기록하면 곧바로 차단이 풀리므로
+        // 입장한 요청과, 차단 전 max-wait 까지 기다리다 시간 초과된 요청의 대기 시간만 반영한다
+        if (admission.queueDelay != null && (admitted || !shedding)) {
+            admission.queueDelay.record(waited, System.nanoTime());
+        }
+
+        if (!admitted) {
+            admission.release(acquired);
+            if (priority == Priority.CRITICAL) {
+                admission.requests("timeout").increment();
+                throw new CapacityExhaustedException("처리 중인 결제 요청이 많습니다. 잠시 후 다시 시도해 주세요.");
+            }
+            admission.requests(shedding ? "shed" : "timeout").increment();
+            throw new RequestShedException("요청이 많아 조회를 처리할 수 없습니다. 잠시 후 다시 시도해 주세요.");
+        }
+        admission.admitted.increment();
+        admission.inFlight.incrementAndGet();
+    }
+
+    public void release(Priority priority) {
+        PriorityClass admission = classes.get(priority);
+        admission.inFlight.decrementAndGet();
+        admission.release(admission.permits.size());
+    }
+
+    private static final class PriorityClass {
+
+        private final List<Semaphore> permits;
+        private final QueueDelay queueDelay;
+        private final MeterRegistry meterRegistry;
+        private final String tag;
+        private final Counter admitted;
+        private final Timer queueTimer;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private PriorityClass(Priority priority, List<Semaphore> permits, QueueDelay queueDelay,
+                              MeterRegistry meterRegistry) {
+            this.permits = permits;
+            this.queueDelay = queueDelay;
+            this.meterRegistry = meterRegistry;
+            this.tag = priority.name().toLowerCase();
+            this.admitted = requests("admitted");
+            this.queueTimer = Timer.builder("payment.admission.queue")
+                    .description("입장 대기 시간")
+                    .tag("class", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            Gauge.builder("payment.admission.in-flight", inFlight, AtomicInteger::get)
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            if (queueDelay != null) {
+                Gauge.builder("payment.admission.shedding", queueDelay, delay -> delay.shedding() ? 1 : 0)
+                        .description("대기 없이 거절하는 중이면 1")
+                        .tag("class", tag)
+                        .register(meterRegistry);
+            }
+        }
+
+        // 얻은 한도 수를 돌려준다. 모두 얻지 못했으면 호출자가 얻은 만큼 반납한다
+        private int acquire(long deadlineNanos) {
+            int acquired = 0;
+            try {
+                for (Semaphore semaphore : permits) {
+                    long remaining = Math.max(deadlineNanos - System.nanoTime(), 0);
+                    if (!semaphore.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                    acquired++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return acquired;
+        }
+
+        private void release(int acquired) {
+            for (int i = acquired - 1; i >= 0; i--) {
+                permits.get(i).release();
+            }
+        }
+
+        private Counter requests(String result) {
+            return meterRegistry.counter("payment.admission.requests", "class", tag, "result", result);
+        }
+    }
+
+    // 대기 시간이 목표치 아래로 한 번이라도 내려가면 관찰을 다시 시작하고, interval 내내 넘으면 차단한다
+    private static final class QueueDelay {
+
+        private final long targetNanos;
+        private final long intervalNanos;
+        private long firstAboveAt;
+        private volatile boolean shedding;
+
+        private QueueDelay(long targetNanos, long intervalNanos) {
+            this.targetNanos = targetNanos;
+            this.intervalNanos = intervalNanos;
+        }
+
+        private boolean shedding() {
+            return shedding;
+        }
+
+        private synchronized void record(long delayNanos, long now) {
+            if (delayNanos < targetNanos) {
+                firstAboveAt = 0;
+                shedding = false;
+            } else if (firstAboveAt == 0) {
+                firstAboveAt = now + intervalNanos;
+            } else if (now >= firstAboveAt) {
+                shedding = true;
+            }
+        }
+    }
+}
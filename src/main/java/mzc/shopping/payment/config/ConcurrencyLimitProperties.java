@@ -0,0 +1,20 @@
+package mzc.shopping.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 가상 스레드 모드에서 DB 앞에 두는 동시 실행 한도.
+ * 원격 클라이언트의 동시 실행 한도는 payment.outbound.clients.*.max-concurrent-calls (bulkhead) 로 제한한다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.concurrency")
+public class ConcurrencyLimitProperties {
+
+    private int datasourcePermits = 10;
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,37 @@
+package mzc.shopping.payment.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * 원격 서비스 상태를 circuit breaker 로 판단한다. 헬스 체크마다 원격 호출을 하지 않는다.
+ * 차단된 클라이언트가 있으면 DEGRADED 로 보고하지만, 모든 인스턴스가 같은 원격 서비스를 쓰므로
+ * 트래픽에서 빠지지 않도록 HTTP 200 으로 매핑한다 (application.yml 의 management.endpoint.health.status).
+ */
+@Component("downstream")
+public class DownstreamHealthIndicator extends AbstractHealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED");
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    public DownstreamHealthIndicator(CircuitBreakerRegistry circuitBreakerRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        builder.up();
+        for (CircuitBreaker circuitBreaker : circuitBreakerRegistry.getAllCircuitBreakers()) {
+            CircuitBreaker.State state = circuitBreaker.getState();
+            builder.withDetail(circuitBreaker.getName(), state.name());
+            if (state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN) {
+                builder.status(DEGRADED);
+            }
+        }
+    }
+}
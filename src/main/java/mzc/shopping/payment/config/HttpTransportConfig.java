@@ -0,0 +1,54 @@
+package mzc.shopping.payment.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URISyntaxException;
+
+/**
+ * Spring Cloud OpenFeign 이 만든 HC5 커넥션 풀(hc5ConnectionManager)에 호스트별 한도를 적용하고
+ * 풀 상태(httpcomponents_httpclient_pool_*)를 메트릭으로 노출한다.
+ * 빈은 HttpClientConnectionManager 타입으로 선언되어 있어, 구현 타입으로 주입받으면
+ * 빈이 아직 만들어지지 않은 시점(웹 서버 없이 띄울 때 등)에 후보를 찾지 못한다.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpTransportProperties.class)
+public class HttpTransportConfig {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    public HttpTransportConfig(HttpClientConnectionManager hc5ConnectionManager, HttpTransportProperties properties) {
+        if (!(hc5ConnectionManager instanceof PoolingHttpClientConnectionManager pooling)) {
+            throw new IllegalStateException("HC5 커넥션 풀이 아닙니다: " + hc5ConnectionManager.getClass().getName());
+        }
+        this.connectionManager = pooling;
+        for (HttpTransportProperties.Route route : properties.getRoutes()) {
+            connectionManager.setMaxPerRoute(toRoute(route.getUrl()), route.getMaxConnections());
+        }
+    }
+
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics() {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "feign");
+    }
+
+    // 실제 요청 경로와 같은 키가 되도록 기본 포트와 TLS 여부를 채운 route 를 만든다
+    private static HttpRoute toRoute(String url) {
+        try {
+            HttpHost host = HttpHost.create(url);
+            boolean secure = URIScheme.HTTPS.same(host.getSchemeName());
+            int port = host.getPort() > 0 ? host.getPort() : (secure ? 443 : 80);
+            return new HttpRoute(new HttpHost(host.getSchemeName(), host.getHostName(), port), null, secure);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("잘못된 route URL: " + url, e);
+        }
+    }
+}
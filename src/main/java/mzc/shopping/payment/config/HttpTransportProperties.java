@@ -0,0 +1,27 @@
+package mzc.shopping.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feign HC5 커넥션 풀의 호스트별 최대 커넥션 수.
+ * 전체 풀 크기, keep-alive(time-to-live) 등 공통 값은 spring.cloud.openfeign.httpclient.* 를 사용한다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.http")
+public class HttpTransportProperties {
+
+    private List<Route> routes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Route {
+        private String url;
+        private int maxConnections;
+    }
+}
@@ -0,0 +1,25 @@
+package mzc.shopping.payment.config;
+
+import mzc.shopping.payment.id.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 인스턴스마다 다른 payment.id.node-id (0 ~ 31) 를 지정해야 ID 가 충돌하지 않는다.
+ * 기본값을 두면 설정을 빠뜨린 레플리카들이 같은 노드로 PK 를 발급하므로, 값이 없으면 기동하지 않는다.
+ * 같은 값을 받은 레플리카는 {@code PaymentIdNodeLease} 가 DB 등록으로 걸러낸다.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(@Value("${payment.id.node-id:#{null}}") Integer nodeId) {
+        if (nodeId == null) {
+            throw new IllegalStateException("payment.id.node-id(PAYMENT_NODE_ID) 가 설정되지 않았습니다. "
+                    + "인스턴스마다 0 ~ " + SnowflakeIdGenerator.MAX_NODE_ID + " 사이의 서로 다른 값을 지정하세요. "
+                    + "(로컬 실행: PAYMENT_NODE_ID=0 ./gradlew bootRun)");
+        }
+        return new SnowflakeIdGenerator(nodeId);
+    }
+}
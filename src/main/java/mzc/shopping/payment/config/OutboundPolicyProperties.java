@@ -0,0 +1,61 @@
+package mzc.shopping.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Feign 클라이언트별 bulkhead, circuit breaker, 적응형 타임아웃 설정.
+ * clients 의 키는 @FeignClient name (order-service, toss-payments) 이고, 없으면 기본값을 쓴다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.outbound")
+public class OutboundPolicyProperties {
+
+    private Map<String, ClientPolicy> clients = new HashMap<>();
+
+    // order-service 에서 주문자를 확인할 수 없을 때의 처리 방식
+    private OrderUserFallback orderUserFallback = OrderUserFallback.REJECT;
+    private Long defaultUserId;
+
+    public ClientPolicy policy(String clientName) {
+        return clients.getOrDefault(clientName, new ClientPolicy());
+    }
+
+    public enum OrderUserFallback {
+        REJECT,        // 결제 승인을 진행하지 않고 503 응답
+        DEFAULT_USER   // defaultUserId 로 기록하고 계속 진행
+    }
+
+    @Getter
+    @Setter
+    public static class ClientPolicy {
+
+        // bulkhead
+        private int maxConcurrentCalls = 50;
+        private Duration maxWait = Duration.ZERO;
+
+        // circuit breaker
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 80;
+        private Duration slowCallDuration = Duration.ofSeconds(2);
+        private int slidingWindowSize = 50;
+        private int minimumNumberOfCalls = 20;
+        private Duration waitInOpenState = Duration.ofSeconds(10);
+        private int permittedCallsInHalfOpenState = 5;
+
+        // 최근 응답시간 분위수 기반 read timeout
+        private double timeoutPercentile = 0.99;
+        private double timeoutMultiplier = 2.0;
+        private Duration minTimeout = Duration.ofMillis(300);
+        private Duration maxTimeout = Duration.ofSeconds(5);
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        // 설정하면 POST/PATCH 는 적응형 타임아웃 대신 이 read timeout 을 쓴다 (재시도할 수 없는 결제 승인 등)
+        private Duration nonIdempotentReadTimeout;
+    }
+}
@@ -0,0 +1,32 @@
+package mzc.shopping.payment.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import mzc.shopping.payment.client.ResilientClientCapability;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Feign 클라이언트 공통 보호 정책. Capability 빈은 모든 @FeignClient 에 적용된다.
+ * circuit breaker 상태/호출 결과는 resilience4j_circuitbreaker_* 메트릭으로 노출된다.
+ */
+@Configuration
+@EnableConfigurationProperties(OutboundPolicyProperties.class)
+public class OutboundResilienceConfig {
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public ResilientClientCapability resilientClientCapability(OutboundPolicyProperties properties,
+                                                               CircuitBreakerRegistry circuitBreakerRegistry,
+                                                               MeterRegistry meterRegistry) {
+        return new ResilientClientCapability(properties, circuitBreakerRegistry, meterRegistry);
+    }
+}
@@ -0,0 +1,124 @@
+package mzc.shopping.payment.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * 주문 ID 로 샤드를 고르고, 작업을 지정한 샤드에서 실행한다.
+ * 샤드 지정은 스레드 로컬이므로 트랜잭션은 반드시 지정한 범위 안에서 시작하고 끝내야 한다.
+ * 샤딩을 쓰지 않으면 샤드는 0번 하나이고 모든 작업을 호출 스레드에서 그대로 실행한다.
+ */
+public class ShardRouter {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int shardCount;
+    private final ExecutorService scatterExecutor;
+
+    public ShardRouter(int shardCount, int scatterThreads) {
+        this.shardCount = shardCount;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scatterExecutor = shardCount > 1
+                ? Executors.newFixedThreadPool(scatterThreads,
+                        runnable -> new Thread(runnable, "payment-shard-scatter-" + threadNumber.incrementAndGet()))
+                : null;
+    }
+
+    static Integer currentShard() {
+        return CURRENT.get();
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    /**
+     * Jump consistent hash (Lamping, Veach 2014). 샤드를 끝에 추가하면 약 1/N 의 주문만 새 샤드로 옮겨간다.
+     */
+    public int shardOf(long orderId) {
+        long key = orderId;
+        long bucket = -1;
+        long next = 0;
+        while (next < shardCount) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    public <T> T onShardOf(long orderId, Supplier<T> action) {
+        return onShard(shardOf(orderId), action);
+    }
+
+    public <T> T onShard(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    // 스케줄 작업처럼 샤드마다 따로 돌려야 하는 작업을 샤드 순서대로 실행한다
+    public void forEachShard(IntConsumer action) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            onShard(target, () -> {
+                action.accept(target);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 모든 샤드에 같은 조회를 병렬로 보내고 샤드 번호 순서의 결과 목록을 돌려준다.
+     * 각 조회는 별도 스레드의 자체 트랜잭션에서 실행되므로 호출자의 트랜잭션에 참여하지 않는다.
+     */
+    public <T> List<T> scatter(IntFunction<T> query) {
+        if (!isSharded()) {
+            return Collections.singletonList(onShard(0, () -> query.apply(0)));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> onShard(target, () -> query.apply(target)), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>(shardCount);
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    public void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdownNow();
+        }
+    }
+}
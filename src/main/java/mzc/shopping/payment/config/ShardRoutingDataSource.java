@@ -0,0 +1,16 @@
+package mzc.shopping.payment.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * 현재 스레드에 지정된 샤드의 커넥션을 빌려준다. 지정된 샤드가 없으면 0번 샤드를 쓴다.
+ * 트랜잭션 시작 시점이 아니라 첫 SQL 실행 시점에 샤드가 정해지도록
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} 로 감싸서 쓴다.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardRouter.currentShard();
+    }
+}
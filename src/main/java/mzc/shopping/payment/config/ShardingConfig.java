@@ -0,0 +1,77 @@
+package mzc.shopping.payment.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * payment.sharding.enabled=true 이면 spring.datasource 대신 payment.sharding.shards 의 데이터소스들을
+ * 라우팅 데이터소스 하나로 묶어 JPA/Flyway 에 제공한다.
+ * 결제와 같은 트랜잭션에서 쓰는 테이블(환불 원장, outbox, 집계 증분, 보관, 웹훅 이벤트)은 결제와 같은 샤드에,
+ * 주문과 무관한 멱등성 키는 0번 샤드에 둔다. 스키마는 모든 샤드에 같은 마이그레이션으로 만든다.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean(destroyMethod = "shutdown")
+    public ShardRouter shardRouter(ShardingProperties properties) {
+        int shardCount = properties.isEnabled() ? properties.getShards().size() : 1;
+        if (shardCount == 0) {
+            throw new IllegalStateException("payment.sharding.shards 가 비어 있습니다.");
+        }
+        return new ShardRouter(shardCount, properties.getScatterThreads());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "payment.sharding.enabled", havingValue = "true")
+    public DataSource dataSource(ShardingProperties properties, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < properties.getShards().size(); shard++) {
+            ShardingProperties.Shard config = properties.getShards().get(shard);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("payment-shard-" + shard);
+            pool.setJdbcUrl(config.getUrl());
+            pool.setUsername(config.getUsername());
+            pool.setPassword(config.getPassword());
+            pool.setMaximumPoolSize(properties.getMaximumPoolSize());
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+            targets.put(shard, pool);
+        }
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(0));
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // 기본 전략은 라우팅 데이터소스의 0번 샤드만 마이그레이션하므로 샤드마다 한 번씩 실행한다
+    @Bean
+    @ConditionalOnProperty(name = "payment.sharding.enabled", havingValue = "true")
+    public FlywayMigrationStrategy shardedFlywayMigrationStrategy(ShardRouter shardRouter) {
+        return flyway -> shardRouter.forEachShard(shard -> flyway.migrate());
+    }
+
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
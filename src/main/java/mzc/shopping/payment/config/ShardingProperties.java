@@ -0,0 +1,31 @@
+package mzc.shopping.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 샤딩 모드 설정. enabled=false 이면 spring.datasource 하나만 사용한다.
+ * 샤드 순서가 곧 샤드 번호이므로 운영 중에는 목록 끝에만 추가한다 (추가 시 일부 주문이 새 샤드로 옮겨가야 한다).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+    private int maximumPoolSize = 10;
+    private int scatterThreads = 16;
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,23 @@
+package mzc.shopping.payment.config;
+
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+
+/**
+ * 트랜잭션 동기화를 실제 트랜잭션에서만 켠다.
+ * 기본값(SYNCHRONIZATION_ALWAYS)에서는 {@code @Transactional(propagation = NOT_SUPPORTED)} 메서드 안에서도 동기화가 켜져,
+ * 처음 실행한 조회의 EntityManager 가 메서드가 끝날 때까지 커넥션을 쥐고 있는다.
+ * 그 상태로 토스 호출을 기다리거나 TransactionTemplate 으로 두 번째 커넥션을 빌리면
+ * 요청 하나가 커넥션 두 개를 잡게 되어, 동시 요청이 풀 크기 이상이면 서로의 커넥션을 기다리다 connection-timeout 까지 멈춘다.
+ */
+@Configuration
+public class TransactionConfig {
+
+    @Bean
+    public TransactionManagerCustomizer<AbstractPlatformTransactionManager> synchronizeOnActualTransaction() {
+        return transactionManager -> transactionManager.setTransactionSynchronization(
+                AbstractPlatformTransactionManager.SYNCHRONIZATION_ON_ACTUAL_TRANSACTION);
+    }
+}
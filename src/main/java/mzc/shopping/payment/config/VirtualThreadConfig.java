@@ -0,0 +1,39 @@
+package mzc.shopping.payment.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * spring.threads.virtual.enabled=true (Java 21 이상) 일 때만 활성화된다.
+ * 요청 처리와 그 안에서 동기로 실행되는 Feign 호출이 모두 가상 스레드에서 돌기 때문에,
+ * 스레드 풀 크기 대신 세마포어로 DB 동시 사용량을 제한한다.
+ * 원격 클라이언트는 스레드 모델과 무관하게 {@link OutboundResilienceConfig} 의 bulkhead 로 제한된다.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(
+            ObjectProvider<ConcurrencyLimitProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    ConcurrencyLimitProperties limits = properties.getObject();
+                    return new ConcurrencyLimitedDataSource(
+                            dataSource, limits.getDatasourcePermits(), limits.getAcquireTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -3,35 +3,72 @@ import mzc.shopping.payment.dto.TossPaymentRequest;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import mzc.shopping.payment.config.Admission;
+import mzc.shopping.payment.config.Admission.Priority;
+import mzc.shopping.payment.dto.CursorPageResponse;
+import mzc.shopping.payment.dto.PaymentHistoryResponse;
+import mzc.shopping.payment.dto.PaymentRefundResponse;
 import mzc.shopping.payment.dto.PaymentRequest;
+import mzc.shopping.payment.dto.PaymentRollupResponse;
 import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.dto.PaymentStatusBatchRequest;
+import mzc.shopping.payment.dto.PaymentStatusView;
 import mzc.shopping.payment.dto.RefundRequest;
+import mzc.shopping.payment.dto.RollupRebuildResponse;
+import mzc.shopping.payment.dto.TossWebhookEvent;
 import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.service.IdempotencyService;
+import mzc.shopping.payment.service.PaymentHistoryService;
+import mzc.shopping.payment.service.PaymentRollupService;
 import mzc.shopping.payment.service.PaymentService;
+import mzc.shopping.payment.service.TossWebhookProcessor;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/payments")
 @RequiredArgsConstructor
 public class PaymentController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
+    private final HealthEndpoint healthEndpoint;
+    private final TossWebhookProcessor tossWebhookProcessor;
+    private final PaymentRollupService paymentRollupService;
+    private final PaymentHistoryService paymentHistoryService;
 
     @PostMapping
-    public ResponseEntity<PaymentResponse> createPayment(@Valid @RequestBody PaymentRequest request) {
+    @Admission(Priority.CRITICAL)
+    public ResponseEntity<PaymentResponse> createPayment(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody PaymentRequest request) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(paymentService.confirmTossPayment(request));
+                .body(idempotencyService.execute(idempotencyKey, "createPayment", request,
+                        () -> paymentService.confirmTossPayment(request)));
     }
 
     @PostMapping("/{id}/confirm")
+    @Admission(Priority.CRITICAL)
     public ResponseEntity<PaymentResponse> confirmPayment(@PathVariable Long id) {
         return ResponseEntity.ok(paymentService.confirmPayment(id));
     }
 
     @PostMapping("/{id}/cancel")
+    @Admission(Priority.CRITICAL)
     public ResponseEntity<PaymentResponse> cancelPayment(
             @PathVariable Long id,
             @RequestParam(required = false) String reason) {
@@ -39,12 +76,18 @@ public class PaymentController {
     }
 
     @PostMapping("/{id}/refund")
+    @Admission(Priority.CRITICAL)
     public ResponseEntity<PaymentResponse> refundPayment(
             @PathVariable Long id,
             @Valid @RequestBody RefundRequest request) {
         return ResponseEntity.ok(paymentService.refundPayment(id, request));
     }
 
+    @GetMapping("/{id}/refunds")
+    public ResponseEntity<List<PaymentRefundResponse>> getRefunds(@PathVariable Long id) {
+        return ResponseEntity.ok(paymentService.getRefunds(id));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PaymentResponse> getPayment(@PathVariable Long id) {
         return ResponseEntity.ok(paymentService.getPayment(id));
@@ -55,31 +98,117 @@ public class PaymentController {
         return ResponseEntity.ok(paymentService.getPaymentByOrderId(orderId));
     }
 
+    // 주문 목록 화면에서 여러 주문의 결제 상태를 한 번에 조회
+    @PostMapping("/order/batch")
+    @Admission(Priority.BULK)
+    public ResponseEntity<Map<Long, PaymentStatusView>> getPaymentStatusesByOrderIds(
+            @Valid @RequestBody PaymentStatusBatchRequest request) {
+        return ResponseEntity.ok(paymentService.getPaymentStatusesByOrderIds(request.getOrderIds()));
+    }
+
+    // 사용자 결제 내역: 조회 모델의 요약 행을 읽고, If-None-Match 가 현재 ETag 와 같으면 행을 읽지 않고 304
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<PaymentResponse>> getPaymentsByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(paymentService.getPaymentsByUserId(userId));
+    @Admission(Priority.BULK)
+    public ResponseEntity<CursorPageResponse<PaymentHistoryResponse>> getPaymentHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        String etag = paymentHistoryService.etag(userId, cursor, size);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(paymentHistoryService.getHistory(userId, cursor, size));
+    }
+
+    @GetMapping(value = "/user/{userId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Admission(Priority.BULK)
+    public ResponseEntity<StreamingResponseBody> streamPaymentsByUserId(@PathVariable Long userId) {
+        return ndjson(out -> paymentService.streamPaymentsByUserId(userId, out));
     }
 
     @GetMapping
-    public ResponseEntity<List<PaymentResponse>> getAllPayments() {
-        return ResponseEntity.ok(paymentService.getAllPayments());
+    @Admission(Priority.BULK)
+    public ResponseEntity<CursorPageResponse<PaymentResponse>> getAllPayments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(paymentService.getAllPayments(cursor, size));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Admission(Priority.BULK)
+    public ResponseEntity<StreamingResponseBody> streamAllPayments() {
+        return ndjson(paymentService::streamAllPayments);
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<PaymentResponse>> getPaymentsByStatus(@PathVariable PaymentStatus status) {
-        return ResponseEntity.ok(paymentService.getPaymentsByStatus(status));
+    @Admission(Priority.BULK)
+    public ResponseEntity<CursorPageResponse<PaymentResponse>> getPaymentsByStatus(
+            @PathVariable PaymentStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(paymentService.getPaymentsByStatus(status, cursor, size));
     }
 
+    @GetMapping(value = "/status/{status}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Admission(Priority.BULK)
+    public ResponseEntity<StreamingResponseBody> streamPaymentsByStatus(@PathVariable PaymentStatus status) {
+        return ndjson(out -> paymentService.streamPaymentsByStatus(status, out));
+    }
+
+    // 정산용 일별 집계 (생성일·상태·결제 수단별)
+    @GetMapping("/rollups")
+    @Admission(Priority.BULK)
+    public ResponseEntity<List<PaymentRollupResponse>> getRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) PaymentStatus status,
+            @RequestParam(required = false) String paymentMethod) {
+        return ResponseEntity.ok(paymentRollupService.getRollups(from, to, status, paymentMethod));
+    }
+
+    // 백필 이후 구간 집계를 payments 에서 다시 계산 (최대 payment.rollup.max-rebuild-days, 동시에 하나만 실행)
+    @PostMapping("/rollups/rebuild")
+    @Admission(Priority.BULK)
+    public ResponseEntity<RollupRebuildResponse> rebuildRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(paymentRollupService.rebuild(from, to));
+    }
+
+    // readiness 그룹(DB, 원격 서비스 상태) 결과를 그대로 반환. 쿠버네티스 프로브는 /actuator/health/{liveness,readiness} 사용
     @GetMapping("/health")
-    public ResponseEntity<String> health() {
-        return ResponseEntity.ok("Payment Service is running");
+    public ResponseEntity<HealthComponent> health() {
+        HealthComponent readiness = healthEndpoint.healthForPath("readiness");
+        Status status = readiness == null ? Status.UNKNOWN : readiness.getStatus();
+        boolean ready = !Status.DOWN.equals(status) && !Status.OUT_OF_SERVICE.equals(status);
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(readiness);
     }
 
     // 토스페이먼츠 결제 승인
     @PostMapping("/confirm/toss")
+    @Admission(Priority.CRITICAL)
     public ResponseEntity<PaymentResponse> confirmTossPayment(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @RequestBody TossPaymentRequest request) {
-        return ResponseEntity.ok(paymentService.confirmTossPayemnt(request));
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "confirmTossPayment", request,
+                () -> paymentService.confirmTossPayemnt(request)));
+    }
+
+    // 토스페이먼츠 웹훅: 이벤트를 저장한 뒤 응답, 결제 반영은 TossWebhookProcessor 가 토스 조회로 확인해 비동기로 처리
+    @PostMapping("/webhook/toss")
+    @Admission(Priority.CRITICAL)
+    public ResponseEntity<Void> receiveTossWebhook(@RequestBody TossWebhookEvent event) {
+        tossWebhookProcessor.receive(event);
+        return ResponseEntity.ok().build();
     }
 
+    private ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
 }
@@ -0,0 +1,58 @@
+package mzc.shopping.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * (createdAt, id) 기준 keyset 페이지네이션의 연속 토큰.
+ * 클라이언트에는 Base64URL 로 인코딩된 불투명한 문자열로만 노출된다.
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentCursor {
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public static PaymentCursor of(Payment payment) {
+        return new PaymentCursor(payment.getCreatedAt(), payment.getId());
+    }
+
+    public static PaymentCursor of(PaymentResponse payment) {
+        return new PaymentCursor(payment.getCreatedAt(), payment.getId());
+    }
+
+    public static PaymentCursor of(PaymentHistoryResponse payment) {
+        return new PaymentCursor(payment.getCreatedAt(), payment.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PaymentCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new InvalidCursorException("잘못된 페이지 커서입니다.");
+            }
+            return new PaymentCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("잘못된 페이지 커서입니다.");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package mzc.shopping.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import mzc.shopping.payment.entity.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 사용자 결제 내역 화면용 요약 행. 조회 모델에서 엔티티를 만들지 않고 바로 읽는다.
+ * 상세 정보(결제 키, 거래 ID, 취소 사유 등)는 GET /api/payments/{id} 로 조회한다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentHistoryResponse {
+
+    private Long id;
+    private Long orderId;
+    private BigDecimal amount;
+    private BigDecimal refundAmount;
+    private PaymentStatus status;
+    private String paymentMethod;
+    private LocalDateTime createdAt;
+}
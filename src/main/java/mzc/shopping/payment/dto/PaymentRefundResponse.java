@@ -0,0 +1,30 @@
+package mzc.shopping.payment.dto;
+
+import lombok.*;
+import mzc.shopping.payment.entity.PaymentRefund;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentRefundResponse {
+
+    private Long id;
+    private Long paymentId;
+    private BigDecimal amount;
+    private String reason;
+    private LocalDateTime createdAt;
+
+    public static PaymentRefundResponse from(PaymentRefund refund) {
+        return PaymentRefundResponse.builder()
+                .id(refund.getId())
+                .paymentId(refund.getPaymentId())
+                .amount(refund.getAmount())
+                .reason(refund.getReason())
+                .createdAt(refund.getCreatedAt())
+                .build();
+    }
+}
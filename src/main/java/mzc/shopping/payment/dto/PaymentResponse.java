@@ -1,6 +1,7 @@
 package mzc.shopping.payment.dto;
 
 import lombok.*;
+import mzc.shopping.payment.entity.ArchivedPayment;
 import mzc.shopping.payment.entity.Payment;
 import mzc.shopping.payment.entity.PaymentStatus;
 import java.math.BigDecimal;
@@ -44,4 +45,22 @@ public class PaymentResponse {
                 .createdAt(payment.getCreatedAt())
                 .build();
     }
+
+    public static PaymentResponse from(ArchivedPayment payment) {
+        return PaymentResponse.builder()
+                .id(payment.getId())
+                .orderId(payment.getOrderId())
+                .userId(payment.getUserId())
+                .amount(payment.getAmount())
+                .paymentMethod(payment.getPaymentMethod())
+                .status(payment.getStatus())
+                .paymentKey(payment.getPaymentKey())
+                .transactionId(payment.getTransactionId())
+                .cancelReason(payment.getCancelReason())
+                .refundAmount(payment.getRefundAmount())
+                .paidAt(payment.getPaidAt())
+                .cancelledAt(payment.getCancelledAt())
+                .createdAt(payment.getCreatedAt())
+                .build();
+    }
 }
@@ -0,0 +1,33 @@
+package mzc.shopping.payment.dto;
+
+import lombok.*;
+import mzc.shopping.payment.entity.PaymentDailyRollup;
+import mzc.shopping.payment.entity.PaymentStatus;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentRollupResponse {
+
+    private LocalDate paymentDate;
+    private PaymentStatus status;
+    private String paymentMethod;
+    private Long paymentCount;
+    private BigDecimal totalAmount;
+    private BigDecimal refundAmount;
+
+    public static PaymentRollupResponse from(PaymentDailyRollup rollup) {
+        return PaymentRollupResponse.builder()
+                .paymentDate(rollup.getPaymentDate())
+                .status(rollup.getStatus())
+                .paymentMethod(rollup.getPaymentMethod())
+                .paymentCount(rollup.getPaymentCount())
+                .totalAmount(rollup.getTotalAmount())
+                .refundAmount(rollup.getRefundAmount())
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package mzc.shopping.payment.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatusBatchRequest {
+
+    @NotEmpty(message = "주문 ID 목록은 필수입니다.")
+    @Size(max = 5000, message = "주문 ID는 한 번에 5000개까지 조회할 수 있습니다.")
+    private List<@NotNull Long> orderIds;
+}
@@ -0,0 +1,21 @@
+package mzc.shopping.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import mzc.shopping.payment.entity.PaymentStatus;
+import java.math.BigDecimal;
+
+/**
+ * 주문 목록 화면용 결제 상태 요약. Payment 엔티티를 만들지 않고 필요한 컬럼만 조회한다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatusView {
+
+    private Long paymentId;
+    private Long orderId;
+    private PaymentStatus status;
+    private BigDecimal amount;
+}
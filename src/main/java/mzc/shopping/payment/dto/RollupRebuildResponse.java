@@ -0,0 +1,17 @@
+package mzc.shopping.payment.dto;
+
+import lombok.*;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RollupRebuildResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private int days;
+    private long rows;
+}
@@ -0,0 +1,24 @@
+package mzc.shopping.payment.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import mzc.shopping.payment.client.TossConfirmResponse;
+
+/**
+ * 토스페이먼츠 웹훅 본문. PAYMENT_STATUS_CHANGED 의 data 는 승인 응답과 같은 Payment 객체다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TossWebhookEvent {
+    public static final String PAYMENT_STATUS_CHANGED = "PAYMENT_STATUS_CHANGED";
+
+    private String eventType;
+    private String createdAt;
+    private TossConfirmResponse data;
+}
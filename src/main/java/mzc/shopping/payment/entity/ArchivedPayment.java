@@ -0,0 +1,88 @@
+package mzc.shopping.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 보관 기간이 지난 종료 상태 결제. payments 와 같은 컬럼에 보관 시각만 더했고 읽기 전용이다.
+ */
+@Entity
+@Table(name = "payments_archive", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payments_archive_order_id", columnNames = "order_id")
+}, indexes = {
+        @Index(name = "idx_payments_archive_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_payments_archive_created", columnList = "created_at, id"),
+        @Index(name = "idx_payments_archive_payment_key", columnList = "payment_key")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ArchivedPayment implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private String paymentMethod;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentStatus status;
+
+    private String paymentKey;
+    private String transactionId;
+    private String cancelReason;
+    private BigDecimal refundAmount;
+
+    private LocalDateTime paidAt;
+    private LocalDateTime cancelledAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime archivedAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    public static ArchivedPayment of(Payment payment) {
+        ArchivedPayment archived = new ArchivedPayment();
+        archived.id = payment.getId();
+        archived.orderId = payment.getOrderId();
+        archived.userId = payment.getUserId();
+        archived.amount = payment.getAmount();
+        archived.paymentMethod = payment.getPaymentMethod();
+        archived.status = payment.getStatus();
+        archived.paymentKey = payment.getPaymentKey();
+        archived.transactionId = payment.getTransactionId();
+        archived.cancelReason = payment.getCancelReason();
+        archived.refundAmount = payment.getRefundAmount();
+        archived.paidAt = payment.getPaidAt();
+        archived.cancelledAt = payment.getCancelledAt();
+        archived.createdAt = payment.getCreatedAt();
+        archived.updatedAt = payment.getUpdatedAt();
+        archived.archivedAt = LocalDateTime.now();
+        return archived;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        this.isNew = false;
+    }
+}
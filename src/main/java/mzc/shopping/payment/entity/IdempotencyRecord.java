@@ -0,0 +1,68 @@
+package mzc.shopping.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key 별 요청 지문과 처리 결과.
+ * 키를 기본 키로 사용해 동시에 들어온 같은 키의 요청 중 하나만 insert 에 성공하게 한다.
+ * claimedAt 은 현재 처리 중인 요청이 키를 선점한 시각으로, lease 를 넘긴 선점은 다른 요청이 이어받는다.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_created", columnList = "created_at")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IdempotencyStatus status;
+
+    @Lob
+    private String responseBody;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime claimedAt;
+    private LocalDateTime completedAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    public static IdempotencyRecord claim(String idempotencyKey, String fingerprint, LocalDateTime claimedAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.idempotencyKey = idempotencyKey;
+        record.fingerprint = fingerprint;
+        record.status = IdempotencyStatus.IN_PROGRESS;
+        record.createdAt = claimedAt;
+        record.claimedAt = claimedAt;
+        return record;
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        this.isNew = false;
+    }
+}
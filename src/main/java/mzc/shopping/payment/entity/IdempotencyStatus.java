@@ -0,0 +1,6 @@
+package mzc.shopping.payment.entity;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,  // 처리 중
+    COMPLETED     // 처리 완료, 응답 저장됨
+}
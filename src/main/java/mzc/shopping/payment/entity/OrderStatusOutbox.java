@@ -0,0 +1,57 @@
+package mzc.shopping.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * 결제 변경과 같은 트랜잭션에서 기록되는 주문 상태 변경 이벤트.
+ * {@code OrderStatusOutboxRelay} 가 비동기로 order-service 에 전달한 뒤 삭제한다.
+ */
+@Entity
+@Table(name = "order_status_outbox", indexes = {
+        @Index(name = "idx_outbox_next_attempt", columnList = "next_attempt_at, id"),
+        @Index(name = "idx_outbox_order", columnList = "order_id, id")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatusOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // 릴레이 인스턴스가 전달을 위해 선점한 만료 시각 (null 이면 선점되지 않음)
+    private LocalDateTime claimedUntil;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    public static OrderStatusOutbox of(Long orderId, String status) {
+        return OrderStatusOutbox.builder()
+                .orderId(orderId)
+                .status(status)
+                .build();
+    }
+}
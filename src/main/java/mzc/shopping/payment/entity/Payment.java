@@ -2,11 +2,19 @@ package mzc.shopping.payment.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import mzc.shopping.payment.id.SnowflakeId;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payments_order_id", columnNames = "order_id"),
+        @UniqueConstraint(name = "uk_payments_payment_key", columnNames = "payment_key")
+}, indexes = {
+        @Index(name = "idx_payments_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_payments_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_payments_created", columnList = "created_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +23,7 @@ import java.time.LocalDateTime;
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @Column(nullable = false)
@@ -37,8 +45,13 @@ public class Payment {
     private String paymentKey;
     private String transactionId;
     private String cancelReason;
+    // 누적 환불액. 환불 건별 내역은 payment_refunds 원장에 있다
     private BigDecimal refundAmount;
 
+    // 동시 환불이 서로의 누적 환불액을 덮어쓰지 않도록 낙관적 락으로 보호한다
+    @Version
+    private Long version;
+
     private LocalDateTime paidAt;
     private LocalDateTime cancelledAt;
     private LocalDateTime createdAt;
@@ -65,6 +78,13 @@ public class Payment {
         this.paidAt = LocalDateTime.now();
     }
 
+    public void complete(String paymentKey, String transactionId, String paymentMethod) {
+        complete(paymentKey, transactionId);
+        if (paymentMethod != null) {
+            this.paymentMethod = paymentMethod;
+        }
+    }
+
     public void fail() {
         this.status = PaymentStatus.FAILED;
     }
@@ -78,13 +98,28 @@ public class Payment {
         this.cancelledAt = LocalDateTime.now();
     }
 
-    public void refund(BigDecimal refundAmount, String reason) {
-        if (this.status != PaymentStatus.COMPLETED && this.status != PaymentStatus.CANCELLED) {
+    public boolean isRefundable() {
+        return this.status == PaymentStatus.COMPLETED || this.status == PaymentStatus.CANCELLED
+                || this.status == PaymentStatus.PARTIALLY_REFUNDED;
+    }
+
+    public PaymentRefund refund(BigDecimal refundAmount, String reason) {
+        if (!isRefundable()) {
             throw new IllegalStateException("완료되거나 취소된 결제만 환불할 수 있습니다.");
         }
-        this.status = PaymentStatus.REFUNDED;
-        this.refundAmount = refundAmount;
+        BigDecimal refunded = this.refundAmount == null ? BigDecimal.ZERO : this.refundAmount;
+        BigDecimal total = refunded.add(refundAmount);
+        if (total.compareTo(this.amount) > 0) {
+            throw new IllegalStateException("환불 가능 금액(" + this.amount.subtract(refunded) + ")을 초과했습니다.");
+        }
+        this.status = total.compareTo(this.amount) == 0 ? PaymentStatus.REFUNDED : PaymentStatus.PARTIALLY_REFUNDED;
+        this.refundAmount = total;
         this.cancelReason = reason;
         this.cancelledAt = LocalDateTime.now();
+        return PaymentRefund.builder()
+                .paymentId(this.id)
+                .amount(refundAmount)
+                .reason(reason)
+                .build();
     }
 }
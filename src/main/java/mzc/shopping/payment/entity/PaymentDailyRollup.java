@@ -0,0 +1,81 @@
+package mzc.shopping.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 결제 생성일·상태·결제 수단별 건수, 결제 금액, 환불 금액 합계.
+ */
+@Entity
+@Table(name = "payment_daily_rollups")
+@IdClass(PaymentDailyRollup.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class PaymentDailyRollup implements Persistable<PaymentDailyRollup.Key> {
+
+    @Id
+    private LocalDate paymentDate;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private PaymentStatus status;
+
+    @Id
+    private String paymentMethod;
+
+    @Column(nullable = false)
+    private long paymentCount;
+
+    @Column(nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(nullable = false)
+    private BigDecimal refundAmount;
+
+    @Transient
+    private boolean isNew = true;
+
+    public static PaymentDailyRollup of(LocalDate paymentDate, PaymentStatus status, String paymentMethod,
+                                        long paymentCount, BigDecimal totalAmount, BigDecimal refundAmount) {
+        PaymentDailyRollup rollup = new PaymentDailyRollup();
+        rollup.paymentDate = paymentDate;
+        rollup.status = status;
+        rollup.paymentMethod = paymentMethod;
+        rollup.paymentCount = paymentCount;
+        rollup.totalAmount = totalAmount;
+        rollup.refundAmount = refundAmount;
+        return rollup;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(paymentDate, status, paymentMethod);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private LocalDate paymentDate;
+        private PaymentStatus status;
+        private String paymentMethod;
+    }
+}
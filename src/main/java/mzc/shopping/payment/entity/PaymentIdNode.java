@@ -0,0 +1,55 @@
+package mzc.shopping.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snowflake 노드 번호를 사용 중인 인스턴스.
+ * 노드 번호를 기본 키로 사용해 같은 번호로 기동한 인스턴스 중 하나만 insert 에 성공하게 한다.
+ * 사용 중인 인스턴스는 leaseUntil 을 주기적으로 연장하며, 연장이 끊겨 lease 가 지난 번호는 다른 인스턴스가 이어받는다.
+ */
+@Entity
+@Table(name = "payment_id_nodes")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class PaymentIdNode implements Persistable<Integer> {
+
+    @Id
+    private Integer nodeId;
+
+    @Column(nullable = false, length = 64)
+    private String instanceId;
+
+    @Column(nullable = false)
+    private LocalDateTime leaseUntil;
+
+    @Transient
+    private boolean isNew = true;
+
+    public static PaymentIdNode claim(int nodeId, String instanceId, LocalDateTime leaseUntil) {
+        PaymentIdNode node = new PaymentIdNode();
+        node.nodeId = nodeId;
+        node.instanceId = instanceId;
+        node.leaseUntil = leaseUntil;
+        return node;
+    }
+
+    @Override
+    public Integer getId() {
+        return nodeId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        this.isNew = false;
+    }
+}
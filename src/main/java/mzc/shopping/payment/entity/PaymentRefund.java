@@ -0,0 +1,40 @@
+package mzc.shopping.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 환불 원장. 환불 한 건마다 한 행을 추가만 하고 수정하지 않는다.
+ * 결제의 누적 환불액({@link Payment#getRefundAmount()})과 같은 트랜잭션에서 기록된다.
+ */
+@Entity
+@Table(name = "payment_refunds", indexes = {
+        @Index(name = "idx_payment_refunds_payment", columnList = "payment_id, id")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentRefund {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long paymentId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    private String reason;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
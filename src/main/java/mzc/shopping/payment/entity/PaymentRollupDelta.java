@@ -0,0 +1,44 @@
+package mzc.shopping.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 결제 집계 증분. 상태 전이와 같은 트랜잭션에서 추가만 하므로 집계 행을 두고 경합하지 않는다.
+ * {@code PaymentRollupService} 가 주기적으로 payment_daily_rollups 에 합산한 뒤 삭제한다.
+ */
+@Entity
+@Table(name = "payment_rollup_deltas", indexes = {
+        @Index(name = "idx_rollup_deltas_date", columnList = "payment_date")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentRollupDelta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate paymentDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PaymentStatus status;
+
+    @Column(nullable = false)
+    private String paymentMethod;
+
+    @Column(nullable = false)
+    private int countDelta;
+
+    @Column(nullable = false)
+    private BigDecimal amountDelta;
+
+    @Column(nullable = false)
+    private BigDecimal refundDelta;
+}
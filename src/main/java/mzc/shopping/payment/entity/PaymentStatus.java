@@ -5,5 +5,6 @@ public enum PaymentStatus {
     COMPLETED,    // 결제 완료
     FAILED,       // 결제 실패
     CANCELLED,    // 결제 취소
+    PARTIALLY_REFUNDED, // 부분 환불
     REFUNDED      // 환불 완료
 }
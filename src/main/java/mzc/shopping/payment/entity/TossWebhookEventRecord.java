@@ -0,0 +1,74 @@
+package mzc.shopping.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * 받은 토스 웹훅 이벤트. 응답 전에 저장해 재시작해도 잃지 않고, 반영하면 processedAt 을 기록한다.
+ * 재전송된 같은 이벤트를 다시 저장하지 않도록 이벤트 ID 를 기본 키로 둔다.
+ */
+@Entity
+@Table(name = "toss_webhook_events", indexes = {
+        @Index(name = "idx_toss_webhook_received", columnList = "received_at"),
+        @Index(name = "idx_toss_webhook_due", columnList = "processed_at, next_attempt_at")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class TossWebhookEventRecord implements Persistable<String> {
+
+    @Id
+    @Column(name = "event_id", length = 64)
+    private String eventId;
+
+    @Column(nullable = false)
+    private String paymentKey;
+
+    // 본문에 담긴 상태 (기록용, 반영은 토스 조회 결과로 한다)
+    @Column(length = 30)
+    private String status;
+
+    private LocalDateTime receivedAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime processedAt;
+
+    @Column(length = 20)
+    private String outcome;
+
+    @Transient
+    private boolean isNew = true;
+
+    public static TossWebhookEventRecord received(String eventId, String paymentKey, String status) {
+        TossWebhookEventRecord record = new TossWebhookEventRecord();
+        record.eventId = eventId;
+        record.paymentKey = paymentKey;
+        record.status = status;
+        record.receivedAt = LocalDateTime.now();
+        record.nextAttemptAt = record.receivedAt;
+        return record;
+    }
+
+    @Override
+    public String getId() {
+        return eventId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -0,0 +1,49 @@
+package mzc.shopping.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 사용자별 결제 내역 조회 모델. 목록 화면에 필요한 컬럼만 두며,
+ * 쓰기는 {@link mzc.shopping.payment.repository.UserPaymentHistoryRepository} 의 upsert 로만 한다.
+ * 보관으로 payments 에서 빠진 결제도 그대로 남는다.
+ */
+@Entity
+@Immutable
+@Table(name = "user_payment_history", indexes = {
+        @Index(name = "idx_user_payment_history_user_created", columnList = "user_id, created_at, payment_id")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class UserPaymentHistory {
+
+    @Id
+    private Long paymentId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    private BigDecimal refundAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PaymentStatus status;
+
+    @Column(nullable = false)
+    private String paymentMethod;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,24 @@
+package mzc.shopping.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * 사용자 결제 내역이 바뀔 때마다 1씩 올라가는 버전. 내역 조회의 ETag 를 만든다.
+ */
+@Entity
+@Immutable
+@Table(name = "user_payment_history_versions")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class UserPaymentHistoryVersion {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private long version;
+}
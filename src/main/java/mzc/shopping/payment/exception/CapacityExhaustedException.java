@@ -0,0 +1,7 @@
+package mzc.shopping.payment.exception;
+
+public class CapacityExhaustedException extends RuntimeException {
+    public CapacityExhaustedException(String message) {
+        super(message);
+    }
+}
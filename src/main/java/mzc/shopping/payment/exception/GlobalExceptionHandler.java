@@ -1,6 +1,10 @@
 package mzc.shopping.payment.exception;
 
 import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -11,26 +15,81 @@ import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
     @ExceptionHandler(PaymentNotFoundException.class)
     public ResponseEntity<Map<String, Object>> handlePaymentNotFound(PaymentNotFoundException e) {
-        return buildResponse(HttpStatus.NOT_FOUND, e.getMessage());
+        return buildResponse(HttpStatus.NOT_FOUND, e, e.getMessage());
     }
 
     @ExceptionHandler(PaymentFailedException.class)
     public ResponseEntity<Map<String, Object>> handlePaymentFailed(PaymentFailedException e) {
-        return buildResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        return buildResponse(HttpStatus.BAD_REQUEST, e, e.getMessage());
+    }
+
+    @ExceptionHandler(PaymentConflictException.class)
+    public ResponseEntity<Map<String, Object>> handlePaymentConflict(PaymentConflictException e) {
+        return buildResponse(HttpStatus.CONFLICT, e, e.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyReuse(IdempotencyKeyReuseException e) {
+        return buildResponse(HttpStatus.UNPROCESSABLE_ENTITY, e, e.getMessage());
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidCursor(InvalidCursorException e) {
+        return buildResponse(HttpStatus.BAD_REQUEST, e, e.getMessage());
+    }
+
+    // 낙관적 락 충돌: 다른 요청이 먼저 같은 결제를 변경했다
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return buildResponse(HttpStatus.CONFLICT, e, "다른 요청이 먼저 결제를 변경했습니다. 다시 조회 후 시도해 주세요.");
     }
 
     @ExceptionHandler(IllegalStateException.class)
     public ResponseEntity<Map<String, Object>> handleIllegalState(IllegalStateException e) {
-        return buildResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        return buildResponse(HttpStatus.BAD_REQUEST, e, e.getMessage());
+    }
+
+    @ExceptionHandler(InvalidRollupRangeException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidRollupRange(InvalidRollupRangeException e) {
+        return buildResponse(HttpStatus.BAD_REQUEST, e, e.getMessage());
+    }
+
+    @ExceptionHandler(InvalidTossRequestException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidTossRequest(InvalidTossRequestException e) {
+        return buildResponse(HttpStatus.BAD_REQUEST, e, e.getMessage());
+    }
+
+    @ExceptionHandler(TossResponseException.class)
+    public ResponseEntity<Map<String, Object>> handleTossResponse(TossResponseException e) {
+        return buildResponse(HttpStatus.BAD_GATEWAY, e, e.getMessage());
+    }
+
+    // 입장 제어로 거절된 조회: 잠시 뒤 재시도하도록 Retry-After 를 붙인다
+    @ExceptionHandler(RequestShedException.class)
+    public ResponseEntity<Map<String, Object>> handleRequestShed(RequestShedException e) {
+        return withRetryAfter(buildResponse(HttpStatus.TOO_MANY_REQUESTS, e, e.getMessage()));
+    }
+
+    @ExceptionHandler(CapacityExhaustedException.class)
+    public ResponseEntity<Map<String, Object>> handleCapacityExhausted(CapacityExhaustedException e) {
+        return withRetryAfter(buildResponse(HttpStatus.SERVICE_UNAVAILABLE, e, e.getMessage()));
+    }
+
+    @ExceptionHandler(RemoteServiceUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleRemoteServiceUnavailable(RemoteServiceUnavailableException e) {
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, e, e.getMessage());
     }
 
     @ExceptionHandler(FeignException.class)
     public ResponseEntity<Map<String, Object>> handleFeignException(FeignException e) {
-        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, "외부 서비스 호출 실패: " + e.getMessage());
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, e, "외부 서비스 호출 실패: " + e.getMessage());
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -39,15 +98,24 @@ public class GlobalExceptionHandler {
                 .map(error -> error.getField() + ": " + error.getDefaultMessage())
                 .findFirst()
                 .orElse("유효성 검증 실패");
-        return buildResponse(HttpStatus.BAD_REQUEST, message);
+        return buildResponse(HttpStatus.BAD_REQUEST, e, message);
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGeneral(Exception e) {
-        return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, "서버 오류가 발생했습니다.");
+        return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, e, "서버 오류가 발생했습니다.");
+    }
+
+    private ResponseEntity<Map<String, Object>> withRetryAfter(ResponseEntity<Map<String, Object>> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response.getBody());
     }
 
-    private ResponseEntity<Map<String, Object>> buildResponse(HttpStatus status, String message) {
+    private ResponseEntity<Map<String, Object>> buildResponse(HttpStatus status, Exception e, String message) {
+        meterRegistry.counter("payment.api.errors",
+                "exception", e.getClass().getSimpleName(),
+                "status", String.valueOf(status.value())).increment();
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("status", status.value());
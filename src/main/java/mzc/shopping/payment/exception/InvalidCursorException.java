@@ -0,0 +1,7 @@
+package mzc.shopping.payment.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
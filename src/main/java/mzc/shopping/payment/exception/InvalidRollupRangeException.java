@@ -0,0 +1,7 @@
+package mzc.shopping.payment.exception;
+
+public class InvalidRollupRangeException extends RuntimeException {
+    public InvalidRollupRangeException(String message) {
+        super(message);
+    }
+}
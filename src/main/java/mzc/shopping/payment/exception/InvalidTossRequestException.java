@@ -0,0 +1,7 @@
+package mzc.shopping.payment.exception;
+
+public class InvalidTossRequestException extends RuntimeException {
+    public InvalidTossRequestException(String message) {
+        super(message);
+    }
+}
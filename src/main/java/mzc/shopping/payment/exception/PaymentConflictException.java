@@ -0,0 +1,7 @@
+package mzc.shopping.payment.exception;
+
+public class PaymentConflictException extends RuntimeException {
+    public PaymentConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package mzc.shopping.payment.exception;
+
+public class RemoteServiceUnavailableException extends RuntimeException {
+
+    private final String target;
+
+    public RemoteServiceUnavailableException(String target, String message) {
+        super(message);
+        this.target = target;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+}
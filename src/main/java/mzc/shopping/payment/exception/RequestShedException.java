@@ -0,0 +1,7 @@
+package mzc.shopping.payment.exception;
+
+public class RequestShedException extends RuntimeException {
+    public RequestShedException(String message) {
+        super(message);
+    }
+}
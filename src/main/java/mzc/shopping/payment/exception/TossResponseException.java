@@ -0,0 +1,7 @@
+package mzc.shopping.payment.exception;
+
+public class TossResponseException extends RuntimeException {
+    public TossResponseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package mzc.shopping.payment.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * insert 전에 {@link SnowflakeIdGenerator} 로 ID 를 할당한다.
+ * IDENTITY 와 달리 Hibernate 가 insert 를 JDBC 배치로 묶을 수 있다.
+ */
+@IdGeneratorType(SnowflakeIdentifierGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SnowflakeId {
+}
@@ -0,0 +1,62 @@
+package mzc.shopping.payment.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간순으로 증가하는 64비트 ID 생성기 (Snowflake 방식).
+ * <pre>
+ * | 41비트 timestamp (2024-01-01 기준 ms) | 5비트 node | 7비트 sequence |
+ * </pre>
+ * 전체 53비트 안에 들어가므로 JSON 으로 내려가도 JavaScript number 정밀도를 잃지 않는다.
+ * 노드당 ms 마다 128개, 초당 약 12만 개까지 발급하며, 잠금 없이 CAS 로 동작한다.
+ * 인스턴스는 {@code IdGeneratorConfig} 가 빈으로 하나만 만든다.
+ */
+public class SnowflakeIdGenerator {
+
+    static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 5;
+    static final int SEQUENCE_BITS = 7;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    // (timestamp << SEQUENCE_BITS) | sequence
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node id 는 0 ~ " + MAX_NODE_ID + " 사이여야 합니다: " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    public int nodeId() {
+        return (int) nodeId;
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            // 시계가 뒤로 가면 마지막 timestamp 를 계속 사용해 단조 증가를 유지
+            long timestamp = Math.max(System.currentTimeMillis() - EPOCH, lastTimestamp);
+
+            long next;
+            if (timestamp == lastTimestamp) {
+                if ((current & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                    // 이번 ms 의 sequence 소진: 다음 ms 까지 대기
+                    Thread.onSpinWait();
+                    continue;
+                }
+                next = current + 1;
+            } else {
+                next = timestamp << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package mzc.shopping.payment.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import mzc.shopping.payment.dto.PaymentStatusView;
+import mzc.shopping.payment.entity.ArchivedPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface ArchivedPaymentRepository extends JpaRepository<ArchivedPayment, Long> {
+
+    Optional<ArchivedPayment> findByOrderId(Long orderId);
+
+    // 새 결제를 넣는 트랜잭션에서 보관 작업이 방금 커밋한 행도 보이도록 스냅샷이 아닌 잠금 읽기로 확인한다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from ArchivedPayment p where p.orderId = :orderId")
+    Optional<ArchivedPayment> findByOrderIdForUpdate(@Param("orderId") Long orderId);
+
+    // 보관 배치의 주문 중 승인 실패로 이미 보관된 결제. 새 결제로 대신하기 위해 잠근다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from ArchivedPayment p where p.orderId in :orderIds " +
+            "and p.status = mzc.shopping.payment.entity.PaymentStatus.FAILED")
+    List<ArchivedPayment> findFailedByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("select new mzc.shopping.payment.dto.PaymentStatusView(p.id, p.orderId, p.status, p.amount) " +
+            "from ArchivedPayment p where p.orderId in :orderIds")
+    List<PaymentStatusView> findStatusViewsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select p from ArchivedPayment p where p.userId = :userId order by p.createdAt desc, p.id desc")
+    Stream<ArchivedPayment> streamByUserId(@Param("userId") Long userId);
+
+    // 롤업 재계산: 생성 시각 구간의 상태·결제 수단별 [status, paymentMethod, count, sum(amount), sum(refundAmount)]
+    @Query("select p.status, p.paymentMethod, count(p), sum(p.amount), sum(p.refundAmount) from ArchivedPayment p " +
+            "where p.createdAt >= :start and p.createdAt < :end group by p.status, p.paymentMethod")
+    List<Object[]> summarizeCreatedBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
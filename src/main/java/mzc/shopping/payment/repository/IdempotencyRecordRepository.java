@@ -0,0 +1,38 @@
+package mzc.shopping.payment.repository;
+
+import mzc.shopping.payment.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // 선점 시각(claimedAt)이 그대로일 때만 반영해, lease 가 지나 다른 요청이 이어받은 키를 덮어쓰지 않는다
+    @Modifying
+    @Query("update IdempotencyRecord r set r.status = mzc.shopping.payment.entity.IdempotencyStatus.COMPLETED, " +
+            "r.responseBody = :responseBody, r.completedAt = :now " +
+            "where r.idempotencyKey = :key and r.claimedAt = :claimedAt " +
+            "and r.status = mzc.shopping.payment.entity.IdempotencyStatus.IN_PROGRESS")
+    int complete(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("responseBody") String responseBody, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.idempotencyKey = :key and r.claimedAt = :claimedAt " +
+            "and r.status = mzc.shopping.payment.entity.IdempotencyStatus.IN_PROGRESS")
+    int release(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt);
+
+    // lease 가 지난 처리 중 선점(선점한 인스턴스가 응답 없이 종료된 경우)을 새 선점 시각으로 이어받는다
+    @Modifying
+    @Query("update IdempotencyRecord r set r.claimedAt = :claimedAt " +
+            "where r.idempotencyKey = :key and r.fingerprint = :fingerprint " +
+            "and r.status = mzc.shopping.payment.entity.IdempotencyStatus.IN_PROGRESS and r.claimedAt < :expiredBefore")
+    int takeOver(@Param("key") String key, @Param("fingerprint") String fingerprint,
+                 @Param("expiredBefore") LocalDateTime expiredBefore, @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
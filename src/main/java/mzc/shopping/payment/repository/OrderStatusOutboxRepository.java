@@ -0,0 +1,45 @@
+package mzc.shopping.payment.repository;
+
+import mzc.shopping.payment.entity.OrderStatusOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderStatusOutboxRepository extends JpaRepository<OrderStatusOutbox, Long> {
+
+    // 다른 인스턴스가 선점해 전달 중인 주문의 이벤트는 제외한다
+    @Query("select o from OrderStatusOutbox o where o.nextAttemptAt <= :now " +
+            "and not exists (select c.id from OrderStatusOutbox c " +
+            "where c.orderId = o.orderId and c.claimedUntil > :now) " +
+            "order by o.id")
+    List<OrderStatusOutbox> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // 전달할 상태까지의 같은 주문 이벤트를 선점한다. 이미 다른 인스턴스가 선점한 이벤트는 건드리지 않는다
+    @Modifying
+    @Query("update OrderStatusOutbox o set o.claimedUntil = :claimedUntil " +
+            "where o.orderId = :orderId and o.id <= :maxId and (o.claimedUntil is null or o.claimedUntil <= :now)")
+    int claim(@Param("orderId") Long orderId, @Param("maxId") Long maxId,
+              @Param("now") LocalDateTime now, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    long countByOrderIdAndIdLessThanEqual(Long orderId, Long maxId);
+
+    Optional<OrderStatusOutbox> findFirstByOrderByIdAsc();
+
+    // 전달에 성공한 상태까지의 같은 주문 이벤트를 한 번에 정리
+    @Modifying
+    @Query("delete from OrderStatusOutbox o where o.orderId = :orderId and o.id <= :maxId")
+    int deleteDelivered(@Param("orderId") Long orderId, @Param("maxId") Long maxId);
+
+    @Modifying
+    @Query("update OrderStatusOutbox o set o.attempts = o.attempts + 1, o.nextAttemptAt = :nextAttemptAt, " +
+            "o.claimedUntil = null " +
+            "where o.orderId = :orderId and o.id <= :maxId")
+    int scheduleRetry(@Param("orderId") Long orderId, @Param("maxId") Long maxId,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+}
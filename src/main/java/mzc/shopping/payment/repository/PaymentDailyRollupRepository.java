@@ -0,0 +1,25 @@
+package mzc.shopping.payment.repository;
+
+import mzc.shopping.payment.entity.PaymentDailyRollup;
+import mzc.shopping.payment.entity.PaymentStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PaymentDailyRollupRepository extends JpaRepository<PaymentDailyRollup, PaymentDailyRollup.Key> {
+
+    @Query("select r from PaymentDailyRollup r where r.paymentDate between :from and :to " +
+            "and (:status is null or r.status = :status) " +
+            "and (:paymentMethod is null or r.paymentMethod = :paymentMethod)")
+    List<PaymentDailyRollup> findRange(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                       @Param("status") PaymentStatus status,
+                                       @Param("paymentMethod") String paymentMethod);
+
+    @Modifying
+    @Query("delete from PaymentDailyRollup r where r.paymentDate = :paymentDate")
+    int deleteByDate(@Param("paymentDate") LocalDate paymentDate);
+}
@@ -0,0 +1,30 @@
+package mzc.shopping.payment.repository;
+
+import mzc.shopping.payment.entity.PaymentIdNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface PaymentIdNodeRepository extends JpaRepository<PaymentIdNode, Integer> {
+
+    // lease 가 지난 번호만 이어받는다
+    @Modifying
+    @Query("update PaymentIdNode n set n.instanceId = :instanceId, n.leaseUntil = :leaseUntil " +
+            "where n.nodeId = :nodeId and n.leaseUntil < :now")
+    int takeOver(@Param("nodeId") Integer nodeId, @Param("instanceId") String instanceId,
+                 @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // 이 인스턴스가 아직 번호를 가지고 있을 때만 연장한다
+    @Modifying
+    @Query("update PaymentIdNode n set n.leaseUntil = :leaseUntil " +
+            "where n.nodeId = :nodeId and n.instanceId = :instanceId")
+    int renew(@Param("nodeId") Integer nodeId, @Param("instanceId") String instanceId,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("delete from PaymentIdNode n where n.nodeId = :nodeId and n.instanceId = :instanceId")
+    int release(@Param("nodeId") Integer nodeId, @Param("instanceId") String instanceId);
+}
@@ -0,0 +1,11 @@
+package mzc.shopping.payment.repository;
+
+import mzc.shopping.payment.entity.PaymentRefund;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PaymentRefundRepository extends JpaRepository<PaymentRefund, Long> {
+
+    List<PaymentRefund> findByPaymentIdOrderByIdAsc(Long paymentId);
+}
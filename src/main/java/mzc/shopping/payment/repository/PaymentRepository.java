@@ -1,15 +1,35 @@
 package mzc.shopping.payment.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import mzc.shopping.payment.dto.PaymentStatusView;
 import mzc.shopping.payment.entity.Payment;
 import mzc.shopping.payment.entity.PaymentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     Optional<Payment> findByOrderId(Long orderId);
 
+    Optional<Payment> findByPaymentKey(String paymentKey);
+
+    List<Payment> findByPaymentKeyIn(Collection<String> paymentKeys);
+
     List<Payment> findByUserId(Long userId);
 
     List<Payment> findByUserIdAndStatus(Long userId, PaymentStatus status);
@@ -19,4 +39,100 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByUserIdOrderByCreatedAtDesc(Long userId);
 
     boolean existsByOrderId(Long orderId);
+
+    @Query("select new mzc.shopping.payment.dto.PaymentStatusView(p.id, p.orderId, p.status, p.amount) " +
+            "from Payment p where p.orderId in :orderIds")
+    List<PaymentStatusView> findStatusViewsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // 조건부 상태 전이: 기대한 상태일 때만 갱신하고 갱신된 행 수를 돌려준다.
+    // 벌크 UPDATE 는 @PreUpdate/@Version 을 거치지 않으므로 updatedAt 과 version 을 직접 갱신한다
+    @Modifying(clearAutomatically = true)
+    @Query("update Payment p set p.status = mzc.shopping.payment.entity.PaymentStatus.COMPLETED, " +
+            "p.paymentKey = :paymentKey, p.transactionId = :transactionId, " +
+            "p.paymentMethod = coalesce(:paymentMethod, p.paymentMethod), " +
+            "p.paidAt = :now, p.updatedAt = :now, p.version = p.version + 1 " +
+            "where p.id = :id and p.status = mzc.shopping.payment.entity.PaymentStatus.PENDING")
+    int completeIfPending(@Param("id") Long id, @Param("paymentKey") String paymentKey,
+                          @Param("transactionId") String transactionId, @Param("paymentMethod") String paymentMethod,
+                          @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Payment p set p.status = mzc.shopping.payment.entity.PaymentStatus.FAILED, " +
+            "p.updatedAt = :now, p.version = p.version + 1 " +
+            "where p.id = :id and p.status = mzc.shopping.payment.entity.PaymentStatus.PENDING")
+    int failIfPending(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // 승인 실패한 결제만 지운다. 같은 주문을 새 결제로 다시 시도할 때 동시 재시도 중 하나만 성공한다
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Payment p where p.id = :id and p.status = mzc.shopping.payment.entity.PaymentStatus.FAILED")
+    int deleteIfFailed(@Param("id") Long id);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Payment p set p.status = mzc.shopping.payment.entity.PaymentStatus.CANCELLED, " +
+            "p.cancelReason = :reason, p.cancelledAt = :now, p.updatedAt = :now, p.version = p.version + 1 " +
+            "where p.id = :id and p.status = mzc.shopping.payment.entity.PaymentStatus.COMPLETED")
+    int cancelIfCompleted(@Param("id") Long id, @Param("reason") String reason, @Param("now") LocalDateTime now);
+
+    // 정산 대상 스캔: 기준 시각 이전에 생성된 상태별 결제를 (createdAt, id) 오름차순 keyset 으로 읽는다
+    @Query("select p from Payment p where p.status = :status and p.createdAt < :cutoff " +
+            "order by p.createdAt asc, p.id asc")
+    List<Payment> findStale(@Param("status") PaymentStatus status, @Param("cutoff") LocalDateTime cutoff,
+                            Pageable pageable);
+
+    @Query("select p from Payment p where p.status = :status and p.createdAt < :cutoff " +
+            "and (p.createdAt > :createdAt or (p.createdAt = :createdAt and p.id > :id)) " +
+            "order by p.createdAt asc, p.id asc")
+    List<Payment> findStaleAfter(@Param("status") PaymentStatus status, @Param("cutoff") LocalDateTime cutoff,
+                                 @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                 Pageable pageable);
+
+    // 보관 대상: findStale 과 같은 순서로 읽되 옮기는 동안 다른 변경이 끼어들지 않도록 행을 잠근다.
+    // 같은 주문의 승인 실패가 아닌 결제가 이미 보관돼 있으면 보관 테이블의 order_id 유니크 제약에 걸리므로 온라인에 남긴다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Payment p where p.status = :status and p.createdAt < :cutoff " +
+            "and not exists (select a.id from ArchivedPayment a where a.orderId = p.orderId " +
+            "and a.status <> mzc.shopping.payment.entity.PaymentStatus.FAILED) " +
+            "order by p.createdAt asc, p.id asc")
+    List<Payment> findArchivable(@Param("status") PaymentStatus status, @Param("cutoff") LocalDateTime cutoff,
+                                 Pageable pageable);
+
+    long countByStatusAndCreatedAtBefore(PaymentStatus status, LocalDateTime before);
+
+    Optional<Payment> findFirstByStatusOrderByCreatedAtAscIdAsc(PaymentStatus status);
+
+    // 롤업 재계산: 생성 시각 구간의 상태·결제 수단별 [status, paymentMethod, count, sum(amount), sum(refundAmount)]
+    @Query("select p.status, p.paymentMethod, count(p), sum(p.amount), sum(p.refundAmount) from Payment p " +
+            "where p.createdAt >= :start and p.createdAt < :end group by p.status, p.paymentMethod")
+    List<Object[]> summarizeCreatedBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // keyset 페이지네이션: (createdAt, id) 내림차순, 커서 이후 행만 조회
+    @Query("select p from Payment p order by p.createdAt desc, p.id desc")
+    List<Payment> findPage(Pageable pageable);
+
+    @Query("select p from Payment p where p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id) " +
+            "order by p.createdAt desc, p.id desc")
+    List<Payment> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query("select p from Payment p where p.status = :status order by p.createdAt desc, p.id desc")
+    List<Payment> findPageByStatus(@Param("status") PaymentStatus status, Pageable pageable);
+
+    @Query("select p from Payment p where p.status = :status " +
+            "and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id)) " +
+            "order by p.createdAt desc, p.id desc")
+    List<Payment> findPageByStatusAfter(@Param("status") PaymentStatus status,
+                                        @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                        Pageable pageable);
+
+    // NDJSON 스트리밍용: 커서 fetch 로 행을 나눠 받아 메모리 사용량을 일정하게 유지
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select p from Payment p order by p.createdAt desc, p.id desc")
+    Stream<Payment> streamAll();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select p from Payment p where p.status = :status order by p.createdAt desc, p.id desc")
+    Stream<Payment> streamByStatus(@Param("status") PaymentStatus status);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select p from Payment p where p.userId = :userId order by p.createdAt desc, p.id desc")
+    Stream<Payment> streamByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,54 @@
+package mzc.shopping.payment.repository;
+
+import mzc.shopping.payment.dto.PaymentRollupResponse;
+import mzc.shopping.payment.entity.PaymentRollupDelta;
+import mzc.shopping.payment.entity.PaymentStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PaymentRollupDeltaRepository extends JpaRepository<PaymentRollupDelta, Long> {
+
+    // 합산할 증분을 id 순으로 잠근다. 다른 인스턴스의 합산은 커밋될 때까지 기다렸다가 남은 행만 본다
+    @Query(value = "select id from payment_rollup_deltas order by id limit :limit for update", nativeQuery = true)
+    List<Long> lockOldest(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "insert into payment_daily_rollups " +
+            "(payment_date, status, payment_method, payment_count, total_amount, refund_amount) " +
+            "select payment_date, status, payment_method, sum(count_delta), sum(amount_delta), sum(refund_delta) " +
+            "from payment_rollup_deltas where id <= :maxId " +
+            "group by payment_date, status, payment_method " +
+            "on duplicate key update payment_count = payment_count + values(payment_count), " +
+            "total_amount = total_amount + values(total_amount), " +
+            "refund_amount = refund_amount + values(refund_amount)", nativeQuery = true)
+    int foldUpTo(@Param("maxId") Long maxId);
+
+    @Modifying
+    @Query("delete from PaymentRollupDelta d where d.id <= :maxId")
+    int deleteUpTo(@Param("maxId") Long maxId);
+
+    // 재계산 중 해당 날짜의 새 증분이 끼어들지 않도록 날짜 범위를 잠근다
+    @Query(value = "select id from payment_rollup_deltas where payment_date = :paymentDate for update",
+            nativeQuery = true)
+    List<Long> lockByDate(@Param("paymentDate") LocalDate paymentDate);
+
+    @Modifying
+    @Query("delete from PaymentRollupDelta d where d.paymentDate = :paymentDate")
+    int deleteByDate(@Param("paymentDate") LocalDate paymentDate);
+
+    // 아직 합산되지 않은 증분 (조회 시 롤업에 더해 최신 상태를 보여준다)
+    @Query("select new mzc.shopping.payment.dto.PaymentRollupResponse(d.paymentDate, d.status, d.paymentMethod, " +
+            "sum(d.countDelta), sum(d.amountDelta), sum(d.refundDelta)) " +
+            "from PaymentRollupDelta d where d.paymentDate between :from and :to " +
+            "and (:status is null or d.status = :status) " +
+            "and (:paymentMethod is null or d.paymentMethod = :paymentMethod) " +
+            "group by d.paymentDate, d.status, d.paymentMethod")
+    List<PaymentRollupResponse> sumPending(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                           @Param("status") PaymentStatus status,
+                                           @Param("paymentMethod") String paymentMethod);
+}
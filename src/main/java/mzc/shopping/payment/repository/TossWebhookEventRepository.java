@@ -0,0 +1,38 @@
+package mzc.shopping.payment.repository;
+
+import mzc.shopping.payment.entity.TossWebhookEventRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TossWebhookEventRepository extends JpaRepository<TossWebhookEventRecord, String> {
+
+    // 반영 대기 중이고 재시도 시각이 지난 이벤트 (processed_at, next_attempt_at 인덱스)
+    @Query("select r from TossWebhookEventRecord r where r.processedAt is null and r.nextAttemptAt <= :now " +
+            "order by r.nextAttemptAt, r.receivedAt")
+    List<TossWebhookEventRecord> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByProcessedAtIsNull();
+
+    @Modifying
+    @Query("update TossWebhookEventRecord r set r.processedAt = :now, r.outcome = :outcome " +
+            "where r.eventId in :eventIds")
+    int markProcessed(@Param("eventIds") Collection<String> eventIds, @Param("outcome") String outcome,
+                      @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update TossWebhookEventRecord r set r.attempts = r.attempts + 1, r.nextAttemptAt = :nextAttemptAt " +
+            "where r.eventId in :eventIds")
+    int scheduleRetry(@Param("eventIds") Collection<String> eventIds,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("delete from TossWebhookEventRecord r where r.receivedAt < :before")
+    int deleteReceivedBefore(@Param("before") LocalDateTime before);
+}
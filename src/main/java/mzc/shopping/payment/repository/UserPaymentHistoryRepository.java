@@ -0,0 +1,56 @@
+package mzc.shopping.payment.repository;
+
+import mzc.shopping.payment.dto.PaymentHistoryResponse;
+import mzc.shopping.payment.entity.UserPaymentHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserPaymentHistoryRepository extends JpaRepository<UserPaymentHistory, Long> {
+
+    // 생성 시 insert, 이후 전이에서는 바뀌는 컬럼만 갱신한다
+    @Modifying
+    @Query(value = "insert into user_payment_history " +
+            "(payment_id, user_id, order_id, amount, refund_amount, status, payment_method, created_at) " +
+            "values (:paymentId, :userId, :orderId, :amount, :refundAmount, :status, :paymentMethod, :createdAt) " +
+            "on duplicate key update refund_amount = values(refund_amount), status = values(status), " +
+            "payment_method = values(payment_method)", nativeQuery = true)
+    int upsert(@Param("paymentId") Long paymentId, @Param("userId") Long userId, @Param("orderId") Long orderId,
+               @Param("amount") BigDecimal amount, @Param("refundAmount") BigDecimal refundAmount,
+               @Param("status") String status, @Param("paymentMethod") String paymentMethod,
+               @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("delete from UserPaymentHistory h where h.paymentId = :paymentId")
+    int deleteByPaymentId(@Param("paymentId") Long paymentId);
+
+    @Modifying
+    @Query(value = "insert into user_payment_history_versions (user_id, version) values (:userId, 1) " +
+            "on duplicate key update version = version + 1", nativeQuery = true)
+    int bumpVersion(@Param("userId") Long userId);
+
+    @Query("select v.version from UserPaymentHistoryVersion v where v.userId = :userId")
+    Optional<Long> findVersion(@Param("userId") Long userId);
+
+    @Query("select new mzc.shopping.payment.dto.PaymentHistoryResponse(h.paymentId, h.orderId, h.amount, " +
+            "h.refundAmount, h.status, h.paymentMethod, h.createdAt) " +
+            "from UserPaymentHistory h where h.userId = :userId " +
+            "order by h.createdAt desc, h.paymentId desc")
+    List<PaymentHistoryResponse> findPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select new mzc.shopping.payment.dto.PaymentHistoryResponse(h.paymentId, h.orderId, h.amount, " +
+            "h.refundAmount, h.status, h.paymentMethod, h.createdAt) " +
+            "from UserPaymentHistory h where h.userId = :userId " +
+            "and (h.createdAt < :createdAt or (h.createdAt = :createdAt and h.paymentId < :id)) " +
+            "order by h.createdAt desc, h.paymentId desc")
+    List<PaymentHistoryResponse> findPageAfter(@Param("userId") Long userId,
+                                               @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                               Pageable pageable);
+}
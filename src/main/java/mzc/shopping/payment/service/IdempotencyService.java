@@ -0,0 +1,186 @@
+package mzc.shopping.payment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mzc.shopping.payment.config.OutboundPolicyProperties;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.entity.IdempotencyRecord;
+import mzc.shopping.payment.entity.IdempotencyStatus;
+import mzc.shopping.payment.exception.IdempotencyKeyReuseException;
+import mzc.shopping.payment.exception.PaymentConflictException;
+import mzc.shopping.payment.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key 헤더 처리.
+ * 같은 키로 재시도된 요청은 저장된 응답을 그대로 돌려주어 DB 쓰기나 토스 호출 없이 끝난다.
+ * 동시에 들어온 중복 요청은 키 insert 에서 하나만 살아남고, 나머지는 먼저 온 요청의 결과를 잠시 기다린다.
+ * 선점한 인스턴스가 응답을 저장하지 못하고 종료되면 키가 처리 중으로 남으므로, lease 가 지난 선점은 재시도한 요청이 이어받는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    private static final String TOSS_CLIENT = "toss-payments";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboundPolicyProperties outboundPolicyProperties;
+
+    @Value("${payment.idempotency.in-flight-wait:2s}")
+    private Duration inFlightWait;
+    @Value("${payment.idempotency.retention:24h}")
+    private Duration retention;
+    @Value("${payment.idempotency.lease:2m}")
+    private Duration lease;
+
+    // lease 가 토스 호출 대기 시간보다 짧으면 아직 응답을 기다리는 요청의 키를 재시도가 이어받아 토스에 같은 요청을 다시 보낸다
+    @PostConstruct
+    void validateLease() {
+        OutboundPolicyProperties.ClientPolicy toss = outboundPolicyProperties.policy(TOSS_CLIENT);
+        Duration readTimeout = toss.getNonIdempotentReadTimeout() != null
+                ? toss.getNonIdempotentReadTimeout() : toss.getMaxTimeout();
+        Duration tossCallLimit = toss.getMaxWait().plus(toss.getConnectTimeout()).plus(readTimeout);
+        if (lease.compareTo(tossCallLimit) <= 0) {
+            throw new IllegalStateException("payment.idempotency.lease(" + lease + ") 는 토스 호출 최대 대기 시간("
+                    + tossCallLimit + ")보다 길어야 합니다.");
+        }
+    }
+
+    public PaymentResponse execute(String idempotencyKey, String operation, Object request,
+                                   Supplier<PaymentResponse> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+
+        String fingerprint = fingerprint(operation, request);
+        Optional<PaymentResponse> replay = findCompleted(idempotencyKey, fingerprint);
+        if (replay.isPresent()) {
+            return replay.get();
+        }
+
+        // DB(datetime(6))에 저장된 값과 그대로 비교할 수 있도록 마이크로초로 자른다
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (!claim(idempotencyKey, fingerprint, claimedAt)) {
+            // 같은 키의 요청이 이미 처리 중이므로 그 결과를 기다린다
+            return awaitCompleted(idempotencyKey, fingerprint);
+        }
+
+        PaymentResponse response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // 실패한 요청은 같은 키로 다시 시도할 수 있도록 선점을 해제
+            transactionTemplate.executeWithoutResult(status ->
+                    idempotencyRecordRepository.release(idempotencyKey, claimedAt));
+            throw e;
+        }
+
+        String responseBody = serialize(response);
+        Integer completed = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.complete(idempotencyKey, claimedAt, responseBody, LocalDateTime.now()));
+        if (completed == null || completed == 0) {
+            log.warn("lease 가 지나 다른 요청이 이어받은 Idempotency-Key 의 응답은 저장하지 않습니다 key={}", idempotencyKey);
+        }
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.idempotency.purge-interval:3600000}")
+    public void purgeExpired() {
+        transactionTemplate.executeWithoutResult(status ->
+                idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention)));
+    }
+
+    // 키를 새로 선점했거나 lease 가 지난 선점을 이어받았으면 true
+    private boolean claim(String idempotencyKey, String fingerprint, LocalDateTime claimedAt) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.saveAndFlush(
+                    IdempotencyRecord.claim(idempotencyKey, fingerprint, claimedAt)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            Integer takenOver = transactionTemplate.execute(status -> idempotencyRecordRepository.takeOver(
+                    idempotencyKey, fingerprint, claimedAt.minus(lease), claimedAt));
+            if (takenOver != null && takenOver > 0) {
+                log.warn("lease 가 지난 Idempotency-Key 선점을 이어받습니다 key={}", idempotencyKey);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private Optional<PaymentResponse> findCompleted(String idempotencyKey, String fingerprint) {
+        return idempotencyRecordRepository.findById(idempotencyKey)
+                .map(record -> {
+                    if (!record.getFingerprint().equals(fingerprint)) {
+                        throw new IdempotencyKeyReuseException("같은 Idempotency-Key 로 다른 요청을 보낼 수 없습니다.");
+                    }
+                    return record;
+                })
+                .filter(record -> record.getStatus() == IdempotencyStatus.COMPLETED)
+                .map(record -> deserialize(record.getResponseBody()));
+    }
+
+    private PaymentResponse awaitCompleted(String idempotencyKey, String fingerprint) {
+        long deadline = System.nanoTime() + inFlightWait.toNanos();
+        while (System.nanoTime() < deadline) {
+            Optional<PaymentResponse> replay = findCompleted(idempotencyKey, fingerprint);
+            if (replay.isPresent()) {
+                return replay.get();
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new PaymentConflictException("같은 Idempotency-Key 의 요청이 처리 중입니다.");
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("요청 지문 생성 실패", e);
+        }
+    }
+
+    private String serialize(PaymentResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("응답 저장 실패", e);
+        }
+    }
+
+    private PaymentResponse deserialize(String responseBody) {
+        try {
+            return objectMapper.readValue(responseBody, PaymentResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("저장된 응답 복원 실패", e);
+        }
+    }
+}
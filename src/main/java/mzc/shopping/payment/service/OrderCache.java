@@ -0,0 +1,61 @@
+package mzc.shopping.payment.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import mzc.shopping.payment.client.OrderResponse;
+import mzc.shopping.payment.client.OrderServiceClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * order-service 주문 조회 캐시 (orderId → OrderResponse).
+ * 같은 주문을 동시에 조회하면 먼저 온 요청 하나만 원격 호출하고 나머지는 그 결과를 기다린다.
+ * 결제 중 바뀔 수 있는 주문 상태를 오래 들고 있지 않도록 TTL 은 짧게 두고, 실패한 조회는 캐시하지 않는다.
+ */
+@Component
+public class OrderCache {
+
+    private final OrderServiceClient orderServiceClient;
+    private final AsyncCache<Long, OrderResponse> orders;
+
+    public OrderCache(OrderServiceClient orderServiceClient,
+                      @Value("${payment.order-cache.max-size:10000}") long maxSize,
+                      @Value("${payment.order-cache.ttl:3s}") Duration ttl,
+                      MeterRegistry meterRegistry) {
+        this.orderServiceClient = orderServiceClient;
+        this.orders = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, orders.synchronous(), "order.by-id");
+    }
+
+    public OrderResponse getOrder(Long orderId) {
+        // 원격 호출은 캐시 잠금 밖에서 호출한 스레드가 직접 수행한다
+        CompletableFuture<OrderResponse> created = new CompletableFuture<>();
+        CompletableFuture<OrderResponse> future = orders.get(orderId, (id, executor) -> created);
+        if (future == created) {
+            try {
+                created.complete(orderServiceClient.getOrder(orderId));
+            } catch (RuntimeException e) {
+                // 실패한 future 는 캐시에서 제거되므로 다음 요청이 다시 조회한다
+                created.completeExceptionally(e);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package mzc.shopping.payment.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mzc.shopping.payment.client.OrderServiceClient;
+import jakarta.annotation.PostConstruct;
+import mzc.shopping.payment.config.OutboundPolicyProperties;
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.entity.OrderStatusOutbox;
+import mzc.shopping.payment.repository.OrderStatusOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * order_status_outbox 를 배치 단위로 읽어 order-service 에 주문 상태를 전달한다.
+ * 같은 주문의 여러 이벤트는 마지막 상태 하나로 합쳐 전송하고, 실패하면 지수 백오프로 재시도한다.
+ * 여러 인스턴스가 같은 주문의 이벤트를 동시에 보내면 늦게 도착한 이전 상태가 최신 상태를 덮어쓸 수 있으므로,
+ * 보내기 전에 그 주문의 이벤트를 lease 동안 선점하고 선점이 살아 있는 주문은 다른 인스턴스가 읽지 않는다.
+ * 선점한 인스턴스가 종료되어도 lease 가 지나면 다른 인스턴스가 이어받는다.
+ * outbox 는 결제와 같은 샤드에 기록되므로 샤딩 모드에서는 샤드마다 차례로 전달한다.
+ */
+@Slf4j
+@Component
+public class OrderStatusOutboxRelay {
+
+    private static final String ORDER_CLIENT = "order-service";
+
+    private final OrderStatusOutboxRepository outboxRepository;
+    private final OrderServiceClient orderServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final OutboundPolicyProperties outboundPolicyProperties;
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    @Value("${payment.outbox.batch-size:100}")
+    private int batchSize;
+    @Value("${payment.outbox.initial-backoff:1s}")
+    private Duration initialBackoff;
+    @Value("${payment.outbox.max-backoff:5m}")
+    private Duration maxBackoff;
+    @Value("${payment.outbox.claim-lease:30s}")
+    private Duration claimLease;
+
+    public OrderStatusOutboxRelay(OrderStatusOutboxRepository outboxRepository,
+                                  OrderServiceClient orderServiceClient,
+                                  TransactionTemplate transactionTemplate,
+                                  ShardRouter shardRouter,
+                                  OutboundPolicyProperties outboundPolicyProperties,
+                                  MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.orderServiceClient = orderServiceClient;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.outboundPolicyProperties = outboundPolicyProperties;
+        this.deliveredCounter = meterRegistry.counter("payment.outbox.delivered");
+        this.failedCounter = meterRegistry.counter("payment.outbox.failed");
+        Gauge.builder("payment.outbox.depth", depth, AtomicLong::get)
+                .description("전달 대기 중인 주문 상태 이벤트 수")
+                .register(meterRegistry);
+        Gauge.builder("payment.outbox.lag", lagMillis, value -> value.get() / 1000.0)
+                .description("가장 오래된 미전달 이벤트의 경과 시간")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    // lease 가 order-service 호출 대기 시간보다 짧으면 아직 전달 중인 주문을 다른 인스턴스가 이어받아 순서가 뒤바뀔 수 있다
+    @PostConstruct
+    void validateClaimLease() {
+        OutboundPolicyProperties.ClientPolicy order = outboundPolicyProperties.policy(ORDER_CLIENT);
+        Duration orderCallLimit = order.getMaxWait().plus(order.getConnectTimeout()).plus(order.getMaxTimeout());
+        if (claimLease.compareTo(orderCallLimit) <= 0) {
+            throw new IllegalStateException("payment.outbox.claim-lease(" + claimLease
+                    + ") 는 order-service 호출 최대 대기 시간(" + orderCallLimit + ")보다 길어야 합니다.");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.outbox.relay-interval:1000}")
+    public void relay() {
+        shardRouter.forEachShard(shard -> relayShard());
+        refreshMetrics();
+    }
+
+    private void relayShard() {
+        List<OrderStatusOutbox> batch = outboxRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+
+        // 주문별 마지막 상태만 전송 (id 오름차순이므로 뒤에 오는 이벤트가 최신)
+        Map<Long, OrderStatusOutbox> latestByOrder = new LinkedHashMap<>();
+        for (OrderStatusOutbox event : batch) {
+            latestByOrder.put(event.getOrderId(), event);
+        }
+
+        for (OrderStatusOutbox event : latestByOrder.values()) {
+            if (claim(event)) {
+                deliver(event);
+            }
+        }
+    }
+
+    // 읽은 뒤 다른 인스턴스가 같은 주문을 먼저 선점했다면 일부만 선점되므로 되돌리고 건너뛴다
+    private boolean claim(OrderStatusOutbox event) {
+        LocalDateTime now = LocalDateTime.now();
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            int claimed = outboxRepository.claim(event.getOrderId(), event.getId(), now, now.plus(claimLease));
+            if (claimed == 0 || claimed != outboxRepository.countByOrderIdAndIdLessThanEqual(event.getOrderId(), event.getId())) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        }));
+    }
+
+    private void deliver(OrderStatusOutbox event) {
+        try {
+            orderServiceClient.updateOrderStatus(event.getOrderId(), event.getStatus());
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxRepository.deleteDelivered(event.getOrderId(), event.getId()));
+            deliveredCounter.increment();
+        } catch (Exception e) {
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(event.getAttempts()));
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxRepository.scheduleRetry(event.getOrderId(), event.getId(), nextAttemptAt));
+            failedCounter.increment();
+            log.warn("주문 상태 전달 실패 orderId={}, status={}, attempts={}",
+                    event.getOrderId(), event.getStatus(), event.getAttempts() + 1, e);
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    // 샤드별 값을 합쳐 전체 대기 수와 가장 오래된 이벤트의 경과 시간을 기록한다
+    private void refreshMetrics() {
+        depth.set(shardRouter.scatter(shard -> outboxRepository.count()).stream()
+                .mapToLong(Long::longValue)
+                .sum());
+        lagMillis.set(shardRouter.scatter(shard -> outboxRepository.findFirstByOrderByIdAsc()
+                        .map(oldest -> Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toMillis())
+                        .orElse(0L)).stream()
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(0L));
+    }
+}
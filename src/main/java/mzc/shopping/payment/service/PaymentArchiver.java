@@ -0,0 +1,129 @@
+package mzc.shopping.payment.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.entity.ArchivedPayment;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.ArchivedPaymentRepository;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 보관 기간이 지난 종료 상태 결제를 payments 에서 payments_archive 로 옮겨 온라인 테이블과 인덱스를 작게 유지한다.
+ * 배치마다 대상 행을 잠근 뒤 복사·삭제를 한 트랜잭션으로 처리하므로 중간에 멈춰도 양쪽에 중복되거나 유실되지 않는다.
+ * 보관 테이블은 결제와 같은 샤드에 있으므로 샤딩 모드에서는 샤드마다 차례로 옮긴다.
+ * 보관된 결제는 조회만 가능하고 취소/환불 대상이 아니므로, 보관 기간은 환불 가능 기간보다 길게 잡는다.
+ */
+@Slf4j
+@Component
+public class PaymentArchiver {
+
+    // 부분 환불은 추가 환불이 가능하므로 종료 상태로 보지 않는다
+    private static final List<PaymentStatus> ARCHIVABLE = List.of(
+            PaymentStatus.COMPLETED, PaymentStatus.CANCELLED, PaymentStatus.REFUNDED, PaymentStatus.FAILED);
+
+    private final PaymentRepository paymentRepository;
+    private final ArchivedPaymentRepository archivedPaymentRepository;
+    private final PaymentRollupService paymentRollupService;
+    private final PaymentHistoryService paymentHistoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final Counter movedCounter;
+    private final Timer runTimer;
+
+    @Value("${payment.archive.age:180d}")
+    private Duration age;
+    @Value("${payment.archive.batch-size:500}")
+    private int batchSize;
+    @Value("${payment.archive.max-per-run:200000}")
+    private int maxPerRun;
+    @Value("${payment.archive.pause:100ms}")
+    private Duration pause;
+
+    public PaymentArchiver(PaymentRepository paymentRepository,
+                           ArchivedPaymentRepository archivedPaymentRepository,
+                           PaymentRollupService paymentRollupService,
+                           PaymentHistoryService paymentHistoryService,
+                           TransactionTemplate transactionTemplate,
+                           ShardRouter shardRouter,
+                           MeterRegistry meterRegistry) {
+        this.paymentRepository = paymentRepository;
+        this.archivedPaymentRepository = archivedPaymentRepository;
+        this.paymentRollupService = paymentRollupService;
+        this.paymentHistoryService = paymentHistoryService;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.movedCounter = meterRegistry.counter("payment.archive.moved");
+        this.runTimer = meterRegistry.timer("payment.archive.run");
+    }
+
+    @Scheduled(cron = "${payment.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        runTimer.record(() -> shardRouter.forEachShard(this::archiveExpired));
+    }
+
+    private void archiveExpired(int shard) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(age);
+        int moved = 0;
+        for (PaymentStatus status : ARCHIVABLE) {
+            int batch;
+            do {
+                batch = transactionTemplate.execute(tx -> moveBatch(status, cutoff));
+                moved += batch;
+                movedCounter.increment(batch);
+                // 복제 지연과 버퍼 풀 부담을 줄이기 위해 배치 사이에 쉰다
+                sleep(pause);
+            } while (batch == batchSize && moved < maxPerRun);
+        }
+        if (moved > 0) {
+            log.info("결제 보관 완료 shard={}, moved={}, cutoff={}", shard, moved, cutoff);
+        }
+    }
+
+    private int moveBatch(PaymentStatus status, LocalDateTime cutoff) {
+        List<Payment> payments = paymentRepository.findArchivable(status, cutoff, PageRequest.of(0, batchSize));
+        if (payments.isEmpty()) {
+            return 0;
+        }
+        replaceArchivedFailed(payments);
+        archivedPaymentRepository.saveAll(payments.stream().map(ArchivedPayment::of).toList());
+        paymentRepository.deleteAllByIdInBatch(payments.stream().map(Payment::getId).toList());
+        return payments.size();
+    }
+
+    // 승인 실패로 보관된 주문을 나중에 다시 결제했다면, 새 결제를 옮기기 전에 보관된 실패 결제를 지워
+    // 보관 테이블의 order_id 유니크 제약에 걸리지 않게 한다. 결제 서비스가 새 결제를 넣을 때와 같이 집계·이력에서도 뺀다
+    private void replaceArchivedFailed(List<Payment> payments) {
+        List<ArchivedPayment> superseded = archivedPaymentRepository.findFailedByOrderIdIn(
+                payments.stream().map(Payment::getOrderId).toList());
+        if (superseded.isEmpty()) {
+            return;
+        }
+        archivedPaymentRepository.deleteAllByIdInBatch(superseded.stream().map(ArchivedPayment::getId).toList());
+        for (ArchivedPayment failed : superseded) {
+            paymentRollupService.removed(failed);
+            paymentHistoryService.removed(failed);
+        }
+        log.info("다시 결제된 주문의 보관된 실패 결제를 지웁니다 count={}", superseded.size());
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package mzc.shopping.payment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import mzc.shopping.payment.dto.PaymentResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 결제 단건 조회용 인메모리 캐시 (id → PaymentResponse, orderId → id).
+ * 조회 경로는 putIfAbsent 로만 채우고, 상태 변경은 커밋 이후 put 으로 덮어써서
+ * 커밋 전에 읽힌 이전 상태가 새 상태를 덮어쓰지 못하게 한다.
+ */
+@Component
+public class PaymentCache {
+
+    private final Cache<Long, PaymentResponse> paymentsById;
+    private final Cache<Long, Long> paymentIdsByOrderId;
+
+    public PaymentCache(@Value("${payment.cache.max-size:10000}") long maxSize,
+                        @Value("${payment.cache.ttl:30s}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.paymentsById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.paymentIdsByOrderId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, paymentsById, "payment.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, paymentIdsByOrderId, "payment.id-by-order-id");
+    }
+
+    public PaymentResponse getById(Long id) {
+        return paymentsById.getIfPresent(id);
+    }
+
+    public PaymentResponse getByOrderId(Long orderId) {
+        Long id = paymentIdsByOrderId.getIfPresent(orderId);
+        return id == null ? null : paymentsById.getIfPresent(id);
+    }
+
+    // 조회 결과 적재: 이미 커밋 이후 값이 들어와 있다면 덮어쓰지 않는다
+    public void putIfAbsent(PaymentResponse payment) {
+        paymentsById.asMap().putIfAbsent(payment.getId(), payment);
+        paymentIdsByOrderId.asMap().putIfAbsent(payment.getOrderId(), payment.getId());
+    }
+
+    // 상태 변경 반영: 트랜잭션이 커밋된 뒤에만 캐시에 쓴다
+    public void putAfterCommit(PaymentResponse payment) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(payment);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(payment);
+            }
+        });
+    }
+
+    public void evictAfterCommit(Long id, Long orderId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(id, orderId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(id, orderId);
+            }
+        });
+    }
+
+    private void evict(Long id, Long orderId) {
+        paymentsById.invalidate(id);
+        paymentIdsByOrderId.invalidate(orderId);
+    }
+
+    private void put(PaymentResponse payment) {
+        paymentsById.put(payment.getId(), payment);
+        paymentIdsByOrderId.put(payment.getOrderId(), payment.getId());
+    }
+}
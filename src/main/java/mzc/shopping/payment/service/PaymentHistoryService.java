@@ -0,0 +1,100 @@
+package mzc.shopping.payment.service;
+
+import lombok.RequiredArgsConstructor;
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.dto.CursorPageResponse;
+import mzc.shopping.payment.dto.PaymentCursor;
+import mzc.shopping.payment.dto.PaymentHistoryResponse;
+import mzc.shopping.payment.entity.ArchivedPayment;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.repository.UserPaymentHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 사용자별 결제 내역 조회 모델(user_payment_history).
+ * 결제 상태 전이 트랜잭션이 요약 행과 사용자 버전을 함께 갱신하고, 내역 조회는 payments 를 읽지 않는다.
+ * ETag 는 사용자 버전과 페이지 위치로 만들므로, 버전 한 건만 읽고 변경이 없으면 304 로 끝낸다.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentHistoryService {
+
+    private static final Comparator<PaymentHistoryResponse> NEWEST_FIRST = Comparator
+            .comparing(PaymentHistoryResponse::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(PaymentHistoryResponse::getId, Comparator.reverseOrder());
+
+    private final UserPaymentHistoryRepository historyRepository;
+    private final ShardRouter shardRouter;
+
+    @Value("${payment.page.default-size:20}")
+    private int defaultPageSize;
+    @Value("${payment.page.max-size:100}")
+    private int maxPageSize;
+
+    // 아래 기록 메서드는 상태 전이와 같은 트랜잭션 안에서 호출한다
+
+    public void record(Payment payment) {
+        historyRepository.upsert(payment.getId(), payment.getUserId(), payment.getOrderId(), payment.getAmount(),
+                payment.getRefundAmount(), payment.getStatus().name(), payment.getPaymentMethod(),
+                payment.getCreatedAt());
+        historyRepository.bumpVersion(payment.getUserId());
+    }
+
+    public void removed(Payment payment) {
+        removed(payment.getId(), payment.getUserId());
+    }
+
+    public void removed(ArchivedPayment payment) {
+        removed(payment.getId(), payment.getUserId());
+    }
+
+    private void removed(Long paymentId, Long userId) {
+        historyRepository.deleteByPaymentId(paymentId);
+        historyRepository.bumpVersion(userId);
+    }
+
+    /**
+     * 페이지의 ETag. 버전을 행보다 먼저 읽으므로, 그 사이 전이가 커밋되면 본문이 ETag 보다 새로울 수는 있어도
+     * 오래된 본문에 최신 ETag 가 붙지는 않는다 (다음 요청에서 버전이 달라 다시 내려받는다).
+     * 샤딩 모드에서는 사용자의 결제가 여러 샤드에 있으므로 샤드별 버전을 모두 담는다.
+     */
+    public String etag(Long userId, String cursor, Integer size) {
+        String versions = shardRouter.scatter(shard -> historyRepository.findVersion(userId).orElse(0L)).stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining("."));
+        return "\"" + userId + "-" + versions + "-" + pageSize(size) + (cursor == null ? "" : "-" + cursor) + "\"";
+    }
+
+    public CursorPageResponse<PaymentHistoryResponse> getHistory(Long userId, String cursor, Integer size) {
+        PaymentCursor after = PaymentCursor.decode(cursor);
+        int pageSize = pageSize(size);
+        // 다음 페이지 존재 여부를 알기 위해 요청 크기보다 한 건 더 조회한다
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        // 샤드별 같은 커서 이후 페이지를 (createdAt, id) 내림차순으로 합친다
+        List<PaymentHistoryResponse> rows = shardRouter.scatter(shard -> after == null
+                        ? historyRepository.findPage(userId, limit)
+                        : historyRepository.findPageAfter(userId, after.getCreatedAt(), after.getId(), limit))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(NEWEST_FIRST)
+                .limit(limit.getPageSize())
+                .collect(Collectors.toList());
+
+        boolean hasNext = rows.size() > pageSize;
+        List<PaymentHistoryResponse> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? PaymentCursor.of(content.get(content.size() - 1)).encode() : null;
+        return new CursorPageResponse<>(content, nextCursor, hasNext);
+    }
+
+    private int pageSize(Integer size) {
+        return size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+    }
+}
@@ -0,0 +1,108 @@
+package mzc.shopping.payment.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mzc.shopping.payment.entity.PaymentIdNode;
+import mzc.shopping.payment.id.SnowflakeIdGenerator;
+import mzc.shopping.payment.repository.PaymentIdNodeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 설정된 Snowflake 노드 번호(payment.id.node-id)를 DB 에 등록해, 같은 번호를 받은 두 번째 인스턴스는 기동하지 않게 한다.
+ * docker compose --scale 처럼 레플리카가 같은 PAYMENT_NODE_ID 를 받으면 서로 같은 PK 를 발급하기 때문이다.
+ * 번호는 lease 동안만 유효하므로 주기적으로 연장하고, 정상 종료할 때 반납한다.
+ * 비정상 종료로 남은 등록은 lease 가 지날 때까지 기다렸다가 이어받으므로 그만큼 재기동이 늦어질 수 있다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentIdNodeLease {
+
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private final PaymentIdNodeRepository paymentIdNodeRepository;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final String instanceId = System.getenv().getOrDefault("HOSTNAME", "local")
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    @Value("${payment.id.lease:1m}")
+    private Duration lease;
+    @Value("${payment.id.renew-interval:10000}")
+    private long renewIntervalMillis;
+
+    @PostConstruct
+    void acquire() {
+        if (lease.compareTo(Duration.ofMillis(renewIntervalMillis)) <= 0) {
+            throw new IllegalStateException("payment.id.lease(" + lease + ") 는 payment.id.renew-interval("
+                    + renewIntervalMillis + "ms)보다 길어야 합니다.");
+        }
+        int nodeId = snowflakeIdGenerator.nodeId();
+        // 살아 있는 인스턴스는 lease 가 지나기 전에 연장하므로, lease 를 넘겨 기다려도 못 받으면 중복이다
+        LocalDateTime deadline = LocalDateTime.now().plus(lease).plusNanos(renewIntervalMillis * 1_000_000);
+        while (!claim(nodeId)) {
+            if (LocalDateTime.now().isAfter(deadline)) {
+                String holder = paymentIdNodeRepository.findById(nodeId).map(PaymentIdNode::getInstanceId).orElse("?");
+                throw new IllegalStateException("payment.id.node-id(PAYMENT_NODE_ID)=" + nodeId
+                        + " 를 다른 인스턴스(" + holder + ")가 사용 중입니다. 인스턴스마다 서로 다른 값을 지정하세요.");
+            }
+            log.warn("Snowflake 노드 {} 의 이전 등록이 끝나기를 기다립니다", nodeId);
+            sleep();
+        }
+        log.info("Snowflake 노드 {} 를 사용합니다 instanceId={}", nodeId, instanceId);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.id.renew-interval:10000}")
+    public void renew() {
+        int nodeId = snowflakeIdGenerator.nodeId();
+        Integer renewed = transactionTemplate.execute(status ->
+                paymentIdNodeRepository.renew(nodeId, instanceId, LocalDateTime.now().plus(lease)));
+        if (renewed != null && renewed > 0) {
+            return;
+        }
+        // 연장이 lease 보다 오래 멈춰 다른 인스턴스가 번호를 이어받았을 수 있다
+        if (!claim(nodeId)) {
+            log.error("Snowflake 노드 {} 를 다른 인스턴스가 사용 중입니다. 이 인스턴스가 발급한 ID 가 충돌할 수 있습니다 instanceId={}",
+                    nodeId, instanceId);
+        }
+    }
+
+    @PreDestroy
+    void release() {
+        transactionTemplate.executeWithoutResult(status ->
+                paymentIdNodeRepository.release(snowflakeIdGenerator.nodeId(), instanceId));
+    }
+
+    // 번호를 새로 등록했거나 lease 가 지난 등록을 이어받았으면 true
+    private boolean claim(int nodeId) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> paymentIdNodeRepository.saveAndFlush(
+                    PaymentIdNode.claim(nodeId, instanceId, now.plus(lease))));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            Integer takenOver = transactionTemplate.execute(status ->
+                    paymentIdNodeRepository.takeOver(nodeId, instanceId, now, now.plus(lease)));
+            return takenOver != null && takenOver > 0;
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Snowflake 노드 등록을 기다리다 중단되었습니다.", e);
+        }
+    }
+}
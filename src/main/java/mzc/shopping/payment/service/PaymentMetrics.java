@@ -0,0 +1,111 @@
+package mzc.shopping.payment.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.exception.IdempotencyKeyReuseException;
+import mzc.shopping.payment.exception.InvalidCursorException;
+import mzc.shopping.payment.exception.InvalidTossRequestException;
+import mzc.shopping.payment.exception.PaymentConflictException;
+import mzc.shopping.payment.exception.PaymentFailedException;
+import mzc.shopping.payment.exception.PaymentNotFoundException;
+import mzc.shopping.payment.exception.RemoteServiceUnavailableException;
+import mzc.shopping.payment.exception.TossResponseException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 결제 서비스 메트릭.
+ * <ul>
+ *     <li>payment.operation: PaymentService 공개 메서드별 처리시간 (operation, outcome, status 태그)</li>
+ *     <li>payment.status.transitions: 커밋된 상태 전이 수 (from, to 태그)</li>
+ * </ul>
+ */
+@Aspect
+@Component
+public class PaymentMetrics {
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    public PaymentMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * mzc.shopping.payment.service.PaymentService.*(..))")
+    public Object timeOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = "success";
+        String status = NONE;
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof PaymentResponse response && response.getStatus() != null) {
+                status = response.getStatus().name();
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            Timer.builder("payment.operation")
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordTransitionAfterCommit(PaymentStatus from, PaymentStatus to) {
+        if (from == to) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordTransition(from, to);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordTransition(from, to);
+            }
+        });
+    }
+
+    private void recordTransition(PaymentStatus from, PaymentStatus to) {
+        meterRegistry.counter("payment.status.transitions",
+                "from", from == null ? NONE : from.name(),
+                "to", to.name()).increment();
+    }
+
+    private String outcome(Throwable e) {
+        if (e instanceof PaymentNotFoundException) {
+            return "not_found";
+        }
+        if (e instanceof PaymentConflictException || e instanceof OptimisticLockingFailureException) {
+            return "conflict";
+        }
+        if (e instanceof PaymentFailedException || e instanceof IllegalStateException
+                || e instanceof InvalidCursorException || e instanceof IdempotencyKeyReuseException
+                || e instanceof InvalidTossRequestException) {
+            return "rejected";
+        }
+        if (e instanceof TossResponseException) {
+            return "remote_error";
+        }
+        if (e instanceof RemoteServiceUnavailableException) {
+            return "remote_unavailable";
+        }
+        return "error";
+    }
+}
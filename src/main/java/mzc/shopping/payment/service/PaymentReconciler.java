@@ -0,0 +1,301 @@
+package mzc.shopping.payment.service;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mzc.shopping.payment.client.OrderResponse;
+import mzc.shopping.payment.client.OrderServiceClient;
+import mzc.shopping.payment.client.TossAuthorization;
+import mzc.shopping.payment.client.TossConfirmResponse;
+import mzc.shopping.payment.client.TossPaymentsClient;
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.entity.OrderStatusOutbox;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.OrderStatusOutboxRepository;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 오래된 PENDING 결제 정산.
+ * (createdAt, id) keyset 으로 대상을 배치 단위로 읽고, 제한된 작업 풀에서 토스/주문 서비스 상태를 병렬 확인한 뒤
+ * 배치 결과를 한 트랜잭션에서 조건부 UPDATE 로 반영한다. 상태 전이가 조건부이므로 여러 인스턴스가 동시에 돌거나
+ * 중간에 재시작되어도 같은 결제를 두 번 전이하지 않으며, 다음 실행은 아직 PENDING 인 행부터 다시 스캔한다.
+ * 샤딩 모드에서는 샤드마다 차례로 스캔하고, 실행당 확인 한도(max-per-run)는 모든 샤드에 걸쳐 적용한다.
+ */
+@Slf4j
+@Component
+public class PaymentReconciler {
+
+    private static final String TOSS_PENDING_METHOD = "TOSS";
+    private static final String ORDER_CANCELLED = "CANCELLED";
+
+    private final PaymentRepository paymentRepository;
+    private final OrderStatusOutboxRepository outboxRepository;
+    private final TossPaymentsClient tossPaymentsClient;
+    private final TossAuthorization tossAuthorization;
+    private final OrderServiceClient orderServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentCache paymentCache;
+    private final PaymentMetrics paymentMetrics;
+    private final PaymentRollupService paymentRollupService;
+    private final PaymentHistoryService paymentHistoryService;
+    private final ShardRouter shardRouter;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor workers;
+    private final Timer runTimer;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong scanned = new AtomicLong();
+
+    @Value("${payment.reconcile.stale-after:10m}")
+    private Duration staleAfter;
+    @Value("${payment.reconcile.expire-after:30m}")
+    private Duration expireAfter;
+    @Value("${payment.reconcile.batch-size:100}")
+    private int batchSize;
+    @Value("${payment.reconcile.max-per-run:5000}")
+    private int maxPerRun;
+    @Value("${payment.reconcile.max-checks-per-second:50}")
+    private int maxChecksPerSecond;
+
+    public PaymentReconciler(PaymentRepository paymentRepository,
+                             OrderStatusOutboxRepository outboxRepository,
+                             TossPaymentsClient tossPaymentsClient,
+                             TossAuthorization tossAuthorization,
+                             OrderServiceClient orderServiceClient,
+                             TransactionTemplate transactionTemplate,
+                             PaymentCache paymentCache,
+                             PaymentMetrics paymentMetrics,
+                             PaymentRollupService paymentRollupService,
+                             PaymentHistoryService paymentHistoryService,
+                             ShardRouter shardRouter,
+                             MeterRegistry meterRegistry,
+                             @Value("${payment.reconcile.parallelism:8}") int parallelism) {
+        this.paymentRepository = paymentRepository;
+        this.outboxRepository = outboxRepository;
+        this.tossPaymentsClient = tossPaymentsClient;
+        this.tossAuthorization = tossAuthorization;
+        this.orderServiceClient = orderServiceClient;
+        this.transactionTemplate = transactionTemplate;
+        this.paymentCache = paymentCache;
+        this.paymentMetrics = paymentMetrics;
+        this.paymentRollupService = paymentRollupService;
+        this.paymentHistoryService = paymentHistoryService;
+        this.shardRouter = shardRouter;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 큐가 차면 스캔 스레드가 직접 실행해 자연스럽게 속도가 조절된다.
+        // 종료 중에도 버리지 않고 실행해야 join 하는 스캔 스레드가 멈추지 않는다
+        this.workers = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 4),
+                runnable -> new Thread(runnable, "payment-reconciler-" + threadNumber.incrementAndGet()),
+                (runnable, executor) -> runnable.run());
+        this.runTimer = meterRegistry.timer("payment.reconcile.run");
+        Gauge.builder("payment.reconcile.backlog", backlog, AtomicLong::get)
+                .description("정산 대상인 오래된 PENDING 결제 수")
+                .register(meterRegistry);
+        Gauge.builder("payment.reconcile.lag", lagMillis, value -> value.get() / 1000.0)
+                .description("가장 오래된 PENDING 결제의 경과 시간")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("payment.reconcile.progress", scanned, AtomicLong::get)
+                .description("현재(또는 마지막) 정산 실행에서 확인한 결제 수")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${payment.reconcile.interval:60000}")
+    public void reconcile() {
+        runTimer.record(this::reconcileStale);
+    }
+
+    private void reconcileStale() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(staleAfter);
+        refreshMetrics(cutoff);
+        scanned.set(0);
+        shardRouter.forEachShard(shard -> reconcileShard(cutoff));
+
+        if (scanned.get() > 0) {
+            log.info("PENDING 결제 정산 완료 scanned={}, backlog={}", scanned.get(), backlog.get());
+        }
+    }
+
+    private void reconcileShard(LocalDateTime cutoff) {
+        Payment last = null;
+        while (scanned.get() < maxPerRun) {
+            int limit = (int) Math.min(batchSize, maxPerRun - scanned.get());
+            List<Payment> batch = last == null
+                    ? paymentRepository.findStale(PaymentStatus.PENDING, cutoff, PageRequest.of(0, limit))
+                    : paymentRepository.findStaleAfter(PaymentStatus.PENDING, cutoff,
+                            last.getCreatedAt(), last.getId(), PageRequest.of(0, limit));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            long startedAt = System.nanoTime();
+            List<Decision> decisions = batch.stream()
+                    .map(payment -> CompletableFuture.supplyAsync(() -> decide(payment), workers))
+                    .toList()
+                    .stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+            apply(decisions);
+
+            scanned.addAndGet(batch.size());
+            last = batch.get(batch.size() - 1);
+            throttle(batch.size(), startedAt);
+        }
+    }
+
+    // 원격 상태만 확인하고 DB 는 건드리지 않는다. 확인할 수 없으면 다음 실행으로 미룬다
+    private Decision decide(Payment payment) {
+        try {
+            if (TOSS_PENDING_METHOD.equals(payment.getPaymentMethod()) && payment.getPaymentKey() != null) {
+                return decideByToss(payment);
+            }
+            return decideByOrder(payment);
+        } catch (Exception e) {
+            log.warn("정산 상태 확인 실패 paymentId={}", payment.getId(), e);
+            return Decision.of(payment, Action.ERROR);
+        }
+    }
+
+    private Decision decideByToss(Payment payment) {
+        TossConfirmResponse toss;
+        try {
+            toss = tossPaymentsClient.getPayment(tossAuthorization.header(), payment.getPaymentKey());
+        } catch (FeignException.NotFound e) {
+            // 승인 요청이 토스에 닿지 않았다
+            return Decision.of(payment, Action.FAIL);
+        }
+        return switch (toss.getStatus()) {
+            case "DONE" -> toss.getTotalAmount() != null
+                    && payment.getAmount().longValue() != toss.getTotalAmount()
+                    ? Decision.of(payment, Action.MISMATCH)
+                    : new Decision(payment, Action.COMPLETE, toss.getTransactionKey(), toss.getMethod());
+            case "CANCELED", "ABORTED", "EXPIRED" -> Decision.of(payment, Action.FAIL);
+            default -> Decision.of(payment, Action.KEEP);
+        };
+    }
+
+    private Decision decideByOrder(Payment payment) {
+        try {
+            OrderResponse order = orderServiceClient.getOrder(payment.getOrderId());
+            if (ORDER_CANCELLED.equals(order.getStatus())) {
+                return Decision.of(payment, Action.FAIL);
+            }
+        } catch (FeignException.NotFound e) {
+            return Decision.of(payment, Action.FAIL);
+        }
+        boolean expired = payment.getCreatedAt().isBefore(LocalDateTime.now().minus(expireAfter));
+        return Decision.of(payment, expired ? Action.FAIL : Action.KEEP);
+    }
+
+    private void apply(List<Decision> decisions) {
+        int[] counts = new int[Action.values().length];
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (Decision decision : decisions) {
+                Payment payment = decision.payment();
+                Action action = decision.action();
+                if (action == Action.COMPLETE) {
+                    if (paymentRepository.completeIfPending(payment.getId(), payment.getPaymentKey(),
+                            decision.transactionKey(), decision.method(), now) == 0) {
+                        action = Action.KEEP;
+                    } else {
+                        outboxRepository.save(OrderStatusOutbox.of(payment.getOrderId(), "CONFIRMED"));
+                        transitioned(payment);
+                    }
+                } else if (action == Action.FAIL) {
+                    if (paymentRepository.failIfPending(payment.getId(), now) == 0) {
+                        action = Action.KEEP;
+                    } else {
+                        transitioned(payment);
+                    }
+                } else if (action == Action.MISMATCH) {
+                    log.error("토스 승인 금액 불일치 paymentId={}, paymentKey={}, amount={}",
+                            payment.getId(), payment.getPaymentKey(), payment.getAmount());
+                }
+                counts[action.ordinal()]++;
+            }
+        });
+        for (Action action : Action.values()) {
+            checked(action).increment(counts[action.ordinal()]);
+        }
+    }
+
+    // payment 는 스캔 시점(PENDING)의 스냅숏이므로 갱신된 행을 다시 읽어 집계와 캐시에 반영한다.
+    // 비우지 않고 새 상태로 덮어써야 커밋 전에 다른 요청이 채운 PENDING 응답이 남지 않는다
+    private void transitioned(Payment pending) {
+        Payment payment = paymentRepository.findById(pending.getId()).orElseThrow();
+        paymentRollupService.transitioned(payment, PaymentStatus.PENDING, pending.getPaymentMethod());
+        paymentHistoryService.record(payment);
+        paymentCache.putAfterCommit(PaymentResponse.from(payment));
+        paymentMetrics.recordTransitionAfterCommit(PaymentStatus.PENDING, payment.getStatus());
+    }
+
+    // 원격 서비스 부하를 제한: 배치 처리 시간이 허용 속도보다 짧으면 남은 시간만큼 쉰다
+    private void throttle(int checks, long startedAt) {
+        long minimumNanos = TimeUnit.SECONDS.toNanos(checks) / Math.max(maxChecksPerSecond, 1);
+        long remaining = minimumNanos - (System.nanoTime() - startedAt);
+        if (remaining > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void refreshMetrics(LocalDateTime cutoff) {
+        backlog.set(shardRouter.scatter(shard ->
+                        paymentRepository.countByStatusAndCreatedAtBefore(PaymentStatus.PENDING, cutoff)).stream()
+                .mapToLong(Long::longValue)
+                .sum());
+        lagMillis.set(shardRouter.scatter(shard ->
+                        paymentRepository.findFirstByStatusOrderByCreatedAtAscIdAsc(PaymentStatus.PENDING)
+                                .map(oldest -> Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toMillis())
+                                .orElse(0L)).stream()
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(0L));
+    }
+
+    private Counter checked(Action action) {
+        return meterRegistry.counter("payment.reconcile.checked", "result", action.name().toLowerCase());
+    }
+
+    private enum Action {
+        COMPLETE, FAIL, KEEP, MISMATCH, ERROR
+    }
+
+    private record Decision(Payment payment, Action action, String transactionKey, String method) {
+        static Decision of(Payment payment, Action action) {
+            return new Decision(payment, action, null, null);
+        }
+    }
+}
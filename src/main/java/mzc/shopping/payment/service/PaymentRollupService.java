@@ -0,0 +1,268 @@
+package mzc.shopping.payment.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.dto.PaymentRollupResponse;
+import mzc.shopping.payment.dto.RollupRebuildResponse;
+import mzc.shopping.payment.entity.ArchivedPayment;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentDailyRollup;
+import mzc.shopping.payment.entity.PaymentRollupDelta;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.exception.InvalidRollupRangeException;
+import mzc.shopping.payment.exception.PaymentConflictException;
+import mzc.shopping.payment.repository.ArchivedPaymentRepository;
+import mzc.shopping.payment.repository.PaymentDailyRollupRepository;
+import mzc.shopping.payment.repository.PaymentRepository;
+import mzc.shopping.payment.repository.PaymentRollupDeltaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 결제 일별 집계(생성일·상태·결제 수단별 건수, 금액, 환불액).
+ * 상태 전이 트랜잭션은 증분 행만 추가하고, 스케줄러가 증분을 모아 집계 테이블에 합산한다.
+ * 조회는 집계에 아직 합산되지 않은 증분을 더해 전이 커밋 직후의 값을 돌려준다.
+ * 샤딩 모드에서는 증분과 집계가 결제와 같은 샤드에 있으므로 합산·재계산은 샤드별로, 조회는 모든 샤드 결과를 더한다.
+ */
+@Slf4j
+@Service
+public class PaymentRollupService {
+
+    private final PaymentRepository paymentRepository;
+    private final ArchivedPaymentRepository archivedPaymentRepository;
+    private final PaymentRollupDeltaRepository deltaRepository;
+    private final PaymentDailyRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final ExecutorService rebuildExecutor;
+    private final Counter foldedCounter;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @Value("${payment.rollup.fold-batch-size:5000}")
+    private int foldBatchSize;
+    @Value("${payment.rollup.max-range-days:366}")
+    private int maxRangeDays;
+    @Value("${payment.rollup.max-rebuild-days:31}")
+    private int maxRebuildDays;
+
+    public PaymentRollupService(PaymentRepository paymentRepository,
+                                ArchivedPaymentRepository archivedPaymentRepository,
+                                PaymentRollupDeltaRepository deltaRepository,
+                                PaymentDailyRollupRepository rollupRepository,
+                                TransactionTemplate transactionTemplate,
+                                ShardRouter shardRouter,
+                                MeterRegistry meterRegistry,
+                                @Value("${payment.rollup.rebuild-parallelism:4}") int rebuildParallelism) {
+        this.paymentRepository = paymentRepository;
+        this.archivedPaymentRepository = archivedPaymentRepository;
+        this.deltaRepository = deltaRepository;
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.rebuildExecutor = Executors.newFixedThreadPool(rebuildParallelism,
+                runnable -> new Thread(runnable, "payment-rollup-rebuild-" + threadNumber.incrementAndGet()));
+        this.foldedCounter = meterRegistry.counter("payment.rollup.folded");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    // 아래 기록 메서드는 상태 전이와 같은 트랜잭션 안에서 호출한다
+
+    public void added(Payment payment) {
+        record(payment, payment.getStatus(), payment.getPaymentMethod(), 1, refundOf(payment));
+    }
+
+    public void removed(Payment payment) {
+        record(payment, payment.getStatus(), payment.getPaymentMethod(), -1, refundOf(payment).negate());
+    }
+
+    // 보관으로 옮길 때는 집계에서 빼지 않으므로, 보관된 결제를 지울 때 뺀다
+    public void removed(ArchivedPayment payment) {
+        BigDecimal refund = payment.getRefundAmount() == null ? BigDecimal.ZERO : payment.getRefundAmount();
+        record(payment.getCreatedAt(), payment.getAmount(), payment.getStatus(), payment.getPaymentMethod(), -1,
+                refund.negate());
+    }
+
+    // 환불액이 바뀌지 않는 전이: 이전 상태·결제 수단에서 빼고 현재 상태로 옮긴다
+    public void transitioned(Payment payment, PaymentStatus from, String fromMethod) {
+        record(payment, from, fromMethod, -1, refundOf(payment).negate());
+        added(payment);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.rollup.fold-interval:5000}")
+    public void fold() {
+        shardRouter.forEachShard(shard -> foldShard());
+    }
+
+    private void foldShard() {
+        Integer folded = transactionTemplate.execute(status -> {
+            List<Long> ids = deltaRepository.lockOldest(foldBatchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            Long maxId = ids.get(ids.size() - 1);
+            deltaRepository.foldUpTo(maxId);
+            return deltaRepository.deleteUpTo(maxId);
+        });
+        foldedCounter.increment(folded == null ? 0 : folded);
+    }
+
+    public List<PaymentRollupResponse> getRollups(LocalDate from, LocalDate to, PaymentStatus status,
+                                                  String paymentMethod) {
+        validateRange(from, to);
+        Map<PaymentDailyRollup.Key, PaymentRollupResponse> rows = new LinkedHashMap<>();
+        for (List<PaymentRollupResponse> shardRows : shardRouter.scatter(shard -> {
+            List<PaymentRollupResponse> found = new ArrayList<>();
+            rollupRepository.findRange(from, to, status, paymentMethod)
+                    .forEach(rollup -> found.add(PaymentRollupResponse.from(rollup)));
+            found.addAll(deltaRepository.sumPending(from, to, status, paymentMethod));
+            return found;
+        })) {
+            for (PaymentRollupResponse row : shardRows) {
+                rows.merge(new PaymentDailyRollup.Key(row.getPaymentDate(), row.getStatus(), row.getPaymentMethod()),
+                        row, PaymentRollupService::sum);
+            }
+        }
+        return rows.values().stream()
+                .filter(row -> row.getPaymentCount() != 0)
+                .sorted(Comparator.comparing(PaymentRollupResponse::getPaymentDate)
+                        .thenComparing(PaymentRollupResponse::getStatus)
+                        .thenComparing(PaymentRollupResponse::getPaymentMethod))
+                .toList();
+    }
+
+    /**
+     * 구간의 집계를 payments 와 payments_archive 에서 다시 계산한다 (백필·수동 보정 이후 사용).
+     * 샤드·날짜별로 나눠 병렬로 처리하며, 각 날짜는 해당 날짜의 증분을 잠그고 지운 뒤 한 트랜잭션에서 다시 쓴다.
+     * 잠금 이후 커밋되는 전이의 증분은 재계산 커밋을 기다렸다가 기록되므로 이중으로 합산되지 않는다.
+     * 요청 스레드에서 끝까지 실행되므로 구간을 max-rebuild-days 로 제한하고, 인스턴스마다 한 번에 하나만 실행한다.
+     */
+    public RollupRebuildResponse rebuild(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        if (ChronoUnit.DAYS.between(from, to) >= maxRebuildDays) {
+            throw new InvalidRollupRangeException("재계산 기간은 최대 " + maxRebuildDays + "일입니다.");
+        }
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new PaymentConflictException("결제 집계 재계산이 이미 진행 중입니다.");
+        }
+        try {
+            return rebuildRange(from, to);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private RollupRebuildResponse rebuildRange(LocalDate from, LocalDate to) {
+        List<CompletableFuture<Integer>> tasks = new ArrayList<>();
+        int days = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1), days++) {
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                LocalDate target = day;
+                int targetShard = shard;
+                tasks.add(CompletableFuture.supplyAsync(
+                        () -> shardRouter.onShard(targetShard, () -> rebuildDay(target)), rebuildExecutor));
+            }
+        }
+        long rows = tasks.stream().mapToLong(CompletableFuture::join).sum();
+        log.info("결제 집계 재계산 완료 from={}, to={}, rows={}", from, to, rows);
+        return RollupRebuildResponse.builder()
+                .from(from)
+                .to(to)
+                .days(days)
+                .rows(rows)
+                .build();
+    }
+
+    private int rebuildDay(LocalDate day) {
+        return transactionTemplate.execute(status -> {
+            deltaRepository.lockByDate(day);
+            deltaRepository.deleteByDate(day);
+            rollupRepository.deleteByDate(day);
+
+            // 온라인과 보관 테이블의 같은 상태·결제 수단 합계를 더한다
+            LocalDateTime start = day.atStartOfDay();
+            LocalDateTime end = day.plusDays(1).atStartOfDay();
+            Map<PaymentDailyRollup.Key, PaymentDailyRollup> rollups = new LinkedHashMap<>();
+            for (List<Object[]> rows : List.of(paymentRepository.summarizeCreatedBetween(start, end),
+                    archivedPaymentRepository.summarizeCreatedBetween(start, end))) {
+                for (Object[] row : rows) {
+                    PaymentDailyRollup rollup = PaymentDailyRollup.of(day, (PaymentStatus) row[0], (String) row[1],
+                            ((Number) row[2]).longValue(), decimal(row[3]), decimal(row[4]));
+                    rollups.merge(rollup.getId(), rollup, (a, b) -> PaymentDailyRollup.of(day, a.getStatus(),
+                            a.getPaymentMethod(), a.getPaymentCount() + b.getPaymentCount(),
+                            a.getTotalAmount().add(b.getTotalAmount()), a.getRefundAmount().add(b.getRefundAmount())));
+                }
+            }
+            rollupRepository.saveAll(rollups.values());
+            return rollups.size();
+        });
+    }
+
+    private void record(Payment payment, PaymentStatus status, String paymentMethod, int count, BigDecimal refund) {
+        record(payment.getCreatedAt(), payment.getAmount(), status, paymentMethod, count, refund);
+    }
+
+    private void record(LocalDateTime createdAt, BigDecimal amount, PaymentStatus status, String paymentMethod,
+                        int count, BigDecimal refund) {
+        deltaRepository.save(PaymentRollupDelta.builder()
+                .paymentDate(createdAt.toLocalDate())
+                .status(status)
+                .paymentMethod(paymentMethod)
+                .countDelta(count)
+                .amountDelta(count > 0 ? amount : amount.negate())
+                .refundDelta(refund)
+                .build());
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new InvalidRollupRangeException("조회 기간이 올바르지 않습니다.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new InvalidRollupRangeException("조회 기간은 최대 " + maxRangeDays + "일입니다.");
+        }
+    }
+
+    private static BigDecimal refundOf(Payment payment) {
+        return payment.getRefundAmount() == null ? BigDecimal.ZERO : payment.getRefundAmount();
+    }
+
+    private static BigDecimal decimal(Object value) {
+        return value == null ? BigDecimal.ZERO : new BigDecimal(value.toString());
+    }
+
+    private static PaymentRollupResponse sum(PaymentRollupResponse a, PaymentRollupResponse b) {
+        return PaymentRollupResponse.builder()
+                .paymentDate(a.getPaymentDate())
+                .status(a.getStatus())
+                .paymentMethod(a.getPaymentMethod())
+                .paymentCount(a.getPaymentCount() + b.getPaymentCount())
+                .totalAmount(a.getTotalAmount().add(b.getTotalAmount()))
+                .refundAmount(a.getRefundAmount().add(b.getRefundAmount()))
+                .build();
+    }
+}
@@ -1,178 +1,606 @@
 package mzc.shopping.payment.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import feign.FeignException;
+import feign.codec.DecodeException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import mzc.shopping.payment.client.OrderResponse;
-import mzc.shopping.payment.client.OrderServiceClient;
+import mzc.shopping.payment.config.OutboundPolicyProperties;
+import mzc.shopping.payment.config.OutboundPolicyProperties.OrderUserFallback;
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.dto.CursorPageResponse;
+import mzc.shopping.payment.dto.PaymentCursor;
+import mzc.shopping.payment.dto.PaymentRefundResponse;
 import mzc.shopping.payment.dto.PaymentRequest;
 import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.dto.PaymentStatusView;
 import mzc.shopping.payment.dto.RefundRequest;
+import mzc.shopping.payment.entity.ArchivedPayment;
+import mzc.shopping.payment.entity.OrderStatusOutbox;
 import mzc.shopping.payment.entity.Payment;
 import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.exception.PaymentConflictException;
 import mzc.shopping.payment.exception.PaymentFailedException;
 import mzc.shopping.payment.exception.PaymentNotFoundException;
+import mzc.shopping.payment.exception.RemoteServiceUnavailableException;
+import mzc.shopping.payment.exception.TossResponseException;
+import mzc.shopping.payment.repository.ArchivedPaymentRepository;
+import mzc.shopping.payment.repository.OrderStatusOutboxRepository;
+import mzc.shopping.payment.repository.PaymentRefundRepository;
 import mzc.shopping.payment.repository.PaymentRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import mzc.shopping.payment.client.TossAuthorization;
+import mzc.shopping.payment.client.TossConfirmRequest;
+import mzc.shopping.payment.client.TossConfirmResponse;
 import mzc.shopping.payment.client.TossPaymentsClient;
 import mzc.shopping.payment.dto.TossPaymentRequest;
 import org.springframework.beans.factory.annotation.Value;
-import java.util.Base64;
 import java.util.Map;
 import java.util.HashMap;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class PaymentService {
 
+    private static final String TOSS_PENDING_METHOD = "TOSS";
+    // 같은 paymentKey 가 이미 승인된 경우의 토스 오류 코드. 승인된 결제이므로 실패 처리하지 않는다
+    private static final String ALREADY_PROCESSED_PAYMENT = "ALREADY_PROCESSED_PAYMENT";
+    private static final int STATUS_LOOKUP_CHUNK_SIZE = 1000;
+    private static final Comparator<PaymentResponse> NEWEST_FIRST = Comparator
+            .comparing(PaymentResponse::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(PaymentResponse::getId, Comparator.reverseOrder());
+
     private final PaymentRepository paymentRepository;
-    private final OrderServiceClient orderServiceClient;
+    private final ArchivedPaymentRepository archivedPaymentRepository;
+    private final OrderStatusOutboxRepository outboxRepository;
+    private final PaymentRefundRepository paymentRefundRepository;
+    private final OrderCache orderCache;
     private final TossPaymentsClient tossPaymentsClient;
-    @Value("${toss.secret-key}")
-    private String tossSecretKey;
-
-
-    @Transactional
+    private final TossAuthorization tossAuthorization;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentCache paymentCache;
+    private final OutboundPolicyProperties outboundPolicy;
+    private final PaymentMetrics paymentMetrics;
+    private final PaymentRollupService paymentRollupService;
+    private final PaymentHistoryService paymentHistoryService;
+    private final ShardRouter shardRouter;
+    private final PaymentShardLocator shardLocator;
+    @Value("${payment.page.default-size:20}")
+    private int defaultPageSize;
+    @Value("${payment.page.max-size:100}")
+    private int maxPageSize;
+    @Value("${payment.refund.max-attempts:5}")
+    private int refundMaxAttempts;
+
+
+    // 원격 호출은 트랜잭션 밖에서 수행하고, DB 커넥션은 짧은 트랜잭션 동안만 점유한다.
+    // 주문당 결제 중복은 order_id 유니크 제약으로 막아 조회 없이 insert 한 번으로 끝낸다.
+    // 샤딩 모드에서는 주문 ID 로 고른 샤드에 기록하므로 같은 주문의 중복 요청은 항상 같은 샤드에서 충돌한다.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PaymentResponse confirmTossPayment(PaymentRequest request) {
-        OrderResponse order = orderServiceClient.getOrder(request.getOrderId());
+        validateAmount(getOrder(request.getOrderId()), request.getAmount());
 
-        if (paymentRepository.existsByOrderId(request.getOrderId())) {
+        try {
+            return shardRouter.onShardOf(request.getOrderId(), () -> insertReplacingFailed(() -> Payment.builder()
+                    .orderId(request.getOrderId())
+                    .userId(request.getUserId())
+                    .amount(request.getAmount())
+                    .paymentMethod(request.getPaymentMethod())
+                    .status(PaymentStatus.PENDING)
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
             throw new PaymentFailedException("이미 해당 주문에 대한 결제가 존재합니다.");
         }
-
-        Payment payment = Payment.builder()
-                .orderId(request.getOrderId())
-                .userId(request.getUserId())
-                .amount(request.getAmount())
-                .paymentMethod(request.getPaymentMethod())
-                .status(PaymentStatus.PENDING)
-                .build();
-
-        Payment savedPayment = paymentRepository.save(payment);
-        return PaymentResponse.from(savedPayment);
     }
 
-    @Transactional
+    // 상태 확인과 변경을 조건부 UPDATE 한 번으로 처리해, 동시 요청 중 하나만 전이하고 주문 이벤트를 남긴다.
+    // 트랜잭션은 결제가 있는 샤드를 찾은 뒤에 시작한다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PaymentResponse confirmPayment(Long id) {
-        Payment payment = findPaymentById(id);
-
-        if (payment.getStatus() != PaymentStatus.PENDING) {
-            throw new PaymentFailedException("대기 중인 결제만 승인할 수 있습니다.");
-        }
-
         String paymentKey = "PK_" + UUID.randomUUID().toString();
         String transactionId = "TXN_" + System.currentTimeMillis();
 
-        payment.complete(paymentKey, transactionId);
-        orderServiceClient.updateOrderStatus(payment.getOrderId(), "CONFIRMED");
+        return shardRouter.onShard(shardLocator.shardOf(id), () -> transactionTemplate.execute(status -> {
+            int updated = paymentRepository.completeIfPending(id, paymentKey, transactionId, null, LocalDateTime.now());
+            Payment payment = transitioned(updated, id, "대기 중인 결제만 승인할 수 있습니다.");
+            outboxRepository.save(OrderStatusOutbox.of(payment.getOrderId(), "CONFIRMED"));
+            paymentRollupService.transitioned(payment, PaymentStatus.PENDING, payment.getPaymentMethod());
+            paymentHistoryService.record(payment);
 
-        return PaymentResponse.from(payment);
+            return afterTransition(PaymentStatus.PENDING, payment);
+        }));
     }
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PaymentResponse cancelPayment(Long id, String reason) {
-        Payment payment = findPaymentById(id);
-        payment.cancel(reason);
-        orderServiceClient.updateOrderStatus(payment.getOrderId(), "CANCELLED");
-        return PaymentResponse.from(payment);
+        return shardRouter.onShard(shardLocator.shardOf(id), () -> transactionTemplate.execute(status -> {
+            int updated = paymentRepository.cancelIfCompleted(id, reason, LocalDateTime.now());
+            Payment payment = transitioned(updated, id, "완료된 결제만 취소할 수 있습니다.");
+            outboxRepository.save(OrderStatusOutbox.of(payment.getOrderId(), "CANCELLED"));
+            paymentRollupService.transitioned(payment, PaymentStatus.COMPLETED, payment.getPaymentMethod());
+            paymentHistoryService.record(payment);
+            return afterTransition(PaymentStatus.COMPLETED, payment);
+        }));
     }
 
-    @Transactional
+    /**
+     * 환불 원장에 한 건을 추가하고 누적 환불액을 갱신한다.
+     * 행 잠금 대신 버전 검사로 동시 환불을 막으므로, 충돌하면 최신 누적액으로 다시 검증해 재시도한다.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PaymentResponse refundPayment(Long id, RefundRequest request) {
-        Payment payment = findPaymentById(id);
-        payment.refund(request.getRefundAmount(), request.getReason());
-        return PaymentResponse.from(payment);
+        int shard = shardLocator.shardOf(id);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return shardRouter.onShard(shard, () -> transactionTemplate.execute(status -> {
+                    Payment payment = findPaymentById(id);
+                    // 다른 요청이 먼저 전액 환불했거나 아직 승인 전인 결제: 승인·취소와 같이 상태 충돌(409)로 응답한다
+                    if (!payment.isRefundable()) {
+                        throw new PaymentConflictException("완료되거나 취소된 결제만 환불할 수 있습니다.");
+                    }
+                    PaymentStatus from = payment.getStatus();
+                    paymentRollupService.removed(payment);
+                    paymentRefundRepository.save(payment.refund(request.getRefundAmount(), request.getReason()));
+                    paymentRollupService.added(payment);
+                    paymentHistoryService.record(payment);
+                    return afterTransition(from, payment);
+                }));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= refundMaxAttempts) {
+                    throw new PaymentConflictException("동시에 처리 중인 환불이 많습니다. 잠시 후 다시 시도해 주세요.");
+                }
+            }
+        }
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<PaymentRefundResponse> getRefunds(Long paymentId) {
+        return shardRouter.onShard(shardLocator.shardOf(paymentId), () -> {
+            if (!paymentRepository.existsById(paymentId) && !archivedPaymentRepository.existsById(paymentId)) {
+                throw new PaymentNotFoundException("결제 ID " + paymentId + "를 찾을 수 없습니다.");
+            }
+            return paymentRefundRepository.findByPaymentIdOrderByIdAsc(paymentId).stream()
+                    .map(PaymentRefundResponse::from)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    // 캐시 적중 시 DB 커넥션을 점유하지 않도록 트랜잭션 없이 조회한다
+    @Transactional(propagation = Propagation.SUPPORTS)
     public PaymentResponse getPayment(Long id) {
-        return PaymentResponse.from(findPaymentById(id));
+        PaymentResponse cached = paymentCache.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+        // 온라인 테이블에 없으면 보관 테이블에서 찾는다
+        PaymentResponse response = shardRouter.onShard(shardLocator.shardOf(id), () -> paymentRepository.findById(id)
+                .map(PaymentResponse::from)
+                .or(() -> archivedPaymentRepository.findById(id).map(PaymentResponse::from))
+                .orElseThrow(() -> new PaymentNotFoundException("결제 ID " + id + "를 찾을 수 없습니다.")));
+        paymentCache.putIfAbsent(response);
+        return response;
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public PaymentResponse getPaymentByOrderId(Long orderId) {
-        Payment payment = paymentRepository.findByOrderId(orderId)
-                .orElseThrow(() -> new PaymentNotFoundException("주문 ID " + orderId + "에 대한 결제를 찾을 수 없습니다."));
-        return PaymentResponse.from(payment);
+        PaymentResponse cached = paymentCache.getByOrderId(orderId);
+        if (cached != null) {
+            return cached;
+        }
+        PaymentResponse response = shardRouter.onShardOf(orderId, () -> paymentRepository.findByOrderId(orderId)
+                .map(PaymentResponse::from)
+                .or(() -> archivedPaymentRepository.findByOrderId(orderId).map(PaymentResponse::from))
+                .orElseThrow(() -> new PaymentNotFoundException("주문 ID " + orderId + "에 대한 결제를 찾을 수 없습니다.")));
+        paymentCache.putIfAbsent(response);
+        return response;
     }
 
-    public List<PaymentResponse> getPaymentsByUserId(Long userId) {
-        return paymentRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
-                .map(PaymentResponse::from)
-                .collect(Collectors.toList());
+    // 주문 ID 를 샤드별로 나눠 샤드마다 동시에 조회한 뒤 orderId 기준으로 합친다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<Long, PaymentStatusView> getPaymentStatusesByOrderIds(List<Long> orderIds) {
+        Map<Integer, List<Long>> idsByShard = orderIds.stream()
+                .distinct()
+                .collect(Collectors.groupingBy(shardRouter::shardOf));
+        Map<Long, PaymentStatusView> result = new HashMap<>(idsByShard.size() * 2);
+        for (Map<Long, PaymentStatusView> views : shardRouter.scatter(shard ->
+                findStatuses(idsByShard.getOrDefault(shard, List.of())))) {
+            result.putAll(views);
+        }
+        return result;
     }
 
-    public List<PaymentResponse> getAllPayments() {
-        return paymentRepository.findAll().stream()
-                .map(PaymentResponse::from)
+    // IN 절이 너무 길어지지 않도록 나눠서 조회한 뒤 orderId 기준으로 합친다
+    private Map<Long, PaymentStatusView> findStatuses(List<Long> distinctIds) {
+        Map<Long, PaymentStatusView> result = new HashMap<>(distinctIds.size() * 2);
+        for (int from = 0; from < distinctIds.size(); from += STATUS_LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + STATUS_LOOKUP_CHUNK_SIZE, distinctIds.size()));
+            for (PaymentStatusView view : paymentRepository.findStatusViewsByOrderIdIn(chunk)) {
+                result.put(view.getOrderId(), view);
+            }
+        }
+
+        // 온라인 테이블에 없는 주문만 보관 테이블에서 찾는다
+        List<Long> missing = distinctIds.stream().filter(id -> !result.containsKey(id)).collect(Collectors.toList());
+        for (int from = 0; from < missing.size(); from += STATUS_LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + STATUS_LOOKUP_CHUNK_SIZE, missing.size()));
+            for (PaymentStatusView view : archivedPaymentRepository.findStatusViewsByOrderIdIn(chunk)) {
+                result.put(view.getOrderId(), view);
+            }
+        }
+        return result;
+    }
+
+    // 페이지 조회는 모든 샤드에 같은 커서로 보내고 샤드별 결과를 합친다 (샤드당 최대 size + 1 건)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPageResponse<PaymentResponse> getAllPayments(String cursor, Integer size) {
+        PaymentCursor after = PaymentCursor.decode(cursor);
+        Pageable limit = pageLimit(size);
+        return gatherPage(shard -> toResponses(after == null
+                ? paymentRepository.findPage(limit)
+                : paymentRepository.findPageAfter(after.getCreatedAt(), after.getId(), limit)), limit);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPageResponse<PaymentResponse> getPaymentsByStatus(PaymentStatus status, String cursor, Integer size) {
+        PaymentCursor after = PaymentCursor.decode(cursor);
+        Pageable limit = pageLimit(size);
+        return gatherPage(shard -> toResponses(after == null
+                ? paymentRepository.findPageByStatus(status, limit)
+                : paymentRepository.findPageByStatusAfter(status, after.getCreatedAt(), after.getId(), limit)), limit);
+    }
+
+    // 온라인 결제를 먼저 쓰고 이어서 보관된(더 오래된) 결제를 쓴다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamPaymentsByUserId(Long userId, OutputStream out) {
+        streamEachShard(() -> {
+            writeNdjson(paymentRepository.streamByUserId(userId), out);
+            writeArchivedNdjson(archivedPaymentRepository.streamByUserId(userId), out);
+        });
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamAllPayments(OutputStream out) {
+        streamEachShard(() -> writeNdjson(paymentRepository.streamAll(), out));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamPaymentsByStatus(PaymentStatus status, OutputStream out) {
+        streamEachShard(() -> writeNdjson(paymentRepository.streamByStatus(status), out));
+    }
+
+    // 스트림은 읽는 동안 트랜잭션이 열려 있어야 하고 트랜잭션은 한 샤드에 묶이므로 샤드마다 따로 연다.
+    // 샤드 순서로 이어 쓰므로 샤딩 모드에서는 전체 정렬 순서를 보장하지 않는다
+    private void streamEachShard(Runnable write) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        shardRouter.forEachShard(shard -> readOnly.executeWithoutResult(status -> write.run()));
+    }
+
+    // 샤드별 페이지를 (createdAt, id) 내림차순으로 합쳐 앞에서부터 요청 크기만큼 자른다
+    private CursorPageResponse<PaymentResponse> gatherPage(IntFunction<List<PaymentResponse>> query, Pageable limit) {
+        List<PaymentResponse> rows = shardRouter.scatter(query).stream()
+                .flatMap(List::stream)
+                .sorted(NEWEST_FIRST)
+                .limit(limit.getPageSize())
                 .collect(Collectors.toList());
+        return toResponsePage(rows, limit);
+    }
+
+    // 다음 페이지 존재 여부를 알기 위해 요청 크기보다 한 건 더 조회한다
+    private Pageable pageLimit(Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        return PageRequest.of(0, pageSize + 1);
     }
 
-    public List<PaymentResponse> getPaymentsByStatus(PaymentStatus status) {
-        return paymentRepository.findByStatus(status).stream()
+    private List<PaymentResponse> toResponses(List<Payment> rows) {
+        return rows.stream()
                 .map(PaymentResponse::from)
                 .collect(Collectors.toList());
     }
 
+    private CursorPageResponse<PaymentResponse> toResponsePage(List<PaymentResponse> rows, Pageable limit) {
+        int pageSize = limit.getPageSize() - 1;
+        boolean hasNext = rows.size() > pageSize;
+        List<PaymentResponse> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? PaymentCursor.of(content.get(content.size() - 1)).encode() : null;
+        return new CursorPageResponse<>(content, nextCursor, hasNext);
+    }
+
+    // 한 행씩 직렬화 후 영속성 컨텍스트에서 분리해 결과 크기와 무관하게 메모리를 일정하게 유지
+    private void writeNdjson(Stream<Payment> payments, OutputStream out) {
+        try (payments) {
+            Iterator<Payment> iterator = payments.iterator();
+            while (iterator.hasNext()) {
+                Payment payment = iterator.next();
+                out.write(objectMapper.writeValueAsBytes(PaymentResponse.from(payment)));
+                out.write('\n');
+                entityManager.detach(payment);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeArchivedNdjson(Stream<ArchivedPayment> payments, OutputStream out) {
+        try (payments) {
+            Iterator<ArchivedPayment> iterator = payments.iterator();
+            while (iterator.hasNext()) {
+                ArchivedPayment payment = iterator.next();
+                out.write(objectMapper.writeValueAsBytes(PaymentResponse.from(payment)));
+                out.write('\n');
+                entityManager.detach(payment);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private PaymentResponse insertPayment(Payment payment) {
+        Payment saved = paymentRepository.saveAndFlush(payment);
+        replaceArchivedFailed(saved);
+        paymentRollupService.added(saved);
+        paymentHistoryService.record(saved);
+        return afterTransition(null, saved);
+    }
+
+    // 같은 주문의 결제가 승인 실패(FAILED)로 남아 있으면 order_id 유니크 제약에 걸린다.
+    // 이때는 실패한 결제를 지우고 새 결제를 기록해 거절된 주문을 다른 paymentKey 로 다시 결제할 수 있게 한다.
+    // 실패한 결제에는 환불 원장이나 주문 이벤트가 없으므로 지워도 남는 참조가 없다.
+    // 같은 paymentKey 의 재시도나 실패가 아닌 결제와의 충돌은 호출한 쪽에서 처리하도록 그대로 던진다
+    private PaymentResponse insertReplacingFailed(Supplier<Payment> newPayment) {
+        try {
+            return transactionTemplate.execute(status -> insertPayment(newPayment.get()));
+        } catch (DataIntegrityViolationException e) {
+            Payment payment = newPayment.get();
+            Payment failed = paymentRepository.findByOrderId(payment.getOrderId())
+                    .filter(previous -> previous.getStatus() == PaymentStatus.FAILED)
+                    .filter(previous -> payment.getPaymentKey() == null
+                            || !payment.getPaymentKey().equals(previous.getPaymentKey()))
+                    .orElseThrow(() -> e);
+            return transactionTemplate.execute(status -> {
+                if (paymentRepository.deleteIfFailed(failed.getId()) == 0) {
+                    throw e;
+                }
+                paymentRollupService.removed(failed);
+                paymentHistoryService.removed(failed);
+                paymentCache.evictAfterCommit(failed.getId(), failed.getOrderId());
+                return insertPayment(payment);
+            });
+        }
+    }
+
+    // order_id 유니크 제약은 보관 테이블과 따로 걸려 있어, 같은 주문의 결제가 이미 보관됐는지는 여기서 확인한다.
+    // 온라인 행을 넣어 주문 번호를 잠근 뒤 잠금 읽기로 보므로, 보관 작업이 같은 주문을 옮기는 중이어도 둘 중 하나만 커밋된다.
+    // 보관된 결제가 다른 paymentKey 의 승인 실패면 온라인과 같이 지우고 새 결제로 대신한다
+    private void replaceArchivedFailed(Payment payment) {
+        archivedPaymentRepository.findByOrderIdForUpdate(payment.getOrderId()).ifPresent(archived -> {
+            if (archived.getStatus() != PaymentStatus.FAILED || (payment.getPaymentKey() != null
+                    && payment.getPaymentKey().equals(archived.getPaymentKey()))) {
+                throw new PaymentFailedException("이미 해당 주문에 대한 결제가 존재합니다.");
+            }
+            archivedPaymentRepository.delete(archived);
+            archivedPaymentRepository.flush();
+            paymentRollupService.removed(archived);
+            paymentHistoryService.removed(archived);
+            paymentCache.evictAfterCommit(archived.getId(), archived.getOrderId());
+        });
+    }
+
+    // 상태 변경 공통 후처리: 커밋 이후 캐시 갱신과 상태 전이 메트릭 기록
+    private PaymentResponse afterTransition(PaymentStatus from, Payment payment) {
+        PaymentResponse response = PaymentResponse.from(payment);
+        paymentCache.putAfterCommit(response);
+        paymentMetrics.recordTransitionAfterCommit(from, payment.getStatus());
+        return response;
+    }
+
+    // 조건부 UPDATE 가 0건이면 결제가 없거나(404) 다른 요청이 먼저 상태를 바꾼 것(409)이다
+    private Payment transitioned(int updated, Long id, String conflictMessage) {
+        Payment payment = findPaymentById(id);
+        if (updated == 0) {
+            throw new PaymentConflictException(conflictMessage);
+        }
+        return payment;
+    }
+
     private Payment findPaymentById(Long id) {
         return paymentRepository.findById(id)
                 .orElseThrow(() -> new PaymentNotFoundException("결제 ID " + id + "를 찾을 수 없습니다."));
     }
 
-    @Transactional
+    /**
+     * 토스 결제 승인은 단계별로 나누어 진행한다.
+     * 1) 주문 조회(원격) 2) paymentKey 를 가진 PENDING 결제 기록(트랜잭션)
+     * 3) 토스 승인 호출(원격) 4) 승인 결과와 주문 상태 outbox 기록(트랜잭션)
+     * 3~4 단계 사이에 장애가 나더라도 PENDING + paymentKey 행이 남아 토스 조회로 복구할 수 있고,
+     * 주문 상태는 {@link OrderStatusOutboxRelay} 가 커밋 이후 비동기로 전달한다.
+     * 샤딩 모드에서는 모든 단계를 주문 ID 로 고른 샤드에서 처리한다.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PaymentResponse confirmTossPayemnt(TossPaymentRequest request) {
+        TossConfirmRequest confirmRequest = TossRequestSupport.confirmRequest(request);
+        Long actualOrderId = TossRequestSupport.parseOrderId(request.getOrderId());
+        return shardRouter.onShardOf(actualOrderId, () -> confirmTossOnShard(request, confirmRequest, actualOrderId));
+    }
 
-        // 1. Authorization 헤더 생성
-        String encodedKey = Base64.getEncoder().encodeToString((tossSecretKey + ":").getBytes());
-        String authorization = "Basic " + encodedKey;
-        // 2. 요청 바디 생성
-        Map<String, Object> body = new HashMap<>();
-        body.put("paymentKey", request.getPaymentKey());
-        body.put("orderId", request.getOrderId());
-        body.put("amount", request.getAmount());
+    private PaymentResponse confirmTossOnShard(TossPaymentRequest request, TossConfirmRequest confirmRequest,
+                                               Long actualOrderId) {
+        // 0. 이미 처리된 paymentKey 는 토스 호출 없이 기존 결과 반환
+        Optional<PaymentResponse> processed = findProcessedTossPayment(request.getPaymentKey());
+        if (processed.isPresent()) {
+            return processed.get();
+        }
 
+        // 1. orderId(ORDER_123_timestamp 형식)에서 추출한 실제 주문 ID 로 주문자 조회
+        Long userId = getOrderUserId(actualOrderId, BigDecimal.valueOf(request.getAmount()));
 
+        // 2. 승인 요청 전 결제 대기 상태 기록 (payment_key, order_id 유니크 제약으로 동시 중복 요청 차단)
+        Long paymentId;
         try {
-            // 3. Feign Client로 토스 API 호출
-            Map<String, Object> tossResponse = tossPaymentsClient.confirmPayment(authorization, body);
-
-            // 4. orderId에서 실제 주문 ID 추출 (ORDER_123_timestamp 형식)
-            String[] parts = request.getOrderId().split("_");
-            Long actualOrderId = Long.parseLong(parts[1]);
-
-            // 5. 결제 정보 DB 저장
-            Payment payment = Payment.builder()
+            paymentId = insertReplacingFailed(() -> Payment.builder()
                     .orderId(actualOrderId)
-                    .userId(getOrderUserId(actualOrderId))
+                    .userId(userId)
                     .amount(new java.math.BigDecimal(request.getAmount()))
-                    .paymentMethod((String) tossResponse.get("method"))
-                    .status(PaymentStatus.COMPLETED)
+                    .paymentMethod(TOSS_PENDING_METHOD)
+                    .status(PaymentStatus.PENDING)
                     .paymentKey(request.getPaymentKey())
-                    .transactionId((String) tossResponse.get("transactionKey"))
-                    .build();
+                    .build()).getId();
+        } catch (DataIntegrityViolationException e) {
+            return findProcessedTossPayment(request.getPaymentKey())
+                    .orElseThrow(() -> new PaymentFailedException("이미 해당 주문에 대한 결제가 존재합니다."));
+        }
 
-            Payment saved = paymentRepository.save(payment);
+        // 3. 토스 승인 호출
+        TossConfirmResponse tossResponse = requestTossConfirm(confirmRequest, paymentId);
+
+        // 4. 승인 결과와 주문 상태 변경 이벤트를 같은 트랜잭션으로 기록.
+        //    웹훅이 먼저 완료 처리했다면 그 결과를 그대로 돌려준다
+        return transactionTemplate.execute(status -> {
+            int updated = paymentRepository.completeIfPending(paymentId, request.getPaymentKey(),
+                    tossResponse.getTransactionKey(), tossResponse.getMethod(), LocalDateTime.now());
+            Payment payment = findPaymentById(paymentId);
+            if (updated == 0) {
+                return PaymentResponse.from(payment);
+            }
+            outboxRepository.save(OrderStatusOutbox.of(actualOrderId, "CONFIRMED"));
+            paymentRollupService.transitioned(payment, PaymentStatus.PENDING, TOSS_PENDING_METHOD);
+            paymentHistoryService.record(payment);
+            return afterTransition(PaymentStatus.PENDING, payment);
+        });
+    }
+
+    // 완료된 결제는 그대로 반환하고, 처리 중이거나 실패한 결제는 재승인하지 않는다
+    private Optional<PaymentResponse> findProcessedTossPayment(String paymentKey) {
+        return paymentRepository.findByPaymentKey(paymentKey)
+                .map(payment -> {
+                    if (payment.getStatus() == PaymentStatus.PENDING) {
+                        throw new PaymentConflictException("같은 paymentKey 의 결제 승인이 처리 중입니다.");
+                    }
+                    if (payment.getStatus() == PaymentStatus.FAILED) {
+                        throw new PaymentFailedException("이미 승인에 실패한 paymentKey 입니다.");
+                    }
+                    return PaymentResponse.from(payment);
+                });
+    }
 
-            // 6. 주문 상태 업데이트
-            orderServiceClient.updateOrderStatus(actualOrderId, "CONFIRMED");
+    // 토스가 오류 코드로 거절한 경우에만 대기 중인 결제를 실패 처리한다.
+    // 타임아웃·I/O 오류·5xx·해석할 수 없는 응답은 토스가 이미 승인했을 수 있으므로 PENDING 으로 남겨 정산기가 토스 조회로 확정한다
+    private TossConfirmResponse requestTossConfirm(TossConfirmRequest confirmRequest, Long paymentId) {
+        TossConfirmResponse response;
+        try {
+            response = tossPaymentsClient.confirmPayment(tossAuthorization.header(), confirmRequest);
+        } catch (RemoteServiceUnavailableException e) {
+            // 토스에 요청이 전달되지 않았으므로 대기 행을 지워 같은 paymentKey 로 재시도할 수 있게 한다
+            transactionTemplate.executeWithoutResult(status -> {
+                Payment payment = findPaymentById(paymentId);
+                paymentRepository.delete(payment);
+                paymentRollupService.removed(payment);
+                paymentHistoryService.removed(payment);
+                paymentCache.evictAfterCommit(payment.getId(), payment.getOrderId());
+            });
+            throw e;
+        } catch (DecodeException e) {
+            throw new TossResponseException("토스페이먼츠 응답을 해석할 수 없습니다: " + e.getMessage());
+        } catch (FeignException e) {
+            String errorCode = e.status() >= 400 && e.status() < 500 ? tossErrorCode(e) : null;
+            if (errorCode == null || ALREADY_PROCESSED_PAYMENT.equals(errorCode)) {
+                log.warn("토스 승인 결과 미확정, PENDING 유지 paymentId={}, status={}", paymentId, e.status(), e);
+                throw new TossResponseException("토스페이먼츠 승인 결과를 확인하지 못했습니다. 잠시 후 다시 조회해 주세요.");
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (paymentRepository.failIfPending(paymentId, LocalDateTime.now()) > 0) {
+                    Payment payment = findPaymentById(paymentId);
+                    paymentRollupService.transitioned(payment, PaymentStatus.PENDING, payment.getPaymentMethod());
+                    paymentHistoryService.record(payment);
+                    afterTransition(PaymentStatus.PENDING, payment);
+                }
+            });
+            throw new PaymentFailedException("토스페이먼츠 결제 승인 실패: " + errorCode);
+        }
 
-            return PaymentResponse.from(saved);
+        if (response == null || response.getMethod() == null) {
+            throw new TossResponseException("토스페이먼츠 응답에 결제 수단이 없습니다.");
+        }
+        return response;
+    }
+
+    // 토스 오류 응답({"code": ..., "message": ...})의 code. 본문이 없거나 형식이 다르면 null
+    private String tossErrorCode(FeignException e) {
+        try {
+            String body = e.contentUTF8();
+            if (body == null || body.isBlank()) {
+                return null;
+            }
+            JsonNode code = objectMapper.readTree(body).get("code");
+            return code != null && code.isTextual() ? code.asText() : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    // 주문 조회 (짧은 TTL 캐시 + 동시 요청 병합). 없는 주문은 결제 실패로 처리한다
+    private OrderResponse getOrder(Long orderId) {
+        try {
+            return orderCache.getOrder(orderId);
+        } catch (FeignException.NotFound e) {
+            throw new PaymentFailedException("주문 ID " + orderId + "를 찾을 수 없습니다.");
+        }
+    }
 
-        } catch (Exception e) {
-            throw new PaymentFailedException("토스페이먼츠 결제 승인 실패: " + e.getMessage());
+    private void validateAmount(OrderResponse order, BigDecimal amount) {
+        if (order.getTotalPrice() != null && order.getTotalPrice().compareTo(amount) != 0) {
+            throw new PaymentFailedException("결제 금액(" + amount + ")이 주문 금액(" + order.getTotalPrice() + ")과 일치하지 않습니다.");
         }
     }
 
-    // 주문에서 userId 가져오기
-    private Long getOrderUserId(Long orderId) {
+    // 주문자 조회와 금액 검증. 조회 실패 시 임의의 사용자로 기록하지 않고 설정된 정책을 따른다.
+    // 기본 사용자 대체 정책에서는 주문을 확인할 수 없으므로 금액 검증도 건너뛴다
+    private Long getOrderUserId(Long orderId, BigDecimal amount) {
         try {
-            OrderResponse order = orderServiceClient.getOrder(orderId);
+            OrderResponse order = orderCache.getOrder(orderId);
+            validateAmount(order, amount);
             return order.getUserId();
-        } catch (Exception e) {
-            return 1L;
+        } catch (FeignException.NotFound e) {
+            throw new PaymentFailedException("주문 ID " + orderId + "를 찾을 수 없습니다.");
+        } catch (RemoteServiceUnavailableException | FeignException e) {
+            if (outboundPolicy.getOrderUserFallback() == OrderUserFallback.DEFAULT_USER
+                    && outboundPolicy.getDefaultUserId() != null) {
+                log.warn("주문자 조회 실패, 기본 사용자로 기록 orderId={}", orderId, e);
+                return outboundPolicy.getDefaultUserId();
+            }
+            throw new RemoteServiceUnavailableException("order-service", "주문 정보를 조회할 수 없습니다: " + e.getMessage());
         }
     }
 
@@ -0,0 +1,61 @@
+package mzc.shopping.payment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.exception.PaymentNotFoundException;
+import mzc.shopping.payment.repository.ArchivedPaymentRepository;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 결제 ID 로 결제가 있는 샤드를 찾는다. 결제 ID 에는 주문 ID 가 없으므로 모든 샤드에 동시에 묻고,
+ * 결제는 샤드를 옮기지 않으므로(보관도 같은 샤드) 찾은 결과를 캐시한다.
+ */
+@Component
+public class PaymentShardLocator {
+
+    private final ShardRouter shardRouter;
+    private final PaymentRepository paymentRepository;
+    private final ArchivedPaymentRepository archivedPaymentRepository;
+    private final Cache<Long, Integer> shardsByPaymentId;
+
+    public PaymentShardLocator(ShardRouter shardRouter,
+                               PaymentRepository paymentRepository,
+                               ArchivedPaymentRepository archivedPaymentRepository,
+                               @Value("${payment.sharding.locator-cache-size:100000}") long cacheSize,
+                               MeterRegistry meterRegistry) {
+        this.shardRouter = shardRouter;
+        this.paymentRepository = paymentRepository;
+        this.archivedPaymentRepository = archivedPaymentRepository;
+        this.shardsByPaymentId = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, shardsByPaymentId, "payment.shard-by-id");
+    }
+
+    // 샤딩을 쓰지 않으면 조회 없이 0번 샤드를 돌려주고, 결제 존재 여부는 호출자가 확인한다
+    public int shardOf(Long paymentId) {
+        if (!shardRouter.isSharded()) {
+            return 0;
+        }
+        Integer cached = shardsByPaymentId.getIfPresent(paymentId);
+        if (cached != null) {
+            return cached;
+        }
+        List<Boolean> found = shardRouter.scatter(shard ->
+                paymentRepository.existsById(paymentId) || archivedPaymentRepository.existsById(paymentId));
+        int shard = found.indexOf(Boolean.TRUE);
+        if (shard < 0) {
+            throw new PaymentNotFoundException("결제 ID " + paymentId + "를 찾을 수 없습니다.");
+        }
+        shardsByPaymentId.put(paymentId, shard);
+        return shard;
+    }
+}
@@ -0,0 +1,48 @@
+package mzc.shopping.payment.service;
+
+import mzc.shopping.payment.client.TossConfirmRequest;
+import mzc.shopping.payment.dto.TossPaymentRequest;
+import mzc.shopping.payment.exception.InvalidTossRequestException;
+
+/**
+ * 토스 결제 승인 요청 구성과 orderId 파싱.
+ * 요청마다 실행되는 경로라 JMH 벤치마크(src/jmh)에서 직접 측정할 수 있도록 분리해 두었다.
+ */
+public final class TossRequestSupport {
+
+    private TossRequestSupport() {
+    }
+
+    public static TossConfirmRequest confirmRequest(TossPaymentRequest request) {
+        if (request.getPaymentKey() == null || request.getPaymentKey().isBlank() || request.getAmount() == null) {
+            throw new InvalidTossRequestException("paymentKey 와 amount 는 필수입니다.");
+        }
+        return new TossConfirmRequest(request.getPaymentKey(), request.getOrderId(), request.getAmount());
+    }
+
+    /**
+     * ORDER_123_timestamp 형식의 토스 orderId에서 주문 ID(123) 추출.
+     * 정규식/split 없이 첫 번째와 두 번째 '_' 사이의 숫자만 읽는다.
+     */
+    public static long parseOrderId(String tossOrderId) {
+        if (tossOrderId == null) {
+            throw new InvalidTossRequestException("orderId 는 필수입니다.");
+        }
+        int start = tossOrderId.indexOf('_') + 1;
+        if (start == 0) {
+            throw new InvalidTossRequestException("orderId 형식이 올바르지 않습니다: " + tossOrderId);
+        }
+        int end = tossOrderId.indexOf('_', start);
+        if (end < 0) {
+            end = tossOrderId.length();
+        }
+        if (start == end) {
+            throw new InvalidTossRequestException("orderId 형식이 올바르지 않습니다: " + tossOrderId);
+        }
+        try {
+            return Long.parseLong(tossOrderId, start, end, 10);
+        } catch (NumberFormatException e) {
+            throw new InvalidTossRequestException("orderId 형식이 올바르지 않습니다: " + tossOrderId);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package mzc.shopping.payment.service;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mzc.shopping.payment.client.TossAuthorization;
+import mzc.shopping.payment.client.TossConfirmResponse;
+import mzc.shopping.payment.client.TossPaymentsClient;
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.dto.TossWebhookEvent;
+import mzc.shopping.payment.entity.OrderStatusOutbox;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.entity.TossWebhookEventRecord;
+import mzc.shopping.payment.exception.InvalidTossRequestException;
+import mzc.shopping.payment.repository.OrderStatusOutboxRepository;
+import mzc.shopping.payment.repository.PaymentRepository;
+import mzc.shopping.payment.repository.TossWebhookEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 토스 웹훅 비동기 반영.
+ * 요청 스레드는 이벤트를 toss_webhook_events 에 저장한 뒤에만 200 으로 응답하므로, 재시작해도 받은 이벤트를 잃지 않는다.
+ * 같은 이벤트의 재전송은 이벤트 ID 기본 키로 걸러낸다.
+ * 스케줄러가 반영 대기 중인 이벤트를 배치로 읽어 결제(paymentKey)별로 묶고, 본문의 상태를 믿지 않고
+ * 토스 결제 조회 결과로 전이한다. 웹훅은 인증되지 않은 요청이므로 본문은 "이 결제를 다시 확인하라"는 신호로만 쓴다.
+ * 아직 커밋되지 않은 결제에 대한 이벤트는 처리 완료로 표시하지 않고 백오프로 다시 시도한다.
+ * 여러 인스턴스가 같은 이벤트를 동시에 반영해도 상태 전이가 조건부이므로 한 번만 전이된다.
+ * 샤딩 모드에서는 이벤트의 주문 ID 로 샤드를 골라 저장하고 샤드마다 차례로 반영한다.
+ */
+@Slf4j
+@Component
+public class TossWebhookProcessor {
+
+    private final PaymentRepository paymentRepository;
+    private final OrderStatusOutboxRepository outboxRepository;
+    private final TossWebhookEventRepository webhookEventRepository;
+    private final TossPaymentsClient tossPaymentsClient;
+    private final TossAuthorization tossAuthorization;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentCache paymentCache;
+    private final PaymentMetrics paymentMetrics;
+    private final PaymentRollupService paymentRollupService;
+    private final PaymentHistoryService paymentHistoryService;
+    private final ShardRouter shardRouter;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor workers;
+    private final Timer batchTimer;
+    private final AtomicLong backlog = new AtomicLong();
+
+    @Value("${payment.webhook.batch-size:500}")
+    private int batchSize;
+    @Value("${payment.webhook.retention:7d}")
+    private Duration retention;
+    @Value("${payment.webhook.initial-backoff:1s}")
+    private Duration initialBackoff;
+    @Value("${payment.webhook.max-backoff:5m}")
+    private Duration maxBackoff;
+
+    public TossWebhookProcessor(PaymentRepository paymentRepository,
+                                OrderStatusOutboxRepository outboxRepository,
+                                TossWebhookEventRepository webhookEventRepository,
+                                TossPaymentsClient tossPaymentsClient,
+                                TossAuthorization tossAuthorization,
+                                TransactionTemplate transactionTemplate,
+                                PaymentCache paymentCache,
+                                PaymentMetrics paymentMetrics,
+                                PaymentRollupService paymentRollupService,
+                                PaymentHistoryService paymentHistoryService,
+                                ShardRouter shardRouter,
+                                MeterRegistry meterRegistry,
+                                @Value("${payment.webhook.parallelism:8}") int parallelism) {
+        this.paymentRepository = paymentRepository;
+        this.outboxRepository = outboxRepository;
+        this.webhookEventRepository = webhookEventRepository;
+        this.tossPaymentsClient = tossPaymentsClient;
+        this.tossAuthorization = tossAuthorization;
+        this.transactionTemplate = transactionTemplate;
+        this.paymentCache = paymentCache;
+        this.paymentMetrics = paymentMetrics;
+        this.paymentRollupService = paymentRollupService;
+        this.paymentHistoryService = paymentHistoryService;
+        this.shardRouter = shardRouter;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 큐가 차면 반영 스레드가 직접 조회해 자연스럽게 속도가 조절된다
+        this.workers = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 4),
+                runnable -> new Thread(runnable, "toss-webhook-verifier-" + threadNumber.incrementAndGet()),
+                (runnable, executor) -> runnable.run());
+        this.batchTimer = meterRegistry.timer("payment.webhook.batch");
+        Gauge.builder("payment.webhook.queue.depth", backlog, AtomicLong::get)
+                .description("반영 대기 중인 토스 웹훅 이벤트 수")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // 이벤트를 저장한 뒤에 반환한다. 저장에 실패하면 예외가 그대로 전파되어 토스가 재전송한다
+    public void receive(TossWebhookEvent event) {
+        if (!isPaymentStatusChange(event)) {
+            events("ignored").increment();
+            return;
+        }
+        Integer shard = shardOf(event.getData());
+        if (shard == null) {
+            events("unroutable").increment();
+            return;
+        }
+        TossWebhookEventRecord record = TossWebhookEventRecord.received(eventId(event),
+                event.getData().getPaymentKey(), event.getData().getStatus());
+        try {
+            shardRouter.onShard(shard, () -> transactionTemplate.execute(status ->
+                    webhookEventRepository.saveAndFlush(record)));
+            events("accepted").increment();
+        } catch (DataIntegrityViolationException e) {
+            // 이미 저장된 이벤트의 재전송
+            events("duplicate").increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.webhook.apply-interval:500}")
+    public void applyPending() {
+        shardRouter.forEachShard(shard -> batchTimer.record(this::applyDue));
+        backlog.set(shardRouter.scatter(shard -> webhookEventRepository.countByProcessedAtIsNull()).stream()
+                .mapToLong(Long::longValue)
+                .sum());
+    }
+
+    @Scheduled(fixedDelayString = "${payment.webhook.purge-interval:3600000}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        shardRouter.forEachShard(shard -> transactionTemplate.executeWithoutResult(status ->
+                webhookEventRepository.deleteReceivedBefore(cutoff)));
+    }
+
+    private void applyDue() {
+        List<TossWebhookEventRecord> due = webhookEventRepository.findDue(LocalDateTime.now(),
+                PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return;
+        }
+        // 같은 결제의 이벤트는 토스 조회 한 번으로 함께 처리한다
+        Map<String, List<TossWebhookEventRecord>> byPaymentKey = due.stream()
+                .collect(Collectors.groupingBy(TossWebhookEventRecord::getPaymentKey, LinkedHashMap::new,
+                        Collectors.toList()));
+        Map<String, Payment> payments = paymentRepository.findByPaymentKeyIn(byPaymentKey.keySet()).stream()
+                .collect(Collectors.toMap(Payment::getPaymentKey, Function.identity()));
+
+        // 토스 조회는 DB 트랜잭션 밖에서 제한된 작업 풀로 병렬 실행한다
+        List<Verdict> verdicts = byPaymentKey.keySet().stream()
+                .map(paymentKey -> CompletableFuture.supplyAsync(
+                        () -> verify(paymentKey, payments.get(paymentKey)), workers))
+                .toList()
+                .stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        try {
+            record(transactionTemplate.execute(status -> apply(verdicts, byPaymentKey)));
+        } catch (Exception e) {
+            // 한 결제 때문에 배치 전체가 버려지지 않도록 결제 단위로 나눠 다시 반영
+            log.warn("토스 웹훅 배치 반영 실패, 결제별로 재시도 payments={}", verdicts.size(), e);
+            for (Verdict verdict : verdicts) {
+                try {
+                    record(transactionTemplate.execute(status -> apply(List.of(verdict), byPaymentKey)));
+                } catch (Exception ex) {
+                    List<TossWebhookEventRecord> records = byPaymentKey.get(verdict.paymentKey());
+                    events("failed").increment(records.size());
+                    log.error("토스 웹훅 반영 실패 paymentKey={}", verdict.paymentKey(), ex);
+                    transactionTemplate.executeWithoutResult(status -> retryLater(records, LocalDateTime.now()));
+                }
+            }
+        }
+    }
+
+    // 원격 상태만 확인하고 DB 는 건드리지 않는다
+    private Verdict verify(String paymentKey, Payment payment) {
+        if (payment == null) {
+            // 승인 트랜잭션이 아직 커밋되지 않았을 수 있다
+            return Verdict.of(paymentKey, Outcome.UNKNOWN);
+        }
+        if (payment.getStatus() != PaymentStatus.PENDING && payment.getStatus() != PaymentStatus.COMPLETED) {
+            return Verdict.of(paymentKey, Outcome.SETTLED);
+        }
+        TossConfirmResponse toss;
+        try {
+            toss = tossPaymentsClient.getPayment(tossAuthorization.header(), paymentKey);
+        } catch (FeignException.NotFound e) {
+            log.warn("토스에 없는 결제에 대한 웹훅 paymentKey={}", paymentKey);
+            return Verdict.of(paymentKey, Outcome.REJECTED);
+        } catch (Exception e) {
+            log.warn("토스 결제 조회 실패, 다시 시도 paymentKey={}", paymentKey, e);
+            return Verdict.of(paymentKey, Outcome.RETRY);
+        }
+        if ("DONE".equals(toss.getStatus()) && toss.getTotalAmount() != null
+                && payment.getAmount().longValue() != toss.getTotalAmount()) {
+            log.error("토스 승인 금액 불일치 paymentId={}, paymentKey={}, amount={}, tossAmount={}",
+                    payment.getId(), paymentKey, payment.getAmount(), toss.getTotalAmount());
+            return Verdict.of(paymentKey, Outcome.MISMATCH);
+        }
+        return new Verdict(paymentKey, Outcome.VERIFIED, toss);
+    }
+
+    private Map<String, Integer> apply(List<Verdict> verdicts, Map<String, List<TossWebhookEventRecord>> byPaymentKey) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Integer> results = new HashMap<>();
+        for (Verdict verdict : verdicts) {
+            List<TossWebhookEventRecord> records = byPaymentKey.get(verdict.paymentKey());
+            List<String> eventIds = records.stream().map(TossWebhookEventRecord::getEventId).toList();
+            String result = switch (verdict.outcome()) {
+                case VERIFIED -> transition(verdict.paymentKey(), verdict.toss(), now) ? "applied" : "ignored";
+                case UNKNOWN, RETRY -> {
+                    retryLater(records, now);
+                    yield verdict.outcome().name().toLowerCase();
+                }
+                default -> verdict.outcome().name().toLowerCase();
+            };
+            if (verdict.outcome() != Outcome.UNKNOWN && verdict.outcome() != Outcome.RETRY) {
+                webhookEventRepository.markProcessed(eventIds, result, now);
+            }
+            results.merge(result, records.size(), Integer::sum);
+        }
+        return results;
+    }
+
+    // 토스에서 확인한 상태를 조건부 UPDATE 로 반영한다. 이미 같은 상태이거나 허용되지 않는 전이는 무시한다
+    private boolean transition(String paymentKey, TossConfirmResponse toss, LocalDateTime now) {
+        Payment before = paymentRepository.findByPaymentKey(paymentKey).orElseThrow();
+        boolean changed = switch (toss.getStatus()) {
+            case "DONE" -> {
+                if (paymentRepository.completeIfPending(before.getId(), paymentKey, toss.getTransactionKey(),
+                        toss.getMethod(), now) == 0) {
+                    yield false;
+                }
+                outboxRepository.save(OrderStatusOutbox.of(before.getOrderId(), "CONFIRMED"));
+                yield true;
+            }
+            case "CANCELED" -> {
+                if (before.getStatus() == PaymentStatus.PENDING) {
+                    yield paymentRepository.failIfPending(before.getId(), now) > 0;
+                }
+                if (paymentRepository.cancelIfCompleted(before.getId(), "토스페이먼츠 결제 취소", now) == 0) {
+                    yield false;
+                }
+                outboxRepository.save(OrderStatusOutbox.of(before.getOrderId(), "CANCELLED"));
+                yield true;
+            }
+            case "ABORTED", "EXPIRED" -> paymentRepository.failIfPending(before.getId(), now) > 0;
+            default -> false;
+        };
+        if (changed) {
+            // 조건부 UPDATE 는 영속성 컨텍스트를 비우므로 갱신된 행을 다시 읽는다
+            Payment payment = paymentRepository.findById(before.getId()).orElseThrow();
+            paymentRollupService.transitioned(payment, before.getStatus(), before.getPaymentMethod());
+            paymentHistoryService.record(payment);
+            paymentCache.putAfterCommit(PaymentResponse.from(payment));
+            paymentMetrics.recordTransitionAfterCommit(before.getStatus(), payment.getStatus());
+        }
+        return changed;
+    }
+
+    private void retryLater(List<TossWebhookEventRecord> records, LocalDateTime now) {
+        int attempts = records.stream().mapToInt(TossWebhookEventRecord::getAttempts).min().orElse(0);
+        webhookEventRepository.scheduleRetry(records.stream().map(TossWebhookEventRecord::getEventId).toList(),
+                now.plus(backoff(attempts)));
+    }
+
+    // 롤백된 시도가 집계되지 않도록 커밋된 결과만 기록한다
+    private void record(Map<String, Integer> results) {
+        results.forEach((result, count) -> events(result).increment(count));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    // 샤딩을 쓰지 않으면 주문 ID 를 보지 않는다. 주문 ID 를 해석할 수 없으면 저장할 샤드를 알 수 없다
+    private Integer shardOf(TossConfirmResponse data) {
+        if (!shardRouter.isSharded()) {
+            return 0;
+        }
+        try {
+            return shardRouter.shardOf(TossRequestSupport.parseOrderId(data.getOrderId()));
+        } catch (InvalidTossRequestException e) {
+            log.warn("토스 웹훅 주문 ID 해석 실패 paymentKey={}, orderId={}", data.getPaymentKey(), data.getOrderId());
+            return null;
+        }
+    }
+
+    private boolean isPaymentStatusChange(TossWebhookEvent event) {
+        return TossWebhookEvent.PAYMENT_STATUS_CHANGED.equals(event.getEventType())
+                && event.getData() != null
+                && event.getData().getPaymentKey() != null
+                && event.getData().getStatus() != null;
+    }
+
+    // 토스 재전송은 본문이 같으므로 이벤트 시각과 결제 상태로 ID 를 만든다
+    private String eventId(TossWebhookEvent event) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(event.getData().getPaymentKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '|');
+            digest.update(event.getData().getStatus().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '|');
+            digest.update(String.valueOf(event.getCreatedAt()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("웹훅 이벤트 ID 생성 실패", e);
+        }
+    }
+
+    private Counter events(String result) {
+        return meterRegistry.counter("payment.webhook.events", "result", result);
+    }
+
+    private enum Outcome {
+        VERIFIED,   // 토스 조회 결과로 전이
+        UNKNOWN,    // 결제가 아직 없다 → 재시도
+        RETRY,      // 토스 조회 실패 → 재시도
+        SETTLED,    // 더 바뀔 수 없는 상태
+        REJECTED,   // 토스에 없는 결제
+        MISMATCH    // 토스 승인 금액과 결제 금액이 다르다
+    }
+
+    private record Verdict(String paymentKey, Outcome outcome, TossConfirmResponse toss) {
+        static Verdict of(String paymentKey, Outcome outcome) {
+            return new Verdict(paymentKey, outcome, null);
+        }
+    }
+}
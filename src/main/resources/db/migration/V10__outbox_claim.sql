@@ -0,0 +1,3 @@
+-- 릴레이가 주문 단위로 이벤트를 선점한 만료 시각. 선점이 살아 있는 주문은 다른 인스턴스가 보내지 않는다
+
+alter table order_status_outbox add column claimed_until datetime(6);
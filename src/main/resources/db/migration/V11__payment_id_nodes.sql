@@ -0,0 +1,8 @@
+-- Snowflake 노드 번호를 쓰는 인스턴스와 lease 만료 시각. 같은 번호로 두 인스턴스가 기동하지 못하게 한다
+
+create table payment_id_nodes (
+    node_id     int         not null,
+    instance_id varchar(64) not null,
+    lease_until datetime(6) not null,
+    primary key (node_id)
+) engine = InnoDB;
@@ -0,0 +1,20 @@
+-- ddl-auto(update) 로 관리되던 스키마 그대로의 기준선. 기존 DB 는 baseline-on-migrate 로 이 버전부터 시작하므로
+-- 이 파일에는 그 시점에 이미 있던 객체만 둔다. 이후 추가된 테이블과 제약은 V2 부터 만든다.
+
+create table payments (
+    id             bigint         not null auto_increment,
+    order_id       bigint         not null,
+    user_id        bigint         not null,
+    amount         decimal(38, 2) not null,
+    payment_method varchar(255)   not null,
+    status         enum ('PENDING', 'COMPLETED', 'FAILED', 'CANCELLED', 'REFUNDED') not null,
+    payment_key    varchar(255),
+    transaction_id varchar(255),
+    cancel_reason  varchar(255),
+    refund_amount  decimal(38, 2),
+    paid_at        datetime(6),
+    cancelled_at   datetime(6),
+    created_at     datetime(6),
+    updated_at     datetime(6),
+    primary key (id)
+) engine = InnoDB;
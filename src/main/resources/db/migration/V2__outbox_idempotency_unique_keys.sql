@@ -0,0 +1,79 @@
+-- Hibernate 가 만든 enum 컬럼을 문자열로 바꿔 이후 추가되는 결제 상태를 마이그레이션 없이 저장할 수 있게 한다
+alter table payments modify status varchar(20) not null;
+
+-- 유니크 키를 걸기 전에 중복 결제를 payments_duplicates 로 옮긴다 (삭제하지 않고 수동 확인용으로 보관).
+-- 남기는 행: 승인된 결제(완료·취소·환불) 우선, 같으면 가장 최근 행
+create table payments_duplicates (
+    id             bigint         not null,
+    order_id       bigint         not null,
+    user_id        bigint         not null,
+    amount         decimal(38, 2) not null,
+    payment_method varchar(255)   not null,
+    status         varchar(20)    not null,
+    payment_key    varchar(255),
+    transaction_id varchar(255),
+    cancel_reason  varchar(255),
+    refund_amount  decimal(38, 2),
+    paid_at        datetime(6),
+    cancelled_at   datetime(6),
+    created_at     datetime(6),
+    updated_at     datetime(6),
+    duplicate_of   varchar(20)    not null,
+    primary key (id)
+) engine = InnoDB;
+
+insert into payments_duplicates
+    (id, order_id, user_id, amount, payment_method, status, payment_key, transaction_id, cancel_reason,
+     refund_amount, paid_at, cancelled_at, created_at, updated_at, duplicate_of)
+select id, order_id, user_id, amount, payment_method, status, payment_key, transaction_id, cancel_reason,
+       refund_amount, paid_at, cancelled_at, created_at, updated_at, 'order_id'
+from (select p.*,
+             row_number() over (partition by order_id
+                 order by case when status in ('COMPLETED', 'CANCELLED', 'REFUNDED') then 0 else 1 end,
+                          id desc) as position
+      from payments p) ranked
+where position > 1;
+
+delete from payments where id in (select id from payments_duplicates);
+
+alter table payments add constraint uk_payments_order_id unique (order_id);
+
+insert into payments_duplicates
+    (id, order_id, user_id, amount, payment_method, status, payment_key, transaction_id, cancel_reason,
+     refund_amount, paid_at, cancelled_at, created_at, updated_at, duplicate_of)
+select id, order_id, user_id, amount, payment_method, status, payment_key, transaction_id, cancel_reason,
+       refund_amount, paid_at, cancelled_at, created_at, updated_at, 'payment_key'
+from (select p.*,
+             row_number() over (partition by payment_key
+                 order by case when status in ('COMPLETED', 'CANCELLED', 'REFUNDED') then 0 else 1 end,
+                          id desc) as position
+      from payments p
+      where payment_key is not null) ranked
+where position > 1;
+
+delete from payments where id in (select id from payments_duplicates where duplicate_of = 'payment_key');
+
+alter table payments add constraint uk_payments_payment_key unique (payment_key);
+
+-- 결제 변경과 같은 트랜잭션에서 기록하는 주문 상태 이벤트 (OrderStatusOutboxRelay 가 전달 후 삭제)
+create table order_status_outbox (
+    id              bigint       not null auto_increment,
+    order_id        bigint       not null,
+    status          varchar(255) not null,
+    attempts        integer      not null,
+    next_attempt_at datetime(6)  not null,
+    created_at      datetime(6),
+    primary key (id)
+) engine = InnoDB;
+
+-- Idempotency-Key 별 요청 지문과 응답. claimed_at 은 처리 중인 요청의 선점 시각 (lease 기준)
+create table idempotency_keys (
+    idempotency_key varchar(100) not null,
+    fingerprint     varchar(64)  not null,
+    status          varchar(20)  not null,
+    response_body   longtext,
+    created_at      datetime(6),
+    claimed_at      datetime(6),
+    completed_at    datetime(6),
+    primary key (idempotency_key)
+) engine = InnoDB;
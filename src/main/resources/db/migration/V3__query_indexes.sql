@@ -0,0 +1,14 @@
+-- PaymentRepository 조회 형태에 맞춘 복합 인덱스
+-- findPageByUserId*, findByUserIdOrderByCreatedAtDesc, findByUserId(AndStatus)
+create index idx_payments_user_created on payments (user_id, created_at, id);
+-- findByStatus, findPageByStatus*
+create index idx_payments_status_created on payments (status, created_at, id);
+-- findPage*, streamAll
+create index idx_payments_created on payments (created_at, id);
+
+-- OrderStatusOutboxRepository.findDue / deleteDelivered / scheduleRetry
+create index idx_outbox_next_attempt on order_status_outbox (next_attempt_at, id);
+create index idx_outbox_order on order_status_outbox (order_id, id);
+
+-- IdempotencyRecordRepository.deleteCreatedBefore
+create index idx_idempotency_created on idempotency_keys (created_at);
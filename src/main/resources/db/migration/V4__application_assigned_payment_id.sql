@@ -0,0 +1,2 @@
+-- payments.id 는 애플리케이션(SnowflakeIdGenerator)이 insert 전에 할당한다
+alter table payments modify id bigint not null;
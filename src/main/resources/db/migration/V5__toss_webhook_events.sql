@@ -0,0 +1,17 @@
+-- 받은 토스 웹훅 이벤트. 응답 전에 저장하고 반영하면 processed_at 을 기록한다.
+-- event_id 기본 키로 재전송을 걸러내며, payment.webhook.retention 이 지나면 삭제된다.
+
+create table toss_webhook_events (
+    event_id        varchar(64)  not null,
+    payment_key     varchar(255) not null,
+    status          varchar(30),
+    received_at     datetime(6),
+    attempts        integer      not null,
+    next_attempt_at datetime(6)  not null,
+    processed_at    datetime(6),
+    outcome         varchar(20),
+    primary key (event_id)
+) engine = InnoDB;
+
+create index idx_toss_webhook_received on toss_webhook_events (received_at);
+create index idx_toss_webhook_due on toss_webhook_events (processed_at, next_attempt_at);
@@ -0,0 +1,20 @@
+-- 부분/다회 환불 원장과 결제 행 낙관적 락 버전
+
+alter table payments add column version bigint not null default 0;
+
+create table payment_refunds (
+    id         bigint         not null auto_increment,
+    payment_id bigint         not null,
+    amount     decimal(38, 2) not null,
+    reason     varchar(255),
+    created_at datetime(6),
+    primary key (id)
+) engine = InnoDB;
+
+create index idx_payment_refunds_payment on payment_refunds (payment_id, id);
+
+-- 기존 환불은 한 건짜리 원장으로 옮긴다
+insert into payment_refunds (payment_id, amount, reason, created_at)
+select id, refund_amount, cancel_reason, cancelled_at
+from payments
+where refund_amount is not null;
@@ -0,0 +1,24 @@
+-- 결제 일별 집계와 집계 증분. 기존 결제는 POST /api/payments/rollups/rebuild 로 채운다
+
+create table payment_rollup_deltas (
+    id             bigint         not null auto_increment,
+    payment_date   date           not null,
+    status         varchar(20)    not null,
+    payment_method varchar(255)   not null,
+    count_delta    integer        not null,
+    amount_delta   decimal(38, 2) not null,
+    refund_delta   decimal(38, 2) not null,
+    primary key (id)
+) engine = InnoDB;
+
+create index idx_rollup_deltas_date on payment_rollup_deltas (payment_date);
+
+create table payment_daily_rollups (
+    payment_date   date           not null,
+    status         varchar(20)    not null,
+    payment_method varchar(255)   not null,
+    payment_count  bigint         not null,
+    total_amount   decimal(38, 2) not null,
+    refund_amount  decimal(38, 2) not null,
+    primary key (payment_date, status, payment_method)
+) engine = InnoDB;
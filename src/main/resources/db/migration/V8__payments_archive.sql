@@ -0,0 +1,25 @@
+-- 보관 기간이 지난 종료 상태 결제. 읽기 전용이라 압축 행 형식으로 저장한다 (innodb_file_per_table 필요)
+
+create table payments_archive (
+    id             bigint         not null,
+    order_id       bigint         not null,
+    user_id        bigint         not null,
+    amount         decimal(38, 2) not null,
+    payment_method varchar(255)   not null,
+    status         varchar(20)    not null,
+    payment_key    varchar(255),
+    transaction_id varchar(255),
+    cancel_reason  varchar(255),
+    refund_amount  decimal(38, 2),
+    paid_at        datetime(6),
+    cancelled_at   datetime(6),
+    created_at     datetime(6),
+    updated_at     datetime(6),
+    archived_at    datetime(6),
+    primary key (id),
+    constraint uk_payments_archive_order_id unique (order_id)
+) engine = InnoDB row_format = compressed;
+
+create index idx_payments_archive_user_created on payments_archive (user_id, created_at, id);
+create index idx_payments_archive_created on payments_archive (created_at, id);
+create index idx_payments_archive_payment_key on payments_archive (payment_key);
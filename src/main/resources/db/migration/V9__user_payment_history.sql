@@ -0,0 +1,37 @@
+-- 사용자별 결제 내역 조회 모델과 사용자별 변경 버전(ETag). 결제 상태 전이와 같은 트랜잭션에서 갱신한다
+
+create table user_payment_history (
+    payment_id     bigint         not null,
+    user_id        bigint         not null,
+    order_id       bigint         not null,
+    amount         decimal(38, 2) not null,
+    refund_amount  decimal(38, 2),
+    status         varchar(20)    not null,
+    payment_method varchar(255)   not null,
+    created_at     datetime(6)    not null,
+    primary key (payment_id)
+) engine = InnoDB;
+
+create index idx_user_payment_history_user_created on user_payment_history (user_id, created_at, payment_id);
+
+create table user_payment_history_versions (
+    user_id bigint not null,
+    version bigint not null,
+    primary key (user_id)
+) engine = InnoDB;
+
+-- 기존 결제(온라인 + 보관)로 채운다
+insert into user_payment_history
+    (payment_id, user_id, order_id, amount, refund_amount, status, payment_method, created_at)
+select id, user_id, order_id, amount, refund_amount, status, payment_method, coalesce(created_at, now(6))
+from payments;
+
+insert into user_payment_history
+    (payment_id, user_id, order_id, amount, refund_amount, status, payment_method, created_at)
+select id, user_id, order_id, amount, refund_amount, status, payment_method, coalesce(created_at, now(6))
+from payments_archive;
+
+insert into user_payment_history_versions (user_id, version)
+select user_id, 1
+from user_payment_history
+group by user_id;
@@ -0,0 +1,157 @@
+package mzc.shopping.payment.client;
+
+import feign.Feign;
+import feign.FeignException;
+import feign.Param;
+import feign.RequestLine;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.Target;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mzc.shopping.payment.config.OutboundPolicyProperties;
+import mzc.shopping.payment.config.OutboundPolicyProperties.ClientPolicy;
+import mzc.shopping.payment.exception.RemoteServiceUnavailableException;
+import mzc.shopping.payment.support.StubHttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 응답 지연을 바꿀 수 있는 로컬 스텁에 Feign 클라이언트를 붙여 타임아웃이 줄고, 느린 호출을 끊고, 다시 늘어나는지 확인한다.
+ */
+class ResilientClientCapabilityTest {
+
+    private static final String CLIENT = "stub-service";
+    private static final int SAMPLE_SIZE = 256;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    interface StubApi {
+
+        @RequestLine("GET /orders/{id}")
+        String getOrder(@Param("id") long id);
+
+        @RequestLine("POST /payments")
+        String confirm(String body);
+    }
+
+    private final StubHttpServer server = StubHttpServer.start();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ClientPolicy policy = new ClientPolicy();
+    private StubApi api;
+
+    @BeforeEach
+    void setUp() {
+        server.respond("/orders/", 200, "ok");
+        server.respond("/payments", 200, "ok");
+
+        policy.setMinTimeout(Duration.ofMillis(100));
+        policy.setMaxTimeout(Duration.ofSeconds(2));
+        policy.setTimeoutMultiplier(4);
+        policy.setNonIdempotentReadTimeout(Duration.ofSeconds(1));
+        // 타임아웃 동작만 보도록 circuit breaker 는 열리지 않게 둔다
+        policy.setSlidingWindowSize(1000);
+        policy.setMinimumNumberOfCalls(1000);
+
+        OutboundPolicyProperties properties = new OutboundPolicyProperties();
+        properties.getClients().put(CLIENT, policy);
+        ResilientClientCapability capability = new ResilientClientCapability(properties,
+                CircuitBreakerRegistry.ofDefaults(), meterRegistry);
+        api = Feign.builder()
+                .addCapability(capability)
+                .retryer(Retryer.NEVER_RETRY)
+                .target(new Target.HardCodedTarget<>(StubApi.class, CLIENT,
+                        server.url()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void shrinksTimeoutToRecentLatencyAndCutsSlowCalls() {
+        warmUp();
+        assertThat(timeoutMillis()).isEqualTo(100);
+
+        latency("/orders/", 1000);
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> api.getOrder(1))
+                .isInstanceOf(RetryableException.class)
+                .hasCauseInstanceOf(SocketTimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(600));
+    }
+
+    @Test
+    void growsTimeoutBackWhenRemoteSlowsDown() {
+        warmUp();
+        latency("/orders/", 250);
+
+        // 타임아웃 난 호출은 당시 타임아웃으로 기록되므로 재계산 때 multiplier 배로 늘어난다 (100 → 400ms)
+        int timedOut = 0;
+        for (int i = 0; i < 2 * RECOMPUTE_EVERY; i++) {
+            try {
+                api.getOrder(i);
+                break;
+            } catch (RetryableException e) {
+                timedOut++;
+            }
+        }
+
+        assertThat(timedOut).isEqualTo(RECOMPUTE_EVERY);
+        assertThat(timeoutMillis()).isEqualTo(400);
+    }
+
+    @Test
+    void keepsFixedTimeoutForNonIdempotentCalls() {
+        warmUp();
+        latency("/payments", 150);
+        latency("/orders/", 150);
+
+        for (int i = 0; i < RECOMPUTE_EVERY; i++) {
+            assertThat(api.confirm("{}")).isEqualTo("ok");
+        }
+        // 고정 타임아웃 호출은 적응형 타임아웃 표본에 넣지 않는다
+        assertThat(timeoutMillis()).isEqualTo(100);
+        assertThatThrownBy(() -> api.getOrder(1)).isInstanceOf(RetryableException.class);
+    }
+
+    @Test
+    void failsFastWithoutCallingRemoteWhileCircuitIsOpen() {
+        policy.setSlidingWindowSize(10);
+        policy.setMinimumNumberOfCalls(10);
+        policy.setWaitInOpenState(Duration.ofMinutes(1));
+        server.respond("/orders/", 500, "");
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> api.getOrder(1)).isInstanceOf(FeignException.InternalServerError.class);
+        }
+
+        assertThatThrownBy(() -> api.getOrder(1))
+                .isInstanceOf(RemoteServiceUnavailableException.class)
+                .hasMessageContaining(CircuitBreaker.State.OPEN.name());
+        assertThat(server.requests("/orders/")).isEqualTo(10);
+    }
+
+    // 첫 호출의 연결 비용이 표본에서 밀려나도록 링 버퍼를 한 바퀴 넘게 빠른 응답으로 채운다
+    private void warmUp() {
+        for (int i = 0; i < SAMPLE_SIZE + RECOMPUTE_EVERY; i++) {
+            api.getOrder(i);
+        }
+    }
+
+    private long timeoutMillis() {
+        return (long) meterRegistry.get("payment.outbound.timeout").tag("client", CLIENT).gauge().value();
+    }
+
+    private void latency(String pathPrefix, long millis) {
+        server.respond(pathPrefix, 200, "ok", Duration.ofMillis(millis));
+    }
+}
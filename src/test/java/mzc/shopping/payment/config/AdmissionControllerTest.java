@@ -0,0 +1,75 @@
+package mzc.shopping.payment.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mzc.shopping.payment.config.Admission.Priority;
+import mzc.shopping.payment.exception.RequestShedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControllerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AdmissionController admissionController;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionControlProperties properties = new AdmissionControlProperties();
+        // CRITICAL 이 아닌 요청은 동시에 하나만 실행된다
+        properties.setMaxConcurrent(2);
+        properties.setReservedCritical(1);
+        properties.setMaxWait(Duration.ofMillis(20));
+        properties.setTargetQueueDelay(Duration.ofMillis(5));
+        properties.setInterval(Duration.ofMillis(50));
+        admissionController = new AdmissionController(properties, meterRegistry);
+    }
+
+    @Test
+    void keepsSheddingWhileRejectedRequestsReturnImmediately() {
+        admissionController.admit(Priority.STANDARD);
+        startShedding();
+
+        for (int i = 0; i < 50; i++) {
+            assertThatThrownBy(() -> admissionController.admit(Priority.STANDARD))
+                    .isInstanceOf(RequestShedException.class);
+        }
+
+        assertThat(shedding()).isTrue();
+        assertThat(requests("shed")).isEqualTo(50);
+    }
+
+    @Test
+    void stopsSheddingOnceRequestIsAdmittedWithoutWaiting() {
+        admissionController.admit(Priority.STANDARD);
+        startShedding();
+
+        admissionController.release(Priority.STANDARD);
+        admissionController.admit(Priority.STANDARD);
+
+        assertThat(shedding()).isFalse();
+        assertThat(requests("admitted")).isEqualTo(2);
+    }
+
+    // 유일한 자리를 붙잡은 상태에서 max-wait 만큼 기다리다 실패하는 요청이 interval 동안 이어지면 차단이 시작된다
+    private void startShedding() {
+        for (int i = 0; i < 20 && !shedding(); i++) {
+            assertThatThrownBy(() -> admissionController.admit(Priority.STANDARD))
+                    .isInstanceOf(RequestShedException.class);
+        }
+        assertThat(shedding()).isTrue();
+    }
+
+    private boolean shedding() {
+        return meterRegistry.get("payment.admission.shedding").tag("class", "standard").gauge().value() == 1;
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("payment.admission.requests")
+                .tags("class", "standard", "result", result).counter().count();
+    }
+}
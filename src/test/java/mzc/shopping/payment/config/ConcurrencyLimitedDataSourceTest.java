@@ -0,0 +1,103 @@
+package mzc.shopping.payment.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitedDataSourceTest {
+
+    private static final int PERMITS = 2;
+    private static final int THREADS = 32;
+
+    private final DriverManagerDataSource target = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void limitsConnectionsHeldAtOnce() throws Exception {
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, PERMITS, Duration.ofSeconds(10));
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try (Connection connection = dataSource.getConnection()) {
+                    maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                    Thread.sleep(10);
+                    open.decrementAndGet();
+                    return connection.isValid(1);
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> result : results) {
+            assertThat(result.get(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(maxOpen).hasValue(PERMITS);
+    }
+
+    @Test
+    void failsWhenNoPermitBecomesFreeWithinAcquireTimeout() throws SQLException {
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(100));
+
+        try (Connection held = dataSource.getConnection()) {
+            long start = System.nanoTime();
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+        }
+
+        // 반납된 허가로 다시 빌릴 수 있다
+        dataSource.getConnection().close();
+    }
+
+    @Test
+    void releasesPermitOnlyOnceWhenConnectionIsClosedTwice() throws SQLException {
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50));
+
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        try (Connection held = dataSource.getConnection()) {
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        }
+    }
+
+    @Test
+    void releasesPermitWhenTargetFailsToConnect() throws SQLException {
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(
+                new DriverManagerDataSource("jdbc:unknown:payment"), 1, Duration.ofMillis(50));
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(dataSource::getConnection)
+                    .isInstanceOf(SQLException.class)
+                    .isNotInstanceOf(SQLTransientConnectionException.class);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package mzc.shopping.payment.config;
+
+import mzc.shopping.payment.id.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdGeneratorConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(IdGeneratorConfig.class);
+
+    @Test
+    void failsStartupWhenNodeIdIsMissing() {
+        contextRunner.run(context -> assertThat(context).hasFailed()
+                .getFailure().rootCause().hasMessageContaining("payment.id.node-id"));
+    }
+
+    @Test
+    void failsStartupWhenNodeIdIsEmpty() {
+        // application.yml 의 ${PAYMENT_NODE_ID:} 가 환경 변수 없이 풀린 경우
+        contextRunner.withPropertyValues("payment.id.node-id=")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().rootCause().hasMessageContaining("payment.id.node-id"));
+    }
+
+    @Test
+    void failsStartupWhenNodeIdIsOutOfRange() {
+        contextRunner.withPropertyValues("payment.id.node-id=" + (SnowflakeIdGenerator.MAX_NODE_ID + 1))
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @Test
+    void providesGeneratorForConfiguredNode() {
+        contextRunner.withPropertyValues("payment.id.node-id=7")
+                .run(context -> assertThat(context.getBean(SnowflakeIdGenerator.class).nodeId()).isEqualTo(7));
+    }
+}
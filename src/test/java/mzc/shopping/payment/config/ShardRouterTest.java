@@ -0,0 +1,106 @@
+package mzc.shopping.payment.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardRouterTest {
+
+    private static final int ORDERS = 100_000;
+
+    private final List<ShardRouter> routers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        routers.forEach(ShardRouter::shutdown);
+    }
+
+    @Test
+    void routesEveryOrderToShardZeroWithoutSharding() {
+        ShardRouter router = router(1);
+
+        for (long orderId = 1; orderId <= 1000; orderId++) {
+            assertThat(router.shardOf(orderId)).isZero();
+        }
+        assertThat(router.isSharded()).isFalse();
+    }
+
+    @Test
+    void spreadsOrdersEvenlyAcrossShards() {
+        ShardRouter router = router(4);
+        int[] counts = new int[4];
+
+        for (long orderId = 1; orderId <= ORDERS; orderId++) {
+            counts[router.shardOf(orderId)]++;
+        }
+
+        for (int count : counts) {
+            assertThat(count).isBetween(ORDERS / 4 * 95 / 100, ORDERS / 4 * 105 / 100);
+        }
+    }
+
+    @Test
+    void movesOnlyOrdersOfNewShardWhenShardIsAppended() {
+        ShardRouter before = router(3);
+        ShardRouter after = router(4);
+        int moved = 0;
+
+        for (long orderId = 1; orderId <= ORDERS; orderId++) {
+            int from = before.shardOf(orderId);
+            int to = after.shardOf(orderId);
+            if (from != to) {
+                // 기존 샤드 사이에서는 옮겨가지 않는다
+                assertThat(to).isEqualTo(3);
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(ORDERS / 4 * 95 / 100, ORDERS / 4 * 105 / 100);
+    }
+
+    @Test
+    void scatterRunsQueryOnEveryShardAndKeepsShardOrder() {
+        ShardRouter router = router(3);
+
+        List<String> results = router.scatter(shard -> shard + ":" + ShardRouter.currentShard());
+
+        assertThat(results).containsExactly("0:0", "1:1", "2:2");
+        assertThat(ShardRouter.currentShard()).isNull();
+    }
+
+    @Test
+    void scatterRethrowsQueryFailure() {
+        ShardRouter router = router(2);
+
+        assertThatThrownBy(() -> router.scatter(shard -> {
+            if (shard == 1) {
+                throw new IllegalStateException("shard 1 down");
+            }
+            return shard;
+        })).isInstanceOf(IllegalStateException.class).hasMessage("shard 1 down");
+    }
+
+    @Test
+    void restoresOuterShardAfterNestedCall() {
+        ShardRouter router = router(2);
+
+        Integer restored = router.onShard(1, () -> {
+            router.onShard(0, ShardRouter::currentShard);
+            return ShardRouter.currentShard();
+        });
+
+        assertThat(restored).isEqualTo(1);
+        assertThat(ShardRouter.currentShard()).isNull();
+    }
+
+    private ShardRouter router(int shardCount) {
+        ShardRouter router = new ShardRouter(shardCount, 4);
+        routers.add(router);
+        return router;
+    }
+}
@@ -0,0 +1,146 @@
+package mzc.shopping.payment.controller;
+
+import mzc.shopping.payment.config.OutboundPolicyProperties;
+import mzc.shopping.payment.config.OutboundPolicyProperties.OrderUserFallback;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.PaymentRepository;
+import mzc.shopping.payment.support.StubHttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * order-service 가 타임아웃 안에 응답하지 않을 때 토스 결제 승인이 order-user-fallback 정책대로 처리되는지 확인한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-fallback;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000",
+        "payment.outbound.clients.order-service.max-timeout=300ms"
+})
+class OrderServiceFallbackTest {
+
+    private static final long DEFAULT_USER_ID = 999L;
+    private static final Duration SLOW = Duration.ofSeconds(5);
+    private static final AtomicLong ORDER_IDS = new AtomicLong(1);
+    private static final StubHttpServer ORDER_SERVICE = StubHttpServer.start();
+    private static final StubHttpServer TOSS = StubHttpServer.start();
+
+    @DynamicPropertySource
+    static void remoteServices(DynamicPropertyRegistry registry) {
+        registry.add("service.order.url", ORDER_SERVICE::url);
+        registry.add("toss.url", TOSS::url);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        ORDER_SERVICE.close();
+        TOSS.close();
+    }
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private OutboundPolicyProperties outboundPolicy;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        ORDER_SERVICE.respond("/api/orders/", 200, "{\"userId\": 7, \"totalPrice\": 10000}", SLOW);
+        TOSS.respond("/v1/payments/confirm", 200, "{\"status\": \"DONE\", \"method\": \"카드\", "
+                + "\"lastTransactionKey\": \"txn-1\", \"totalAmount\": 10000}");
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboundPolicy.setOrderUserFallback(OrderUserFallback.REJECT);
+        outboundPolicy.setDefaultUserId(null);
+        ORDER_SERVICE.reset();
+        TOSS.reset();
+    }
+
+    @Test
+    void rejectsConfirmWithoutCallingTossWhenOrderLookupTimesOut() {
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        long start = System.nanoTime();
+        HttpResponse<String> response = confirm(orderId);
+
+        assertThat(response.statusCode()).isEqualTo(503);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(SLOW);
+        assertThat(paymentRepository.findByOrderId(orderId)).isEmpty();
+        assertThat(TOSS.requests("/v1/payments/confirm")).isZero();
+    }
+
+    @Test
+    void recordsDefaultUserWhenOrderLookupTimesOut() {
+        outboundPolicy.setOrderUserFallback(OrderUserFallback.DEFAULT_USER);
+        outboundPolicy.setDefaultUserId(DEFAULT_USER_ID);
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        HttpResponse<String> response = confirm(orderId);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        Payment payment = paymentRepository.findByOrderId(orderId).orElseThrow();
+        assertThat(payment.getUserId()).isEqualTo(DEFAULT_USER_ID);
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+    }
+
+    @Test
+    void usesOrderUserOnceOrderServiceRespondsInTime() {
+        outboundPolicy.setOrderUserFallback(OrderUserFallback.DEFAULT_USER);
+        outboundPolicy.setDefaultUserId(DEFAULT_USER_ID);
+        ORDER_SERVICE.respond("/api/orders/", 200, "{\"userId\": 7, \"totalPrice\": 10000}");
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        HttpResponse<String> response = confirm(orderId);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(paymentRepository.findByOrderId(orderId).orElseThrow().getUserId()).isEqualTo(7L);
+    }
+
+    private HttpResponse<String> confirm(long orderId) {
+        String body = "{\"paymentKey\": \"pk-fallback-" + orderId + "\", \"orderId\": \"ORDER_" + orderId
+                + "_1\", \"amount\": 10000}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/payments/confirm/toss"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package mzc.shopping.payment.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mzc.shopping.payment.client.OrderResponse;
+import mzc.shopping.payment.client.OrderServiceClient;
+import mzc.shopping.payment.client.TossPaymentsClient;
+import mzc.shopping.payment.dto.PaymentRequest;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.dto.TossPaymentRequest;
+import mzc.shopping.payment.exception.RemoteServiceUnavailableException;
+import mzc.shopping.payment.service.PaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * 사용자 결제 내역의 ETag 가 조회 모델의 사용자 버전을 따라가는지 확인한다.
+ * 변경이 없으면 같은 ETag 와 304 로 끝나고, 상태 전이나 PENDING 행 삭제가 있으면 새 ETag 와 새 본문을 내려준다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:payment-history;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000"
+})
+class PaymentHistoryTest {
+
+    private static final long USER_ID = 7L;
+    private static final BigDecimal AMOUNT = new BigDecimal("10000");
+    private static final AtomicLong ORDER_IDS = new AtomicLong(1);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @MockitoBean
+    private OrderServiceClient orderServiceClient;
+    @MockitoBean
+    private TossPaymentsClient tossPaymentsClient;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from payments");
+        jdbcTemplate.update("delete from user_payment_history");
+        jdbcTemplate.update("delete from user_payment_history_versions");
+        given(orderServiceClient.getOrder(anyLong())).willAnswer(invocation ->
+                new OrderResponse(invocation.getArgument(0), USER_ID, AMOUNT, "CREATED"));
+    }
+
+    @Test
+    void keepsSameEtagWhileHistoryIsUnchanged() {
+        createPayment();
+        createPayment();
+
+        HttpResponse<String> first = history(null);
+        HttpResponse<String> second = history(null);
+
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(second.statusCode()).isEqualTo(200);
+        assertThat(etag(second)).isEqualTo(etag(first));
+        assertThat(content(second)).hasSize(2);
+    }
+
+    @Test
+    void returnsNotModifiedForCurrentEtag() {
+        createPayment();
+        String etag = etag(history(null));
+
+        HttpResponse<String> response = history(etag);
+
+        assertThat(response.statusCode()).isEqualTo(304);
+        assertThat(etag(response)).isEqualTo(etag);
+        assertThat(response.body()).isEmpty();
+    }
+
+    @Test
+    void returnsNewEtagAfterTransition() {
+        PaymentResponse payment = createPayment();
+        String etag = etag(history(null));
+
+        paymentService.confirmPayment(payment.getId());
+        HttpResponse<String> response = history(etag);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(etag(response)).isNotEqualTo(etag);
+        assertThat(content(response).get(0).get("status").asText()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void removesHistoryRowWhenPendingPaymentIsDeleted() {
+        String etag = etag(history(null));
+        // 토스에 요청이 전달되지 않으면 PENDING 행을 지워 같은 paymentKey 로 재시도할 수 있게 한다
+        given(tossPaymentsClient.confirmPayment(any(), any()))
+                .willThrow(new RemoteServiceUnavailableException("toss-payments", "토스페이먼츠 호출 한도 초과"));
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        assertThatThrownBy(() -> paymentService.confirmTossPayemnt(
+                new TossPaymentRequest("pk-history-" + orderId, "ORDER_" + orderId + "_1", AMOUNT.longValue())))
+                .isInstanceOf(RemoteServiceUnavailableException.class);
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from user_payment_history where order_id = ?",
+                Integer.class, orderId)).isZero();
+        HttpResponse<String> response = history(etag);
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(etag(response)).isNotEqualTo(etag);
+        assertThat(content(response)).isEmpty();
+    }
+
+    private PaymentResponse createPayment() {
+        return paymentService.confirmTossPayment(PaymentRequest.builder()
+                .orderId(ORDER_IDS.getAndIncrement())
+                .userId(USER_ID)
+                .amount(AMOUNT)
+                .paymentMethod("카드")
+                .build());
+    }
+
+    private String etag(HttpResponse<String> response) {
+        return response.headers().firstValue("ETag").orElseThrow();
+    }
+
+    private JsonNode content(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body()).get("content");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpResponse<String> history(String ifNoneMatch) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/payments/user/" + USER_ID));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        try {
+            return httpClient.send(request.GET().build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
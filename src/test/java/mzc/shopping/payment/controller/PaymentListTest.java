@@ -0,0 +1,145 @@
+package mzc.shopping.payment.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 결제 목록의 keyset 페이지와 NDJSON 스트리밍 응답을 확인한다.
+ * 생성 시각이 같은 결제가 페이지 경계에 걸려도 id 로 순서를 정해 빠지거나 겹치지 않아야 한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:payment-list;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000"
+})
+class PaymentListTest {
+
+    private static final LocalDateTime SAME_TIME = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List<Long> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from payments");
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            saved.add(save(orderId, orderId == 5 ? PaymentStatus.PENDING : PaymentStatus.COMPLETED));
+        }
+    }
+
+    @Test
+    void breaksCreatedAtTiesByIdAcrossPages() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            JsonNode page = json(send("/api/payments?size=2" + (cursor == null ? "" : "&cursor=" + cursor),
+                    "application/json").body());
+            page.get("content").forEach(payment -> ids.add(payment.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+
+        assertThat(ids).isEqualTo(saved.stream().sorted(Comparator.reverseOrder()).toList());
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThat(send("/api/payments?cursor=not-a-cursor", "application/json").statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    void streamsPaymentsAsNdjson() {
+        HttpResponse<String> response = send("/api/payments/status/COMPLETED", "application/x-ndjson");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(type ->
+                assertThat(type).startsWith("application/x-ndjson"));
+        List<Long> ids = response.body().lines()
+                .map(line -> json(line).get("id").asLong())
+                .toList();
+        assertThat(ids).containsExactlyInAnyOrderElementsOf(saved.subList(0, 4));
+    }
+
+    @Test
+    void streamsUserPaymentsAsNdjson() {
+        HttpResponse<String> response = send("/api/payments/user/7", "application/x-ndjson");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body().lines()).hasSize(saved.size())
+                .allSatisfy(line -> assertThat(json(line).get("userId").asLong()).isEqualTo(7L));
+    }
+
+    private Long save(long orderId, PaymentStatus status) {
+        Payment payment = paymentRepository.save(Payment.builder()
+                .orderId(orderId)
+                .userId(7L)
+                .amount(new BigDecimal("10000"))
+                .paymentMethod("카드")
+                .paymentKey("pk-list-" + orderId)
+                .status(status)
+                .build());
+        jdbcTemplate.update("update payments set created_at = ? where id = ?", SAME_TIME, payment.getId());
+        return payment.getId();
+    }
+
+    private JsonNode json(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpResponse<String> send(String path, String accept) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
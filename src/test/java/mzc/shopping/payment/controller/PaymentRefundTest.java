@@ -0,0 +1,170 @@
+package mzc.shopping.payment.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mzc.shopping.payment.client.OrderResponse;
+import mzc.shopping.payment.client.OrderServiceClient;
+import mzc.shopping.payment.dto.PaymentRequest;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.PaymentRepository;
+import mzc.shopping.payment.service.PaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * 부분 환불이 원장에 한 건씩 쌓이고 누적 환불액이 결제 금액을 넘지 않는지 확인한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:payment-refund;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000"
+})
+class PaymentRefundTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10000");
+    private static final AtomicLong ORDER_IDS = new AtomicLong(1);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @MockitoBean
+    private OrderServiceClient orderServiceClient;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        given(orderServiceClient.getOrder(anyLong())).willAnswer(invocation ->
+                new OrderResponse(invocation.getArgument(0), 7L, AMOUNT, "CREATED"));
+    }
+
+    @Test
+    void refundsFullAmountInParts() {
+        Long id = completedPayment();
+
+        HttpResponse<String> first = refund(id, 3000, "부분 환불");
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(json(first).get("status").asText()).isEqualTo("PARTIALLY_REFUNDED");
+
+        HttpResponse<String> second = refund(id, 7000, "잔액 환불");
+        assertThat(second.statusCode()).isEqualTo(200);
+        assertThat(json(second).get("status").asText()).isEqualTo("REFUNDED");
+
+        Payment payment = paymentRepository.findById(id).orElseThrow();
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.REFUNDED);
+        assertThat(payment.getRefundAmount()).isEqualByComparingTo(AMOUNT);
+        // 전액 환불된 결제는 더 환불할 수 없다
+        assertThat(refund(id, 1, "추가 환불").statusCode()).isEqualTo(409);
+    }
+
+    @Test
+    void rejectsRefundOverRemainingBalance() {
+        Long id = completedPayment();
+        assertThat(refund(id, 6000, "부분 환불").statusCode()).isEqualTo(200);
+
+        HttpResponse<String> response = refund(id, 5000, "초과 환불");
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(json(response).get("message").asText()).contains("환불 가능 금액(4000");
+        Payment payment = paymentRepository.findById(id).orElseThrow();
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PARTIALLY_REFUNDED);
+        assertThat(payment.getRefundAmount()).isEqualByComparingTo("6000");
+        assertThat(json(send(get(id))).size()).isOne();
+    }
+
+    @Test
+    void listsRefundLedgerInOrder() {
+        Long id = completedPayment();
+        refund(id, 1000, "첫 번째");
+        refund(id, 2000, "두 번째");
+        refund(id, 3000, "세 번째");
+
+        HttpResponse<String> response = send(get(id));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        List<String> entries = new ArrayList<>();
+        for (JsonNode refund : json(response)) {
+            assertThat(refund.get("paymentId").asLong()).isEqualTo(id);
+            entries.add(refund.get("amount").decimalValue().stripTrailingZeros().toPlainString()
+                    + ":" + refund.get("reason").asText());
+        }
+        assertThat(entries).containsExactly("1000:첫 번째", "2000:두 번째", "3000:세 번째");
+    }
+
+    private Long completedPayment() {
+        Long id = paymentService.confirmTossPayment(PaymentRequest.builder()
+                .orderId(ORDER_IDS.getAndIncrement())
+                .userId(7L)
+                .amount(AMOUNT)
+                .paymentMethod("카드")
+                .build()).getId();
+        return paymentService.confirmPayment(id).getId();
+    }
+
+    private HttpResponse<String> refund(Long id, long amount, String reason) {
+        String body = "{\"refundAmount\": " + amount + ", \"reason\": \"" + reason + "\"}";
+        return send(HttpRequest.newBuilder(uri("/api/payments/" + id + "/refund"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private HttpRequest get(Long id) {
+        return HttpRequest.newBuilder(uri("/api/payments/" + id + "/refunds")).GET().build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private JsonNode json(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
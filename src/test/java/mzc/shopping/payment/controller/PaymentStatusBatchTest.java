@@ -0,0 +1,128 @@
+package mzc.shopping.payment.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 주문 ID 일괄 조회의 요청 크기 검증과, 없는 주문은 응답에서 빠지는지 확인한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:payment-status-batch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000"
+})
+class PaymentStatusBatchTest {
+
+    private static final int MAX_ORDER_IDS = 5000;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from payments");
+        paymentRepository.save(Payment.builder()
+                .orderId(1L)
+                .userId(7L)
+                .amount(new BigDecimal("10000"))
+                .paymentMethod("카드")
+                .paymentKey("pk-batch-1")
+                .status(PaymentStatus.COMPLETED)
+                .build());
+    }
+
+    @Test
+    void acceptsMaximumNumberOfOrderIds() {
+        HttpResponse<String> response = batch(orderIds(MAX_ORDER_IDS));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        JsonNode statuses = json(response);
+        assertThat(statuses.size()).isOne();
+        assertThat(statuses.get("1").get("status").asText()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void rejectsMoreOrderIdsThanLimit() {
+        HttpResponse<String> response = batch(orderIds(MAX_ORDER_IDS + 1));
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(json(response).get("message").asText())
+                .isEqualTo("orderIds: 주문 ID는 한 번에 5000개까지 조회할 수 있습니다.");
+    }
+
+    @Test
+    void rejectsEmptyOrMissingOrderIds() {
+        assertThat(batch("[]").statusCode()).isEqualTo(400);
+        assertThat(send("{}").statusCode()).isEqualTo(400);
+        assertThat(batch("[1, null]").statusCode()).isEqualTo(400);
+    }
+
+    private String orderIds(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private HttpResponse<String> batch(String orderIds) {
+        return send("{\"orderIds\": " + orderIds + "}");
+    }
+
+    private JsonNode json(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpResponse<String> send(String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/payments/order/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
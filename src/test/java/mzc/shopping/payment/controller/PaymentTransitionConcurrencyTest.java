@@ -0,0 +1,186 @@
+package mzc.shopping.payment.controller;
+
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 한 결제에 여러 스레드가 동시에 승인/취소/환불을 보내도 상태 전이는 한 요청만 성공하고 나머지는 409 를 받는지 확인한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:transition-concurrency;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000",
+        "service.order.url=http://localhost:1",
+        "toss.url=http://localhost:1"
+})
+class PaymentTransitionConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final BigDecimal AMOUNT = new BigDecimal("10000");
+    // 테스트 메서드마다 인스턴스가 새로 만들어지지만 DB 는 공유하므로 주문 번호를 클래스 단위로 발급한다
+    private static final AtomicLong ORDER_IDS = new AtomicLong(1);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void onlyOneConcurrentConfirmWins() throws Exception {
+        Payment payment = save(PaymentStatus.PENDING);
+
+        Map<Integer, Long> responses = hammer(i -> "/" + payment.getId() + "/confirm");
+
+        assertOneWinner(responses);
+        assertThat(statusOf(payment)).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(outboxEvents(payment, "CONFIRMED")).isEqualTo(1);
+    }
+
+    @Test
+    void onlyOneConcurrentCancelWins() throws Exception {
+        Payment payment = save(PaymentStatus.COMPLETED);
+
+        Map<Integer, Long> responses = hammer(i -> "/" + payment.getId() + "/cancel?reason=stress-" + i);
+
+        assertOneWinner(responses);
+        assertThat(statusOf(payment)).isEqualTo(PaymentStatus.CANCELLED);
+        assertThat(outboxEvents(payment, "CANCELLED")).isEqualTo(1);
+    }
+
+    @Test
+    void onlyOneConcurrentFullRefundWins() throws Exception {
+        Payment payment = save(PaymentStatus.COMPLETED);
+
+        Map<Integer, Long> responses = hammer(i -> "/" + payment.getId() + "/refund");
+
+        assertOneWinner(responses);
+        Payment refunded = paymentRepository.findById(payment.getId()).orElseThrow();
+        assertThat(refunded.getStatus()).isEqualTo(PaymentStatus.REFUNDED);
+        assertThat(refunded.getRefundAmount()).isEqualByComparingTo(AMOUNT);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from payment_refunds where payment_id = ?",
+                Integer.class, payment.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void onlyOneTransitionWinsWhenConfirmAndCancelRace() throws Exception {
+        Payment payment = save(PaymentStatus.COMPLETED);
+
+        // 완료된 결제에 승인과 취소를 섞어 보내면 취소 한 건만 전이된다
+        Map<Integer, Long> responses = hammer(i -> "/" + payment.getId() + (i % 2 == 0 ? "/confirm" : "/cancel"));
+
+        assertOneWinner(responses);
+        assertThat(statusOf(payment)).isEqualTo(PaymentStatus.CANCELLED);
+    }
+
+    private void assertOneWinner(Map<Integer, Long> responses) {
+        assertThat(responses).containsOnlyKeys(200, 409);
+        assertThat(responses.get(200)).isEqualTo(1);
+        assertThat(responses.get(409)).isEqualTo(THREADS - 1);
+    }
+
+    // 모든 스레드가 준비된 뒤 한꺼번에 요청을 보내고 응답 코드별 개수를 센다
+    private Map<Integer, Long> hammer(IntFunction<String> paths) throws Exception {
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String path = paths.apply(i);
+            results.add(executor.submit(() -> {
+                ready.countDown();
+                start.await();
+                return post(path);
+            }));
+        }
+        ready.await(10, TimeUnit.SECONDS);
+        start.countDown();
+
+        List<Integer> statuses = new ArrayList<>();
+        for (Future<Integer> result : results) {
+            statuses.add(result.get(30, TimeUnit.SECONDS));
+        }
+        return statuses.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+
+    private int post(String path) {
+        String body = path.endsWith("/refund") ? "{\"refundAmount\": " + AMOUNT + ", \"reason\": \"stress\"}" : "";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/payments" + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Payment save(PaymentStatus status) {
+        long orderId = ORDER_IDS.getAndIncrement();
+        return paymentRepository.save(Payment.builder()
+                .orderId(orderId)
+                .userId(1L)
+                .amount(AMOUNT)
+                .paymentMethod("카드")
+                .paymentKey(status == PaymentStatus.PENDING ? null : "pk-" + orderId)
+                .status(status)
+                .build());
+    }
+
+    private PaymentStatus statusOf(Payment payment) {
+        return paymentRepository.findById(payment.getId()).orElseThrow().getStatus();
+    }
+
+    private int outboxEvents(Payment payment, String status) {
+        return jdbcTemplate.queryForObject("select count(*) from order_status_outbox where order_id = ? and status = ?",
+                Integer.class, payment.getOrderId(), status);
+    }
+}
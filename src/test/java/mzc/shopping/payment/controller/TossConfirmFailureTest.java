@@ -0,0 +1,231 @@
+package mzc.shopping.payment.controller;
+
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.PaymentRepository;
+import mzc.shopping.payment.support.StubHttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 토스 승인 호출이 실패했을 때 결과를 알 수 없는 경우(타임아웃, 연결 끊김, 5xx, 이미 처리된 결제)는 PENDING 으로 남기고,
+ * 토스가 오류 코드로 거절한 경우에만 결제를 실패 처리하는지 확인한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:toss-confirm-failure;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000",
+        "payment.outbound.clients.toss-payments.non-idempotent-read-timeout=500ms"
+})
+class TossConfirmFailureTest {
+
+    private static final String CONFIRM = "/v1/payments/confirm";
+    private static final String APPROVED = "{\"status\": \"DONE\", \"method\": \"카드\", "
+            + "\"lastTransactionKey\": \"txn-1\", \"totalAmount\": 10000}";
+    private static final AtomicLong ORDER_IDS = new AtomicLong(1);
+    private static final StubHttpServer ORDER_SERVICE = StubHttpServer.start();
+    private static final StubHttpServer TOSS = StubHttpServer.start();
+
+    @DynamicPropertySource
+    static void remoteServices(DynamicPropertyRegistry registry) {
+        registry.add("service.order.url", ORDER_SERVICE::url);
+        registry.add("toss.url", TOSS::url);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        ORDER_SERVICE.close();
+        TOSS.close();
+    }
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        ORDER_SERVICE.respond("/api/orders/", 200, "{\"userId\": 7, \"totalPrice\": 10000}");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ORDER_SERVICE.reset();
+        TOSS.reset();
+    }
+
+    @Test
+    void completesPaymentWhenTossApproves() {
+        TOSS.respond(CONFIRM, 200, APPROVED);
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        assertThat(confirm(orderId)).isEqualTo(200);
+
+        assertThat(paymentOf(orderId).getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(outboxEvents(orderId)).isEqualTo(1);
+    }
+
+    @Test
+    void keepsPaymentPendingWhenTossTimesOut() {
+        TOSS.respond(CONFIRM, 200, APPROVED, Duration.ofSeconds(2));
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        assertThat(confirm(orderId)).isEqualTo(502);
+
+        assertPending(orderId);
+        // 같은 paymentKey 로 다시 승인하면 토스를 다시 호출하지 않고 처리 중으로 응답한다
+        assertThat(confirm(orderId)).isEqualTo(409);
+        assertThat(TOSS.requests(CONFIRM)).isEqualTo(1);
+    }
+
+    @Test
+    void keepsPaymentPendingWhenConnectionDrops() {
+        TOSS.disconnect(CONFIRM);
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        assertThat(confirm(orderId)).isEqualTo(502);
+
+        assertPending(orderId);
+    }
+
+    @Test
+    void keepsPaymentPendingOnTossServerError() {
+        TOSS.respond(CONFIRM, 500, "{\"code\": \"FAILED_INTERNAL_SYSTEM_PROCESSING\"}");
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        assertThat(confirm(orderId)).isEqualTo(502);
+
+        assertPending(orderId);
+    }
+
+    @Test
+    void keepsPaymentPendingWhenTossAlreadyProcessedPayment() {
+        TOSS.respond(CONFIRM, 400, "{\"code\": \"ALREADY_PROCESSED_PAYMENT\", \"message\": \"이미 처리된 결제 입니다.\"}");
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        assertThat(confirm(orderId)).isEqualTo(502);
+
+        assertPending(orderId);
+    }
+
+    @Test
+    void failsPaymentWhenTossRejectsWithErrorCode() {
+        TOSS.respond(CONFIRM, 400, "{\"code\": \"REJECT_CARD_PAYMENT\", \"message\": \"한도초과 혹은 잔액부족으로 결제에 실패했습니다.\"}");
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        assertThat(confirm(orderId)).isEqualTo(400);
+
+        assertThat(paymentOf(orderId).getStatus()).isEqualTo(PaymentStatus.FAILED);
+        assertThat(outboxEvents(orderId)).isZero();
+    }
+
+    @Test
+    void paysDeclinedOrderAgainWithNewPaymentKey() {
+        TOSS.respond(CONFIRM, 400, "{\"code\": \"REJECT_CARD_PAYMENT\", \"message\": \"카드 결제가 거절되었습니다.\"}");
+        long orderId = ORDER_IDS.getAndIncrement();
+        assertThat(confirm(orderId)).isEqualTo(400);
+        Long declinedId = paymentOf(orderId).getId();
+
+        // 거절된 paymentKey 는 다시 승인하지 않는다
+        assertThat(confirm(orderId, paymentKey(orderId))).isEqualTo(400);
+        assertThat(TOSS.requests(CONFIRM)).isEqualTo(1);
+
+        TOSS.respond(CONFIRM, 200, APPROVED);
+        assertThat(confirm(orderId, paymentKey(orderId) + "-retry")).isEqualTo(200);
+
+        Payment payment = paymentOf(orderId);
+        assertThat(payment.getId()).isNotEqualTo(declinedId);
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(payment.getPaymentKey()).isEqualTo(paymentKey(orderId) + "-retry");
+        assertThat(paymentRepository.findById(declinedId)).isEmpty();
+        assertThat(outboxEvents(orderId)).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsAmountDifferentFromOrderBeforeCallingToss() {
+        TOSS.respond(CONFIRM, 200, APPROVED);
+        long orderId = ORDER_IDS.getAndIncrement();
+
+        // 주문 금액은 10000
+        assertThat(confirm(orderId, paymentKey(orderId), 9000)).isEqualTo(400);
+
+        assertThat(paymentRepository.findByOrderId(orderId)).isEmpty();
+        assertThat(TOSS.requests(CONFIRM)).isZero();
+    }
+
+    // 정산기가 토스 조회로 확정할 수 있도록 paymentKey 를 가진 PENDING 행이 남아야 한다
+    private void assertPending(long orderId) {
+        Payment payment = paymentOf(orderId);
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(payment.getPaymentKey()).isEqualTo(paymentKey(orderId));
+        assertThat(outboxEvents(orderId)).isZero();
+    }
+
+    private Payment paymentOf(long orderId) {
+        return paymentRepository.findByOrderId(orderId).orElseThrow();
+    }
+
+    private int outboxEvents(long orderId) {
+        return jdbcTemplate.queryForObject("select count(*) from order_status_outbox where order_id = ?",
+                Integer.class, orderId);
+    }
+
+    private String paymentKey(long orderId) {
+        return "pk-confirm-" + orderId;
+    }
+
+    private int confirm(long orderId) {
+        return confirm(orderId, paymentKey(orderId));
+    }
+
+    private int confirm(long orderId, String paymentKey) {
+        return confirm(orderId, paymentKey, 10000);
+    }
+
+    private int confirm(long orderId, String paymentKey, long amount) {
+        String body = "{\"paymentKey\": \"" + paymentKey + "\", \"orderId\": \"ORDER_" + orderId
+                + "_1\", \"amount\": " + amount + "}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/payments/confirm/toss"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package mzc.shopping.payment.dto;
+
+import mzc.shopping.payment.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentCursorTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123_456_000);
+
+        PaymentCursor decoded = PaymentCursor.decode(new PaymentCursor(createdAt, 42L).encode());
+
+        assertThat(decoded.getCreatedAt()).isEqualTo(createdAt);
+        assertThat(decoded.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void encodesAsUrlSafeTokenWithoutPadding() {
+        String token = new PaymentCursor(LocalDateTime.of(2024, 3, 1, 9, 30), Long.MAX_VALUE).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void treatsMissingTokenAsFirstPage() {
+        assertThat(PaymentCursor.decode(null)).isNull();
+        assertThat(PaymentCursor.decode(" ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedToken() {
+        assertThatThrownBy(() -> PaymentCursor.decode("not base64!")).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> PaymentCursor.decode(encode("2024-03-01T09:30"))).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> PaymentCursor.decode(encode("yesterday|1"))).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> PaymentCursor.decode(encode("2024-03-01T09:30|x"))).isInstanceOf(InvalidCursorException.class);
+    }
+
+    private String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,91 @@
+package mzc.shopping.payment.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ddl-auto 로 만들어진 기존 DB(payments 테이블만 있고 중복 결제가 섞인 상태)에
+ * application.yml 과 같은 baseline-on-migrate 설정으로 마이그레이션을 적용한다.
+ */
+class FlywayBaselineMigrationTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // 기준선 스키마를 Flyway 이력 없이 만든다 (ddl-auto 로 관리되던 DB)
+        try (var in = getClass().getResourceAsStream("/db/migration/V1__baseline.sql")) {
+            jdbcTemplate.execute(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void migratesExistingDatabaseAndMovesDuplicatesAside() {
+        // 주문 10: 실패 후 재시도해 완료된 결제 → 완료 건을 남긴다
+        insertPayment(1, 10, "FAILED", null);
+        insertPayment(2, 10, "COMPLETED", "pk-a");
+        // 주문 11, 12: 같은 paymentKey 가 두 주문에 기록됨 → 완료 건을 남긴다
+        insertPayment(3, 11, "COMPLETED", "pk-b");
+        insertPayment(4, 12, "PENDING", "pk-b");
+        insertPayment(5, 13, "PENDING", null);
+
+        migrate();
+
+        assertThat(jdbcTemplate.queryForList("select id from payments order by id", Long.class))
+                .containsExactly(2L, 3L, 5L);
+        assertThat(jdbcTemplate.queryForList(
+                "select concat(id, ':', duplicate_of) from payments_duplicates order by id", String.class))
+                .containsExactly("1:order_id", "4:payment_key");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_status_outbox", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from idempotency_keys", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from user_payment_history", Integer.class))
+                .isEqualTo(3);
+
+        // 이후 중복 결제는 유니크 키가 막는다
+        assertThatThrownBy(() -> insertPayment(6, 10, "PENDING", null)).hasMessageContaining("uk_payments_order_id");
+        assertThatThrownBy(() -> insertPayment(7, 14, "PENDING", "pk-a")).hasMessageContaining("uk_payments_payment_key");
+    }
+
+    @Test
+    void statusColumnAcceptsValuesAddedAfterBaseline() {
+        migrate();
+
+        insertPayment(1, 10, "PARTIALLY_REFUNDED", null);
+
+        assertThat(jdbcTemplate.queryForObject("select status from payments where id = 1", String.class))
+                .isEqualTo("PARTIALLY_REFUNDED");
+    }
+
+    private void migrate() {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+        // V1 은 실행되지 않고 기준선으로만 기록돼야 한다
+        assertThat(jdbcTemplate.queryForObject(
+                "select \"type\" from \"flyway_schema_history\" where \"version\" = '1'", String.class))
+                .isEqualTo("BASELINE");
+    }
+
+    private void insertPayment(long id, long orderId, String status, String paymentKey) {
+        jdbcTemplate.update("insert into payments (id, order_id, user_id, amount, payment_method, status, payment_key, "
+                        + "created_at, updated_at) values (?, ?, 1, 10000, 'CARD', ?, ?, now(), now())",
+                id, orderId, status, paymentKey);
+    }
+}
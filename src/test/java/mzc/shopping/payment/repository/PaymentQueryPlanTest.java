@@ -0,0 +1,89 @@
+package mzc.shopping.payment.repository;
+
+import mzc.shopping.payment.config.IdGeneratorConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flyway 마이그레이션(V1~)을 인메모리 H2(MySQL 모드)에 적용하고, 리포지토리 조회 형태가 의도한 인덱스를 쓰는지
+ * 실행 계획으로 확인한다.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdGeneratorConfig.class)
+class PaymentQueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findByOrderIdUsesOrderIdUniqueKey() {
+        assertThat(plan("select * from payments where order_id = 1"))
+                .contains("uk_payments_order_id");
+    }
+
+    @Test
+    void findByPaymentKeyUsesPaymentKeyUniqueKey() {
+        assertThat(plan("select * from payments where payment_key = 'pk'"))
+                .contains("uk_payments_payment_key");
+    }
+
+    @Test
+    void statusPageUsesStatusCreatedIndex() {
+        assertThat(plan("select * from payments where status = 'COMPLETED' "
+                + "and (created_at < now() or (created_at = now() and id < 10)) "
+                + "order by created_at desc, id desc limit 20"))
+                .contains("idx_payments_status_created");
+    }
+
+    @Test
+    void staleScanUsesStatusCreatedIndex() {
+        assertThat(plan("select * from payments where status = 'PENDING' and created_at < now() "
+                + "order by created_at asc, id asc limit 100"))
+                .contains("idx_payments_status_created");
+    }
+
+    @Test
+    void userHistoryPageUsesUserCreatedIndex() {
+        assertThat(plan("select * from user_payment_history where user_id = 7 "
+                + "order by created_at desc, payment_id desc limit 20"))
+                .contains("idx_user_payment_history_user_created");
+    }
+
+    @Test
+    void archiveLookupByPaymentKeyUsesIndex() {
+        assertThat(plan("select * from payments_archive where payment_key = 'pk'"))
+                .contains("idx_payments_archive_payment_key");
+    }
+
+    @Test
+    void outboxDeliveredCleanupUsesOrderIndex() {
+        assertThat(plan("delete from order_status_outbox where order_id = 1 and id <= 10"))
+                .contains("idx_outbox_order");
+    }
+
+    @Test
+    void webhookDueScanUsesDueIndex() {
+        assertThat(plan("select * from toss_webhook_events where processed_at is null and next_attempt_at <= now() "
+                + "order by next_attempt_at, received_at limit 500"))
+                .contains("idx_toss_webhook_due");
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class).toLowerCase();
+    }
+}
@@ -0,0 +1,162 @@
+package mzc.shopping.payment.service;
+
+import mzc.shopping.payment.config.IdGeneratorConfig;
+import mzc.shopping.payment.config.OutboundPolicyProperties;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.entity.IdempotencyStatus;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.exception.PaymentConflictException;
+import mzc.shopping.payment.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.idempotency.in-flight-wait=100ms",
+        "payment.idempotency.lease=2m"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({IdGeneratorConfig.class, IdempotencyService.class, JacksonAutoConfiguration.class,
+        IdempotencyServiceTest.Config.class})
+// 서비스가 직접 트랜잭션을 나눠 쓰므로 테스트 트랜잭션으로 감싸지 않는다
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    private static final Map<String, Long> REQUEST = Map.of("orderId", 1L);
+
+    @TestConfiguration
+    @EnableConfigurationProperties(OutboundPolicyProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void replaysCompletedResponse() {
+        String key = UUID.randomUUID().toString();
+
+        PaymentResponse first = idempotencyService.execute(key, "confirm", REQUEST, this::confirm);
+        PaymentResponse second = idempotencyService.execute(key, "confirm", REQUEST, this::confirm);
+
+        assertThat(executions).hasValue(1);
+        assertThat(second.getId()).isEqualTo(first.getId());
+    }
+
+    @Test
+    void takesOverClaimLeftInProgressPastLease() {
+        String key = UUID.randomUUID().toString();
+        leaveInProgress(key, LocalDateTime.now().minusMinutes(3));
+
+        PaymentResponse response = idempotencyService.execute(key, "confirm", REQUEST, this::confirm);
+
+        assertThat(response.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(executions).hasValue(2);
+        assertThat(idempotencyRecordRepository.findById(key).orElseThrow().getStatus())
+                .isEqualTo(IdempotencyStatus.COMPLETED);
+    }
+
+    @Test
+    void waitsForClaimWithinLease() {
+        String key = UUID.randomUUID().toString();
+        leaveInProgress(key, LocalDateTime.now().minusSeconds(30));
+
+        assertThatThrownBy(() -> idempotencyService.execute(key, "confirm", REQUEST, this::confirm))
+                .isInstanceOf(PaymentConflictException.class);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void staleOwnerDoesNotReleaseClaimTakenOverByRetry() {
+        String key = UUID.randomUUID().toString();
+        LocalDateTime retryClaimedAt = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        assertThatThrownBy(() -> idempotencyService.execute(key, "confirm", REQUEST, () -> {
+            // 이 요청이 lease 를 넘기는 동안 재시도가 선점을 이어받았다
+            jdbcTemplate.update("update idempotency_keys set claimed_at = ? where idempotency_key = ?",
+                    retryClaimedAt, key);
+            throw new IllegalStateException("토스 응답 지연");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(idempotencyRecordRepository.findById(key).orElseThrow().getClaimedAt()).isEqualTo(retryClaimedAt);
+    }
+
+    @Test
+    void staleOwnerDoesNotCompleteClaimTakenOverByRetry() {
+        String key = UUID.randomUUID().toString();
+
+        idempotencyService.execute(key, "confirm", REQUEST, () -> {
+            jdbcTemplate.update("update idempotency_keys set claimed_at = ? where idempotency_key = ?",
+                    LocalDateTime.of(2030, 1, 1, 0, 0), key);
+            return confirm();
+        });
+
+        assertThat(idempotencyRecordRepository.findById(key).orElseThrow().getStatus())
+                .isEqualTo(IdempotencyStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void rejectsLeaseShorterThanTossConfirmTimeout() {
+        OutboundPolicyProperties properties = new OutboundPolicyProperties();
+        OutboundPolicyProperties.ClientPolicy toss = new OutboundPolicyProperties.ClientPolicy();
+        toss.setNonIdempotentReadTimeout(Duration.ofSeconds(60));
+        properties.getClients().put("toss-payments", toss);
+        IdempotencyService service = new IdempotencyService(idempotencyRecordRepository, transactionTemplate,
+                null, properties);
+
+        ReflectionTestUtils.setField(service, "lease", Duration.ofSeconds(60));
+        assertThatThrownBy(service::validateLease).isInstanceOf(IllegalStateException.class);
+
+        ReflectionTestUtils.setField(service, "lease", Duration.ofMinutes(2));
+        service.validateLease();
+    }
+
+    // 완료된 키를, 선점한 인스턴스가 응답을 저장하지 못하고 종료된 상태로 되돌린다
+    private void leaveInProgress(String key, LocalDateTime claimedAt) {
+        idempotencyService.execute(key, "confirm", REQUEST, this::confirm);
+        jdbcTemplate.update("update idempotency_keys set status = 'IN_PROGRESS', response_body = null, "
+                + "completed_at = null, claimed_at = ? where idempotency_key = ?", claimedAt, key);
+    }
+
+    private PaymentResponse confirm() {
+        return PaymentResponse.builder()
+                .id((long) executions.incrementAndGet())
+                .orderId(1L)
+                .status(PaymentStatus.COMPLETED)
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package mzc.shopping.payment.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mzc.shopping.payment.client.OrderResponse;
+import mzc.shopping.payment.client.OrderServiceClient;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OrderCacheTest {
+
+    private static final int THREADS = 16;
+
+    private final OrderServiceClient orderServiceClient = mock(OrderServiceClient.class);
+    private final OrderCache orderCache = new OrderCache(orderServiceClient, 100, Duration.ofMinutes(1),
+            new SimpleMeterRegistry());
+
+    @Test
+    void callsOrderServiceOnceForConcurrentLookupsOfSameOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        given(orderServiceClient.getOrder(1L)).willAnswer(invocation -> {
+            release.await();
+            return new OrderResponse(1L, 7L, new BigDecimal("10000"), "CREATED");
+        });
+
+        ConcurrentLinkedQueue<OrderResponse> results = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> results.add(orderCache.getOrder(1L)));
+            threads.add(thread);
+            thread.start();
+        }
+        // 먼저 온 스레드는 원격 호출에서, 나머지는 그 결과를 기다리며 멈춰 있을 때 응답을 보낸다
+        awaitAllWaiting(threads);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        verify(orderServiceClient, times(1)).getOrder(1L);
+        assertThat(results).hasSize(THREADS).allSatisfy(order -> assertThat(order.getUserId()).isEqualTo(7L));
+    }
+
+    @Test
+    void retriesLookupAfterFailure() {
+        given(orderServiceClient.getOrder(2L))
+                .willThrow(new IllegalStateException("order-service 503"))
+                .willReturn(new OrderResponse(2L, 7L, new BigDecimal("10000"), "CREATED"));
+
+        assertThatThrownBy(() -> orderCache.getOrder(2L)).isInstanceOf(IllegalStateException.class);
+
+        // 실패한 조회는 캐시하지 않는다
+        assertThat(orderCache.getOrder(2L).getId()).isEqualTo(2L);
+        verify(orderServiceClient, times(2)).getOrder(2L);
+    }
+
+    private void awaitAllWaiting(List<Thread> threads) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
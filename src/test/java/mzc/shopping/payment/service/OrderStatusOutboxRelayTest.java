@@ -0,0 +1,210 @@
+package mzc.shopping.payment.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mzc.shopping.payment.client.OrderServiceClient;
+import mzc.shopping.payment.config.IdGeneratorConfig;
+import mzc.shopping.payment.config.OutboundPolicyProperties;
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.entity.OrderStatusOutbox;
+import mzc.shopping.payment.repository.OrderStatusOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-relay;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        // 스케줄 실행과 겹치지 않도록 테스트에서 직접 relay() 를 호출한다
+        "payment.outbox.relay-interval=3600000",
+        "payment.outbox.batch-size=100",
+        "payment.outbox.initial-backoff=1s",
+        "payment.outbox.max-backoff=3s"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({IdGeneratorConfig.class, OrderStatusOutboxRelay.class, OrderStatusOutboxRelayTest.Config.class})
+// 릴레이가 전달 결과마다 트랜잭션을 따로 커밋하므로 테스트 트랜잭션으로 감싸지 않는다
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderStatusOutboxRelayTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(OutboundPolicyProperties.class)
+    static class Config {
+
+        @Bean
+        ShardRouter shardRouter() {
+            return new ShardRouter(1, 1);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private OrderStatusOutboxRelay relay;
+    @Autowired
+    private OrderStatusOutboxRepository outboxRepository;
+    // Feign 클라이언트 대신 order-service 응답을 흉내 낸다
+    @MockitoBean
+    private OrderServiceClient orderServiceClient;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void collapsesEventsOfSameOrderIntoLatestStatus() {
+        outboxRepository.save(OrderStatusOutbox.of(1L, "CONFIRMED"));
+        outboxRepository.save(OrderStatusOutbox.of(2L, "CONFIRMED"));
+        outboxRepository.save(OrderStatusOutbox.of(1L, "CANCELLED"));
+        double delivered = count("payment.outbox.delivered");
+
+        relay.relay();
+
+        InOrder inOrder = inOrder(orderServiceClient);
+        inOrder.verify(orderServiceClient).updateOrderStatus(1L, "CANCELLED");
+        inOrder.verify(orderServiceClient).updateOrderStatus(2L, "CONFIRMED");
+        verifyNoMoreInteractions(orderServiceClient);
+        assertThat(outboxRepository.count()).isZero();
+        assertThat(count("payment.outbox.delivered") - delivered).isEqualTo(2);
+        assertThat(meterRegistry.get("payment.outbox.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void retriesFailedDeliveryWithExponentialBackoff() {
+        outboxRepository.save(OrderStatusOutbox.of(1L, "CONFIRMED"));
+        outboxRepository.save(OrderStatusOutbox.of(1L, "CANCELLED"));
+        given(orderServiceClient.updateOrderStatus(1L, "CANCELLED"))
+                .willThrow(new IllegalStateException("order-service 503"));
+        double failed = count("payment.outbox.failed");
+
+        relay.relay();
+        // 재시도 시각 전에는 다시 보내지 않는다
+        relay.relay();
+
+        verify(orderServiceClient).updateOrderStatus(1L, "CANCELLED");
+        assertRetryScheduled(1, Duration.ofSeconds(1));
+        assertThat(meterRegistry.get("payment.outbox.depth").gauge().value()).isEqualTo(2);
+
+        makeDue();
+        relay.relay();
+        assertRetryScheduled(2, Duration.ofSeconds(2));
+
+        makeDue();
+        relay.relay();
+        makeDue();
+        relay.relay();
+        // max-backoff 에서 멈춘다
+        assertRetryScheduled(4, Duration.ofSeconds(3));
+
+        reset(orderServiceClient);
+        makeDue();
+        relay.relay();
+
+        verify(orderServiceClient).updateOrderStatus(1L, "CANCELLED");
+        verifyNoMoreInteractions(orderServiceClient);
+        assertThat(outboxRepository.count()).isZero();
+        assertThat(count("payment.outbox.failed") - failed).isEqualTo(4);
+    }
+
+    @Test
+    void keepsEventRecordedWhileDelivering() {
+        outboxRepository.save(OrderStatusOutbox.of(1L, "CONFIRMED"));
+        // 전달 중에 같은 주문의 새 상태가 기록된다
+        given(orderServiceClient.updateOrderStatus(1L, "CONFIRMED")).willAnswer(invocation -> {
+            outboxRepository.save(OrderStatusOutbox.of(1L, "CANCELLED"));
+            return null;
+        });
+
+        relay.relay();
+
+        assertThat(outboxRepository.findAll()).extracting(OrderStatusOutbox::getStatus).containsExactly("CANCELLED");
+
+        relay.relay();
+
+        InOrder inOrder = inOrder(orderServiceClient);
+        inOrder.verify(orderServiceClient).updateOrderStatus(1L, "CONFIRMED");
+        inOrder.verify(orderServiceClient).updateOrderStatus(1L, "CANCELLED");
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void skipsOrderClaimedByAnotherInstanceUntilLeaseExpires() {
+        outboxRepository.save(OrderStatusOutbox.of(1L, "CONFIRMED"));
+        // 다른 인스턴스가 CONFIRMED 를 선점해 전달하는 중에 같은 주문의 새 상태가 기록된다
+        claimAll(LocalDateTime.now().plusSeconds(30));
+        outboxRepository.save(OrderStatusOutbox.of(1L, "CANCELLED"));
+        outboxRepository.save(OrderStatusOutbox.of(2L, "CONFIRMED"));
+
+        relay.relay();
+
+        // 선점이 끝나기 전에 새 상태를 먼저 보내면 늦게 도착한 CONFIRMED 가 덮어쓸 수 있다
+        verify(orderServiceClient).updateOrderStatus(2L, "CONFIRMED");
+        verifyNoMoreInteractions(orderServiceClient);
+        assertThat(outboxRepository.findAll()).extracting(OrderStatusOutbox::getStatus)
+                .containsExactly("CONFIRMED", "CANCELLED");
+
+        // 선점한 인스턴스가 종료되어 lease 가 지나면 이어받는다
+        claimAll(LocalDateTime.now().minusSeconds(1));
+        relay.relay();
+
+        verify(orderServiceClient).updateOrderStatus(1L, "CANCELLED");
+        verifyNoMoreInteractions(orderServiceClient);
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    private void assertRetryScheduled(int attempts, Duration backoff) {
+        LocalDateTime expected = LocalDateTime.now().plus(backoff);
+        assertThat(outboxRepository.findAll()).allSatisfy(event -> {
+            assertThat(event.getAttempts()).isEqualTo(attempts);
+            assertThat(event.getNextAttemptAt()).isCloseTo(expected, within(500, ChronoUnit.MILLIS));
+        });
+    }
+
+    private double count(String counter) {
+        return meterRegistry.get(counter).counter().count();
+    }
+
+    private void claimAll(LocalDateTime claimedUntil) {
+        jdbcTemplate.update("update order_status_outbox set claimed_until = ?", claimedUntil);
+    }
+
+    private void makeDue() {
+        jdbcTemplate.update("update order_status_outbox set next_attempt_at = ?", LocalDateTime.now().minusSeconds(1));
+    }
+}
@@ -0,0 +1,167 @@
+package mzc.shopping.payment.service;
+
+import mzc.shopping.payment.client.OrderResponse;
+import mzc.shopping.payment.client.OrderServiceClient;
+import mzc.shopping.payment.dto.PaymentRequest;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.entity.ArchivedPayment;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.exception.PaymentFailedException;
+import mzc.shopping.payment.repository.ArchivedPaymentRepository;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * 보관 테이블의 order_id 유니크 제약이 온라인 테이블과 따로 걸려 있어도, 보관된 주문의 새 결제와 보관 작업이
+ * 서로 막히지 않는지 확인한다. 보관된 승인 실패는 새 결제로 대신하고, 결제가 끝난 주문은 다시 결제할 수 없다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive-conflict;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000",
+        // 테스트에서 직접 archive() 를 호출한다
+        "payment.archive.cron=-",
+        "payment.archive.age=30d",
+        "payment.archive.pause=0ms"
+})
+class PaymentArchiveConflictTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10000");
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private PaymentArchiver paymentArchiver;
+    @Autowired
+    private PaymentHistoryService paymentHistoryService;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private ArchivedPaymentRepository archivedPaymentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @MockitoBean
+    private OrderServiceClient orderServiceClient;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from payments");
+        jdbcTemplate.update("delete from payments_archive");
+        jdbcTemplate.update("delete from user_payment_history");
+        given(orderServiceClient.getOrder(anyLong())).willAnswer(invocation ->
+                new OrderResponse(invocation.getArgument(0), 7L, AMOUNT, "CREATED"));
+    }
+
+    @Test
+    void rejectsNewPaymentForOrderArchivedAsPaid() {
+        Payment paid = saveExpired(1L, PaymentStatus.COMPLETED, "pk-archive-1");
+        paymentArchiver.archive();
+
+        assertThatThrownBy(() -> paymentService.confirmTossPayment(request(1L)))
+                .isInstanceOf(PaymentFailedException.class)
+                .hasMessage("이미 해당 주문에 대한 결제가 존재합니다.");
+
+        assertThat(paymentRepository.findByOrderId(1L)).isEmpty();
+        assertThat(archivedPaymentRepository.findByOrderId(1L)).map(ArchivedPayment::getId).contains(paid.getId());
+    }
+
+    @Test
+    void replacesArchivedFailedPaymentWithNewPayment() {
+        Payment failed = saveExpired(2L, PaymentStatus.FAILED, "pk-archive-2");
+        paymentArchiver.archive();
+
+        PaymentResponse payment = paymentService.confirmTossPayment(request(2L));
+
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(archivedPaymentRepository.findByOrderId(2L)).isEmpty();
+        assertThat(historyRows(failed.getId())).isZero();
+        assertThat(historyRows(payment.getId())).isOne();
+    }
+
+    @Test
+    void archivesRepaidOrderInPlaceOfArchivedFailedPayment() {
+        Payment failed = saveExpired(3L, PaymentStatus.FAILED, "pk-archive-3");
+        paymentArchiver.archive();
+        // 보관 여부를 확인하기 전에 다시 결제된 주문
+        Payment repaid = saveExpired(3L, PaymentStatus.COMPLETED, "pk-archive-3-retry");
+
+        paymentArchiver.archive();
+
+        assertThat(paymentRepository.findByOrderId(3L)).isEmpty();
+        assertThat(archivedPaymentRepository.findByOrderId(3L)).hasValueSatisfying(archived -> {
+            assertThat(archived.getId()).isEqualTo(repaid.getId());
+            assertThat(archived.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        });
+        assertThat(historyRows(failed.getId())).isZero();
+    }
+
+    @Test
+    void keepsPaymentOnlineWhenOrderIsAlreadyArchivedAsPaid() {
+        saveExpired(4L, PaymentStatus.COMPLETED, "pk-archive-4");
+        paymentArchiver.archive();
+        Payment duplicate = saveExpired(4L, PaymentStatus.COMPLETED, "pk-archive-4-duplicate");
+        Payment other = saveExpired(5L, PaymentStatus.COMPLETED, "pk-archive-5");
+
+        paymentArchiver.archive();
+
+        // 충돌하는 행은 온라인에 남기고 나머지는 그대로 옮긴다
+        assertThat(paymentRepository.findById(duplicate.getId())).isPresent();
+        assertThat(archivedPaymentRepository.findById(other.getId())).isPresent();
+        assertThat(paymentRepository.findById(other.getId())).isEmpty();
+    }
+
+    // 보관 기간이 지난 결제를 서비스 검증 없이 바로 기록한다
+    private Payment saveExpired(long orderId, PaymentStatus status, String paymentKey) {
+        Payment payment = paymentRepository.save(Payment.builder()
+                .orderId(orderId)
+                .userId(7L)
+                .amount(AMOUNT)
+                .paymentMethod("카드")
+                .paymentKey(paymentKey)
+                .status(status)
+                .build());
+        jdbcTemplate.update("update payments set created_at = ? where id = ?",
+                LocalDateTime.now().minusDays(60), payment.getId());
+        Payment expired = paymentRepository.findById(payment.getId()).orElseThrow();
+        transactionTemplate.executeWithoutResult(tx -> paymentHistoryService.record(expired));
+        return expired;
+    }
+
+    private int historyRows(Long paymentId) {
+        return jdbcTemplate.queryForObject("select count(*) from user_payment_history where payment_id = ?",
+                Integer.class, paymentId);
+    }
+
+    private PaymentRequest request(long orderId) {
+        return PaymentRequest.builder()
+                .orderId(orderId)
+                .userId(7L)
+                .amount(AMOUNT)
+                .paymentMethod("카드")
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package mzc.shopping.payment.service;
+
+import mzc.shopping.payment.client.OrderResponse;
+import mzc.shopping.payment.client.OrderServiceClient;
+import mzc.shopping.payment.client.TossPaymentsClient;
+import mzc.shopping.payment.dto.PaymentRequest;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.dto.TossPaymentRequest;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.exception.PaymentConflictException;
+import mzc.shopping.payment.exception.PaymentNotFoundException;
+import mzc.shopping.payment.exception.RemoteServiceUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * 단건 조회 캐시가 상태 전이 커밋 이후 새 상태로 덮어써지고, 지워진 결제는 캐시에서도 빠지는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payment-cache;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000",
+        "payment.cache.ttl=10m"
+})
+class PaymentCacheTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10000");
+    private static final AtomicLong ORDER_IDS = new AtomicLong(1);
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @MockitoBean
+    private OrderServiceClient orderServiceClient;
+    @MockitoBean
+    private TossPaymentsClient tossPaymentsClient;
+
+    @BeforeEach
+    void setUp() {
+        given(orderServiceClient.getOrder(anyLong())).willAnswer(invocation ->
+                new OrderResponse(invocation.getArgument(0), 7L, AMOUNT, "CREATED"));
+    }
+
+    @Test
+    void overwritesCachedPaymentAfterTransition() {
+        PaymentResponse payment = pending();
+        paymentService.getPayment(payment.getId());
+        paymentService.getPaymentByOrderId(payment.getOrderId());
+        // 캐시를 거치지 않은 변경은 캐시 적중 동안 보이지 않는다
+        jdbcTemplate.update("update payments set payment_method = '계좌이체' where id = ?", payment.getId());
+        assertThat(paymentService.getPayment(payment.getId()).getPaymentMethod()).isEqualTo("카드");
+
+        paymentService.confirmPayment(payment.getId());
+
+        assertThat(paymentService.getPayment(payment.getId()).getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(paymentService.getPaymentByOrderId(payment.getOrderId()).getStatus())
+                .isEqualTo(PaymentStatus.COMPLETED);
+
+        paymentService.cancelPayment(payment.getId(), "단순 변심");
+
+        PaymentResponse cancelled = paymentService.getPayment(payment.getId());
+        assertThat(cancelled.getStatus()).isEqualTo(PaymentStatus.CANCELLED);
+        assertThat(cancelled.getPaymentMethod()).isEqualTo("계좌이체");
+    }
+
+    @Test
+    void keepsCachedPaymentWhenTransitionIsRejected() {
+        PaymentResponse payment = pending();
+        paymentService.getPayment(payment.getId());
+
+        assertThatThrownBy(() -> paymentService.cancelPayment(payment.getId(), "단순 변심"))
+                .isInstanceOf(PaymentConflictException.class);
+
+        assertThat(paymentService.getPayment(payment.getId()).getStatus()).isEqualTo(PaymentStatus.PENDING);
+    }
+
+    @Test
+    void evictsDeletedPendingPayment() {
+        long orderId = ORDER_IDS.getAndIncrement();
+        AtomicReference<PaymentResponse> cached = new AtomicReference<>();
+        // 토스 호출 직전 다른 요청이 PENDING 결제를 조회해 캐시에 올린다
+        given(tossPaymentsClient.confirmPayment(any(), any())).willAnswer(invocation -> {
+            cached.set(paymentService.getPaymentByOrderId(orderId));
+            paymentService.getPayment(cached.get().getId());
+            throw new RemoteServiceUnavailableException("toss-payments", "토스페이먼츠 호출 한도 초과");
+        });
+
+        assertThatThrownBy(() -> paymentService.confirmTossPayemnt(
+                new TossPaymentRequest("pk-cache-" + orderId, "ORDER_" + orderId + "_1", AMOUNT.longValue())))
+                .isInstanceOf(RemoteServiceUnavailableException.class);
+
+        assertThat(cached.get().getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThatThrownBy(() -> paymentService.getPayment(cached.get().getId()))
+                .isInstanceOf(PaymentNotFoundException.class);
+        assertThatThrownBy(() -> paymentService.getPaymentByOrderId(orderId))
+                .isInstanceOf(PaymentNotFoundException.class);
+    }
+
+    private PaymentResponse pending() {
+        return paymentService.confirmTossPayment(PaymentRequest.builder()
+                .orderId(ORDER_IDS.getAndIncrement())
+                .userId(7L)
+                .amount(AMOUNT)
+                .paymentMethod("카드")
+                .build());
+    }
+}
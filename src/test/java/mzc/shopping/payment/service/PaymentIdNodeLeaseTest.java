@@ -0,0 +1,71 @@
+package mzc.shopping.payment.service;
+
+import mzc.shopping.payment.config.IdGeneratorConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:id-node-lease;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=3",
+        // 중복 확인까지 기다리는 시간을 줄인다
+        "payment.id.lease=2s",
+        "payment.id.renew-interval=1000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({IdGeneratorConfig.class, PaymentIdNodeLease.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentIdNodeLeaseTest {
+
+    @Autowired
+    private PaymentIdNodeLease paymentIdNodeLease;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void failsWhenAnotherInstanceHoldsSameNode() {
+        // 같은 PAYMENT_NODE_ID 로 먼저 기동해 lease 를 연장하고 있는 레플리카
+        holdNode("other-replica", LocalDateTime.now().plusMinutes(10));
+
+        assertThatThrownBy(paymentIdNodeLease::acquire)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("payment.id.node-id(PAYMENT_NODE_ID)=3")
+                .hasMessageContaining("other-replica");
+    }
+
+    @Test
+    void takesOverNodeLeftByStoppedInstance() {
+        // 연장 없이 종료된 인스턴스의 등록
+        holdNode("crashed-replica", LocalDateTime.now().minusSeconds(1));
+
+        paymentIdNodeLease.acquire();
+
+        assertThat(holder()).isNotEqualTo("crashed-replica");
+        paymentIdNodeLease.release();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from payment_id_nodes", Integer.class)).isZero();
+    }
+
+    private void holdNode(String instanceId, LocalDateTime leaseUntil) {
+        jdbcTemplate.update("update payment_id_nodes set instance_id = ?, lease_until = ? where node_id = 3",
+                instanceId, leaseUntil);
+    }
+
+    private String holder() {
+        return jdbcTemplate.queryForObject("select instance_id from payment_id_nodes where node_id = 3", String.class);
+    }
+}
@@ -0,0 +1,153 @@
+package mzc.shopping.payment.service;
+
+import mzc.shopping.payment.client.OrderResponse;
+import mzc.shopping.payment.client.OrderServiceClient;
+import mzc.shopping.payment.client.TossConfirmResponse;
+import mzc.shopping.payment.client.TossPaymentsClient;
+import mzc.shopping.payment.dto.PaymentRequest;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.dto.PaymentRollupResponse;
+import mzc.shopping.payment.dto.RefundRequest;
+import mzc.shopping.payment.dto.TossPaymentRequest;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.exception.InvalidRollupRangeException;
+import mzc.shopping.payment.exception.RemoteServiceUnavailableException;
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * 상태 전이마다 기록한 증분을 합산한 집계가 payments 에서 새로 계산한 집계와 같은지 확인한다.
+ * 결제 수단이 바뀌는 토스 승인과 토스 호출 전에 지워지는 PENDING 결제도 포함한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payment-rollup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        // 테스트에서 직접 fold() 를 호출한다
+        "payment.rollup.fold-interval=3600000",
+        "payment.rollup.max-rebuild-days=7"
+})
+class PaymentRollupServiceTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10000");
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private PaymentRollupService paymentRollupService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @MockitoBean
+    private OrderServiceClient orderServiceClient;
+    @MockitoBean
+    private TossPaymentsClient tossPaymentsClient;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from payments");
+        jdbcTemplate.update("delete from payment_rollup_deltas");
+        jdbcTemplate.update("delete from payment_daily_rollups");
+        given(orderServiceClient.getOrder(anyLong())).willAnswer(invocation ->
+                new OrderResponse(invocation.getArgument(0), 7L, AMOUNT, "CREATED"));
+    }
+
+    @Test
+    void foldedDeltasMatchFreshAggregate() {
+        LocalDate today = LocalDate.now();
+        paymentService.confirmPayment(pending(1L).getId());
+        PaymentResponse cancelled = paymentService.confirmPayment(pending(2L).getId());
+        paymentService.cancelPayment(cancelled.getId(), "단순 변심");
+        PaymentResponse refunded = paymentService.confirmPayment(pending(3L).getId());
+        paymentService.refundPayment(refunded.getId(), new RefundRequest(new BigDecimal("3000"), "부분 환불"));
+        pending(4L);
+        // 토스 승인 응답의 결제 수단으로 바뀐다 (TOSS → 간편결제)
+        given(tossPaymentsClient.confirmPayment(any(), argThat(request -> request != null
+                && "pk-rollup-5".equals(request.getPaymentKey())))).willReturn(approved("간편결제"));
+        paymentService.confirmTossPayemnt(new TossPaymentRequest("pk-rollup-5", "ORDER_5_1", AMOUNT.longValue()));
+        // 토스에 요청이 전달되지 않아 PENDING 행이 지워진다
+        given(tossPaymentsClient.confirmPayment(any(), argThat(request -> request != null
+                && "pk-rollup-6".equals(request.getPaymentKey()))))
+                .willThrow(new RemoteServiceUnavailableException("toss-payments", "토스페이먼츠 호출 한도 초과"));
+        assertThatThrownBy(() -> paymentService.confirmTossPayemnt(
+                new TossPaymentRequest("pk-rollup-6", "ORDER_6_1", AMOUNT.longValue())))
+                .isInstanceOf(RemoteServiceUnavailableException.class);
+
+        List<PaymentRollupResponse> unfolded = rollups(today);
+        paymentRollupService.fold();
+        List<PaymentRollupResponse> folded = rollups(today);
+        paymentRollupService.rebuild(today, today);
+        List<PaymentRollupResponse> rebuilt = rollups(today);
+
+        assertThat(folded).usingRecursiveFieldByFieldElementComparator(comparingDecimals()).isEqualTo(unfolded);
+        assertThat(rebuilt).usingRecursiveFieldByFieldElementComparator(comparingDecimals()).isEqualTo(folded);
+        assertThat(rebuilt)
+                .extracting(PaymentRollupResponse::getStatus, PaymentRollupResponse::getPaymentMethod,
+                        PaymentRollupResponse::getPaymentCount)
+                .containsExactly(
+                        tuple(PaymentStatus.PENDING, "카드", 1L),
+                        tuple(PaymentStatus.COMPLETED, "간편결제", 1L),
+                        tuple(PaymentStatus.COMPLETED, "카드", 1L),
+                        tuple(PaymentStatus.CANCELLED, "카드", 1L),
+                        tuple(PaymentStatus.PARTIALLY_REFUNDED, "카드", 1L));
+    }
+
+    @Test
+    void rejectsRebuildLongerThanLimit() {
+        LocalDate today = LocalDate.now();
+
+        assertThatThrownBy(() -> paymentRollupService.rebuild(today.minusDays(7), today))
+                .isInstanceOf(InvalidRollupRangeException.class)
+                .hasMessage("재계산 기간은 최대 7일입니다.");
+    }
+
+    private List<PaymentRollupResponse> rollups(LocalDate day) {
+        return paymentRollupService.getRollups(day, day, null, null);
+    }
+
+    private RecursiveComparisonConfiguration comparingDecimals() {
+        return RecursiveComparisonConfiguration.builder()
+                .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                .build();
+    }
+
+    private PaymentResponse pending(long orderId) {
+        return paymentService.confirmTossPayment(PaymentRequest.builder()
+                .orderId(orderId)
+                .userId(7L)
+                .amount(AMOUNT)
+                .paymentMethod("카드")
+                .build());
+    }
+
+    private TossConfirmResponse approved(String method) {
+        TossConfirmResponse response = new TossConfirmResponse();
+        response.setStatus("DONE");
+        response.setMethod(method);
+        response.setTotalAmount(AMOUNT.longValue());
+        response.setTransactionKey("txn-rollup");
+        return response;
+    }
+}
@@ -0,0 +1,192 @@
+package mzc.shopping.payment.service;
+
+import mzc.shopping.payment.config.ShardRouter;
+import mzc.shopping.payment.dto.CursorPageResponse;
+import mzc.shopping.payment.dto.PaymentHistoryResponse;
+import mzc.shopping.payment.dto.PaymentResponse;
+import mzc.shopping.payment.dto.PaymentStatusView;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 샤드 3개(H2)에 결제를 나눠 기록하고, 주문 ID 로 고른 샤드에 저장되는지와
+ * 모든 샤드에 보낸 조회 결과를 합친 커서 페이지가 단일 DB 와 같은 순서로 이어지는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "payment.id.node-id=0",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.sharding.enabled=true",
+        "payment.sharding.maximum-pool-size=4",
+        "payment.sharding.shards[0].url=jdbc:h2:mem:sharded-query-0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "payment.sharding.shards[0].username=sa",
+        "payment.sharding.shards[0].password=",
+        "payment.sharding.shards[1].url=jdbc:h2:mem:sharded-query-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "payment.sharding.shards[1].username=sa",
+        "payment.sharding.shards[1].password=",
+        "payment.sharding.shards[2].url=jdbc:h2:mem:sharded-query-2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "payment.sharding.shards[2].username=sa",
+        "payment.sharding.shards[2].password=",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000"
+})
+class ShardedPaymentQueryTest {
+
+    private static final int SHARDS = 3;
+    private static final int PAYMENTS = 30;
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final Comparator<PaymentResponse> NEWEST_FIRST = Comparator
+            .comparing(PaymentResponse::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(PaymentResponse::getId, Comparator.reverseOrder());
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private PaymentHistoryService paymentHistoryService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<PaymentResponse> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        shardRouter.forEachShard(shard -> {
+            jdbcTemplate.update("delete from payments");
+            jdbcTemplate.update("delete from user_payment_history");
+            jdbcTemplate.update("delete from user_payment_history_versions");
+        });
+        for (long orderId = 1; orderId <= PAYMENTS; orderId++) {
+            // 두 결제씩 생성 시각이 같아 샤드를 넘나드는 (createdAt, id) 동률도 id 로 정렬돼야 한다
+            LocalDateTime createdAt = BASE_TIME.plusMinutes(orderId / 2);
+            saved.add(save(orderId, orderId % 3 == 0 ? PaymentStatus.PENDING : PaymentStatus.COMPLETED, createdAt));
+        }
+    }
+
+    @Test
+    void storesEachPaymentOnShardOfItsOrder() {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            int target = shard;
+            Set<Long> stored = shardRouter.onShard(shard, () -> new HashSet<>(
+                    jdbcTemplate.queryForList("select order_id from payments", Long.class)));
+            Set<Long> expected = LongStream.rangeClosed(1, PAYMENTS)
+                    .filter(orderId -> shardRouter.shardOf(orderId) == target)
+                    .boxed()
+                    .collect(Collectors.toSet());
+
+            assertThat(stored).isNotEmpty().isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void findsPaymentOnAnyShardByIdAndOrderId() {
+        for (PaymentResponse payment : saved) {
+            assertThat(paymentService.getPayment(payment.getId()).getOrderId()).isEqualTo(payment.getOrderId());
+            assertThat(paymentService.getPaymentByOrderId(payment.getOrderId()).getId()).isEqualTo(payment.getId());
+        }
+    }
+
+    @Test
+    void mergesPagesFromAllShardsInNewestFirstOrder() {
+        List<Long> expected = saved.stream().sorted(NEWEST_FIRST).map(PaymentResponse::getId).toList();
+
+        assertThat(readAllPages(cursor -> paymentService.getAllPayments(cursor, 7))).isEqualTo(expected);
+    }
+
+    @Test
+    void mergesStatusFilteredPagesFromAllShards() {
+        List<Long> expected = saved.stream()
+                .filter(payment -> payment.getStatus() == PaymentStatus.COMPLETED)
+                .sorted(NEWEST_FIRST)
+                .map(PaymentResponse::getId)
+                .toList();
+
+        assertThat(readAllPages(cursor -> paymentService.getPaymentsByStatus(PaymentStatus.COMPLETED, cursor, 4)))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    void mergesHistoryPagesFromAllShards() {
+        List<Long> expected = saved.stream().sorted(NEWEST_FIRST).map(PaymentResponse::getId).toList();
+
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponse<PaymentHistoryResponse> page = paymentHistoryService.getHistory(1L, cursor, 7);
+            page.getContent().forEach(payment -> ids.add(payment.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(ids).isEqualTo(expected);
+        // 사용자 버전도 샤드마다 따로 쌓인다
+        assertThat(paymentHistoryService.etag(1L, null, 7)).matches("\"1-\\d+\\.\\d+\\.\\d+-7\"");
+    }
+
+    @Test
+    void gathersStatusesByOrderIdFromAllShards() {
+        List<Long> orderIds = new ArrayList<>(LongStream.rangeClosed(1, PAYMENTS).boxed().toList());
+        orderIds.add(PAYMENTS + 1L);
+
+        Map<Long, PaymentStatusView> statuses = paymentService.getPaymentStatusesByOrderIds(orderIds);
+
+        assertThat(statuses).hasSize(PAYMENTS).doesNotContainKey(PAYMENTS + 1L);
+        assertThat(statuses.get(3L).getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(statuses.get(4L).getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+    }
+
+    // 다음 커서를 따라 마지막 페이지까지 읽는다
+    private List<Long> readAllPages(Function<String, CursorPageResponse<PaymentResponse>> page) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponse<PaymentResponse> response = page.apply(cursor);
+            response.getContent().forEach(payment -> ids.add(payment.getId()));
+            cursor = response.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private PaymentResponse save(long orderId, PaymentStatus status, LocalDateTime createdAt) {
+        return shardRouter.onShardOf(orderId, () -> {
+            Payment payment = paymentRepository.save(Payment.builder()
+                    .orderId(orderId)
+                    .userId(1L)
+                    .amount(new BigDecimal("10000"))
+                    .paymentMethod("카드")
+                    .paymentKey("pk-shard-" + orderId)
+                    .status(status)
+                    .build());
+            jdbcTemplate.update("update payments set created_at = ? where id = ?", createdAt, payment.getId());
+            Payment stored = paymentRepository.findById(payment.getId()).orElseThrow();
+            transactionTemplate.executeWithoutResult(tx -> paymentHistoryService.record(stored));
+            return PaymentResponse.from(stored);
+        });
+    }
+}
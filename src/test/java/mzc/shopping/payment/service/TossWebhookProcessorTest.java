@@ -0,0 +1,161 @@
+package mzc.shopping.payment.service;
+
+import feign.FeignException;
+import feign.Request;
+import mzc.shopping.payment.client.OrderServiceClient;
+import mzc.shopping.payment.client.TossConfirmResponse;
+import mzc.shopping.payment.client.TossPaymentsClient;
+import mzc.shopping.payment.dto.TossWebhookEvent;
+import mzc.shopping.payment.entity.Payment;
+import mzc.shopping.payment.entity.PaymentStatus;
+import mzc.shopping.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * 웹훅 본문의 상태를 믿지 않고 토스 조회로 확인한 상태만 반영하는지 확인한다.
+ * 스케줄 실행과 겹치지 않도록 테스트에서 직접 applyPending() 을 호출한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:toss-webhook;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "payment.id.node-id=0",
+        "payment.outbox.relay-interval=3600000",
+        "payment.reconcile.interval=3600000",
+        "payment.webhook.apply-interval=3600000",
+        "payment.rollup.fold-interval=3600000"
+})
+class TossWebhookProcessorTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10000");
+
+    @Autowired
+    private TossWebhookProcessor tossWebhookProcessor;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @MockitoBean
+    private TossPaymentsClient tossPaymentsClient;
+    @MockitoBean
+    private OrderServiceClient orderServiceClient;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from payments");
+        jdbcTemplate.update("delete from toss_webhook_events");
+        jdbcTemplate.update("delete from order_status_outbox");
+    }
+
+    @Test
+    void completesPendingPaymentConfirmedByToss() {
+        Payment payment = save(1L, "pk-webhook-1", PaymentStatus.PENDING);
+        given(tossPaymentsClient.getPayment(any(), eq("pk-webhook-1"))).willReturn(toss("pk-webhook-1", "DONE", 10000L));
+
+        tossWebhookProcessor.receive(webhook("pk-webhook-1", "DONE"));
+        tossWebhookProcessor.applyPending();
+
+        Payment completed = paymentRepository.findById(payment.getId()).orElseThrow();
+        assertThat(completed.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(completed.getTransactionId()).isEqualTo("txn-pk-webhook-1");
+        assertThat(outboxEvents(1L)).containsExactly("CONFIRMED");
+        assertThat(outcomes("pk-webhook-1")).containsExactly("applied");
+    }
+
+    @Test
+    void ignoresWebhookArrivingAfterPaymentCompleted() {
+        Payment payment = save(2L, "pk-webhook-2", PaymentStatus.COMPLETED);
+        given(tossPaymentsClient.getPayment(any(), eq("pk-webhook-2"))).willReturn(toss("pk-webhook-2", "DONE", 10000L));
+
+        // 승인 응답으로 이미 완료된 결제에 뒤늦게 도착한 웹훅
+        tossWebhookProcessor.receive(webhook("pk-webhook-2", "DONE"));
+        tossWebhookProcessor.applyPending();
+
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(outboxEvents(2L)).isEmpty();
+        assertThat(outcomes("pk-webhook-2")).containsExactly("ignored");
+    }
+
+    @Test
+    void rejectsPayloadTossDoesNotConfirm() {
+        Payment unknown = save(3L, "pk-webhook-3", PaymentStatus.PENDING);
+        Payment waiting = save(4L, "pk-webhook-4", PaymentStatus.PENDING);
+        given(tossPaymentsClient.getPayment(any(), eq("pk-webhook-3"))).willThrow(new FeignException.NotFound(
+                "NOT_FOUND_PAYMENT", request("pk-webhook-3"), null, Map.of()));
+        given(tossPaymentsClient.getPayment(any(), eq("pk-webhook-4")))
+                .willReturn(toss("pk-webhook-4", "WAITING_FOR_DEPOSIT", 10000L));
+
+        // 본문은 DONE 이지만 토스에 없는 결제이거나 토스 상태가 다르다
+        tossWebhookProcessor.receive(webhook("pk-webhook-3", "DONE"));
+        tossWebhookProcessor.receive(webhook("pk-webhook-4", "DONE"));
+        tossWebhookProcessor.applyPending();
+
+        assertThat(paymentRepository.findById(unknown.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.PENDING);
+        assertThat(paymentRepository.findById(waiting.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.PENDING);
+        assertThat(outboxEvents(3L)).isEmpty();
+        assertThat(outboxEvents(4L)).isEmpty();
+        assertThat(outcomes("pk-webhook-3")).containsExactly("rejected");
+        assertThat(outcomes("pk-webhook-4")).containsExactly("ignored");
+    }
+
+    private Payment save(long orderId, String paymentKey, PaymentStatus status) {
+        return paymentRepository.save(Payment.builder()
+                .orderId(orderId)
+                .userId(7L)
+                .amount(AMOUNT)
+                .paymentMethod("카드")
+                .paymentKey(paymentKey)
+                .status(status)
+                .build());
+    }
+
+    private TossWebhookEvent webhook(String paymentKey, String status) {
+        return new TossWebhookEvent(TossWebhookEvent.PAYMENT_STATUS_CHANGED, "2026-01-01T00:00:00.000000",
+                toss(paymentKey, status, 10000L));
+    }
+
+    private TossConfirmResponse toss(String paymentKey, String status, long totalAmount) {
+        TossConfirmResponse response = new TossConfirmResponse();
+        response.setPaymentKey(paymentKey);
+        response.setStatus(status);
+        response.setMethod("카드");
+        response.setTotalAmount(totalAmount);
+        response.setTransactionKey("txn-" + paymentKey);
+        return response;
+    }
+
+    private Request request(String paymentKey) {
+        return Request.create(Request.HttpMethod.GET, "/v1/payments/" + paymentKey, Map.of(), null,
+                StandardCharsets.UTF_8, null);
+    }
+
+    private List<String> outboxEvents(long orderId) {
+        return jdbcTemplate.queryForList("select status from order_status_outbox where order_id = ? order by id",
+                String.class, orderId);
+    }
+
+    private List<String> outcomes(String paymentKey) {
+        return jdbcTemplate.queryForList("select outcome from toss_webhook_events where payment_key = ?",
+                String.class, paymentKey);
+    }
+}
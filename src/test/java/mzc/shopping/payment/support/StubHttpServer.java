@@ -0,0 +1,110 @@
+package mzc.shopping.payment.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 원격 서비스(order-service, 토스페이먼츠)를 흉내 내는 로컬 HTTP 스텁.
+ * 경로 접두어마다 상태 코드, 본문, 지연을 지정하고, 가장 길게 일치하는 접두어의 응답을 돌려준다.
+ * 지정하지 않은 경로는 404, 연결 끊기로 지정한 경로는 응답 없이 연결을 닫는다.
+ */
+public final class StubHttpServer implements AutoCloseable {
+
+    private static final int DISCONNECT = -1;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Stub> stubs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    private StubHttpServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public static StubHttpServer start() {
+        try {
+            StubHttpServer stub = new StubHttpServer();
+            stub.server.start();
+            return stub;
+        } catch (IOException e) {
+            throw new IllegalStateException("스텁 서버를 시작할 수 없습니다.", e);
+        }
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void respond(String pathPrefix, int status, String body) {
+        respond(pathPrefix, status, body, Duration.ZERO);
+    }
+
+    public void respond(String pathPrefix, int status, String body, Duration latency) {
+        stubs.put(pathPrefix, new Stub(status, body, latency));
+    }
+
+    public void disconnect(String pathPrefix) {
+        stubs.put(pathPrefix, new Stub(DISCONNECT, "", Duration.ZERO));
+    }
+
+    // 접두어와 일치한 요청 수
+    public int requests(String pathPrefix) {
+        AtomicInteger count = requests.get(pathPrefix);
+        return count == null ? 0 : count.get();
+    }
+
+    public void reset() {
+        stubs.clear();
+        requests.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String prefix = stubs.keySet().stream()
+                .filter(path::startsWith)
+                .max((a, b) -> Integer.compare(a.length(), b.length()))
+                .orElse(null);
+        Stub stub = prefix == null ? new Stub(404, "", Duration.ZERO) : stubs.get(prefix);
+        if (prefix != null) {
+            requests.computeIfAbsent(prefix, key -> new AtomicInteger()).incrementAndGet();
+        }
+
+        try {
+            Thread.sleep(stub.latency().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (stub.status() == DISCONNECT) {
+            exchange.close();
+            return;
+        }
+        byte[] bytes = stub.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(stub.status(), bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private record Stub(int status, String body, Duration latency) {
+    }
+}